@@ -0,0 +1,82 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.AccountImportResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountImporter;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Time to import a 1M / 10M account upload through AccountImporter (NDJSON and CSV) into an empty
+// in-memory store, read from a file the way the endpoint reads the request body. Divide the account
+// count by the score for accounts per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AccountImportBenchmark {
+
+    @Param({"1000000", "10000000"})
+    int accounts;
+
+    @Param({"NDJSON", "CSV"})
+    AccountImporter.Format format;
+
+    Path file;
+    AccountsRepositoryInMemory repository;
+    AccountImporter importer;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        file = Files.createTempFile("accounts", "." + format.name().toLowerCase());
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < accounts; i++) {
+                writer.write(format == AccountImporter.Format.CSV
+                        ? "Id-" + i + ",1000.00\n"
+                        : "{\"accountId\":\"Id-" + i + "\",\"balance\":1000.00}\n");
+            }
+        }
+        repository = new AccountsRepositoryInMemory();
+        importer = new AccountImporter(new AccountsService(repository, (account, description) -> { }),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        repository.clearAccounts();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException, InterruptedException {
+        importer.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long importFile() throws IOException, InterruptedException {
+        try (InputStream body = Files.newInputStream(file)) {
+            AccountImportResponse response = importer.importAccounts(body, format);
+            return response.getImported();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Overload test for admission control. The notification sink stands in for a downstream with fixed
+// capacity (sinkPermits calls at a time, sinkDelayMs each, called synchronously), and more connections
+// than it can serve send /v1/accounts/amount-transfer back to back. Without admission control every
+// request queues and p99 grows with the number of connections; with it the adaptive limit keeps the
+// admitted requests near the target latency and the excess is refused with a fast 429.
+// Usage: ./gradlew admissionLoadTest [-PadmissionConnections=200,1000] [-PadmissionRequests=50]
+//                                    [-PadmissionSinkPermits=16] [-PadmissionSinkDelayMs=10]
+public final class AdmissionLoadTest {
+
+    private static final int ACCOUNTS = 1000;
+
+    private AdmissionLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] concurrencyLevels = Arrays.stream((args.length > 0 ? args[0] : "200,1000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int requestsPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int sinkPermits = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        long sinkDelayMillis = args.length > 3 ? Long.parseLong(args[3]) : 10;
+
+        List<String> report = new ArrayList<>();
+        for (boolean admission : new boolean[] {false, true}) {
+            for (int concurrency : concurrencyLevels) {
+                report.add(run(admission, concurrency, requestsPerConnection, sinkPermits, sinkDelayMillis));
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static String run(boolean admission, int concurrency, int requestsPerConnection, int sinkPermits, long sinkDelayMillis) {
+        CapacitySink.permits = new Semaphore(sinkPermits, true);
+        CapacitySink.delayMillis = sinkDelayMillis;
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(ChallengeApplication.class, CapacitySink.class)
+                        .properties(
+                                "server.port=0",
+                                "admission.enabled=" + admission,
+                                "admission.concurrency.target-latency-ms=" + (sinkDelayMillis * 4),
+                                "server.tomcat.threads.max=" + concurrency,
+                                "server.tomcat.max-connections=" + (concurrency * 2),
+                                "server.tomcat.accept-count=" + concurrency,
+                                "notification.async.enabled=false",
+                                "spring.main.allow-bean-definition-overriding=true",
+                                "logging.level.root=WARN",
+                                "logging.level.audit.transfers=OFF")
+                        .run()) {
+            AccountsService accountsService = context.getBean(AccountsService.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountsService.createAccount(new Account("Load-" + i, new BigDecimal(1_000_000_000)));
+            }
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/v1/accounts/amount-transfer");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            long[][] latencies = new long[concurrency][requestsPerConnection];
+            int[][] statuses = new int[concurrency][requestsPerConnection];
+            long start = System.nanoTime();
+            CompletableFuture<?>[] connections = new CompletableFuture<?>[concurrency];
+            for (int c = 0; c < concurrency; c++) {
+                connections[c] = send(client, uri, latencies[c], statuses[c], 0);
+            }
+            CompletableFuture.allOf(connections).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            LongAdder rejected = new LongAdder();
+            LongAdder errors = new LongAdder();
+            List<Long> admitted = new ArrayList<>();
+            List<Long> refused = new ArrayList<>();
+            for (int c = 0; c < concurrency; c++) {
+                for (int r = 0; r < requestsPerConnection; r++) {
+                    if (statuses[c][r] == 200) {
+                        admitted.add(latencies[c][r]);
+                    } else if (statuses[c][r] == 429) {
+                        rejected.increment();
+                        refused.add(latencies[c][r]);
+                    } else {
+                        errors.increment();
+                    }
+                }
+            }
+            long[] ok = admitted.stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] no = refused.stream().mapToLong(Long::longValue).sorted().toArray();
+            return String.format("admission=%-5s connections=%-5d ok=%-7d 429=%-7d errors=%-5d goodput=%7.0f req/s "
+                            + "ok p50=%6.1f ms p99=%7.1f ms max=%7.1f ms | 429 p99=%6.1f ms",
+                    admission, concurrency, ok.length, rejected.sum(), errors.sum(), ok.length / seconds,
+                    percentile(ok, 0.50), percentile(ok, 0.99), percentile(ok, 1.0), percentile(no, 0.99));
+        }
+    }
+
+    // One connection: the next request is sent when the previous response arrives
+    private static CompletableFuture<Void> send(HttpClient client, URI uri, long[] latencies, int[] statuses, int index) {
+        if (index == latencies.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"accountFrom\":\"Load-" + from + "\",\"accountTo\":\"Load-" + to + "\",\"transferAmount\":1}"))
+                .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latencies[index] = System.nanoTime() - sent;
+                    statuses[index] = failure != null ? -1 : response.statusCode();
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, uri, latencies, statuses, index + 1));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // A downstream that serves `permits` calls at a time; callers beyond that wait their turn
+    static class CapacitySink {
+
+        static volatile Semaphore permits;
+        static volatile long delayMillis;
+
+        @Bean
+        NotificationService emailNotificationService() {
+            return (account, transferDescription) -> {
+                try {
+                    permits.acquire();
+                    try {
+                        Thread.sleep(delayMillis);
+                    } finally {
+                        permits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One request per transfer (lock pair, lookups and ledger per item) against one batch request
+// (single validation pass and one lock acquisition over all involved accounts).
+// Scores are per transfer, so the two are directly comparable at each batch size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchTransferBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+    // Every benchmark method works through exactly BATCH_OPS transfers per invocation
+    static final int BATCH_OPS = 1000;
+
+    @Param({"10", "100", "1000"})
+    int batchSize;
+
+    @Param({"64"})
+    int accountCount;
+
+    AccountsService accountsService;
+    List<List<MoneyTransferRequest>> batches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        accountsService = new AccountsService(repository, (account, description) -> { });
+        String[] accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        batches = new ArrayList<>();
+        List<MoneyTransferRequest> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < BATCH_OPS; i++) {
+            int from = random.nextInt(accountCount);
+            int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+            batch.add(new MoneyTransferRequest(accountIds[from], accountIds[to], BigDecimal.ONE));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_OPS)
+    public void singleTransfers(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> batch : batches) {
+            for (MoneyTransferRequest request : batch) {
+                blackhole.consume(accountsService.fundTransfer(request));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_OPS)
+    public void batchTransfers(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> batch : batches) {
+            BatchTransferResponse response = accountsService.fundTransferBatch(batch, BatchTransferMode.BEST_EFFORT);
+            blackhole.consume(response);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.ClusterRing;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local cluster simulator: starts 1, 2 .. N application contexts in this JVM on loopback ports,
+// wired into one cluster (cluster.nodes / cluster.self), and drives /v1/accounts/amount-transfer
+// with a fixed number of connections spread over the nodes. Each request goes to a random node, so
+// most are forwarded and, with several nodes, most transfers cross nodes (saga with a remote credit).
+// The notification sink sleeps (notification.async.enabled=false), so a node is bounded by its request
+// threads the way a real deployment is bounded by its machine; that is the capacity partitioning adds.
+// Usage: ./gradlew clusterTest [-PclusterNodes=4] [-PclusterConnections=256] [-PclusterRequests=50] [-PclusterSinkDelayMs=5]
+public final class ClusterScalingTest {
+
+    private static final int ACCOUNTS = 1000;
+
+    private ClusterScalingTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int requestsPerConnection = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long sinkDelayMillis = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        List<String> report = new ArrayList<>();
+        double single = 0;
+        for (int nodes = 1; nodes <= maxNodes; nodes++) {
+            double throughput = run(nodes, connections, requestsPerConnection, sinkDelayMillis, report);
+            single = nodes == 1 ? throughput : single;
+            report.set(report.size() - 1, report.get(report.size() - 1) + String.format(" scaling=%.2fx", throughput / single));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static double run(int nodeCount, int connections, int requestsPerConnection, long sinkDelayMillis,
+                              List<String> report) throws Exception {
+        VirtualThreadLoadTest.SlowSink.delayMillis = sinkDelayMillis;
+        Path directory = Files.createTempDirectory("cluster-scaling");
+        int[] ports = new int[nodeCount];
+        String[] urls = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            ports[i] = freePort();
+            urls[i] = "http://localhost:" + ports[i];
+        }
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                contexts.add(new SpringApplicationBuilder(ChallengeApplication.class, VirtualThreadLoadTest.SlowSink.class)
+                        .properties(
+                                "server.port=" + ports[i],
+                                "cluster.nodes=" + String.join(",", urls),
+                                "cluster.self=" + urls[i],
+                                "cluster.saga-log.path=" + directory.resolve("node-" + i + ".saga"),
+                                "journal.enabled=true",
+                                "journal.path=" + directory.resolve("node-" + i + ".journal"),
+                                "server.tomcat.threads.max=50",
+                                "notification.async.enabled=false",
+                                "spring.main.allow-bean-definition-overriding=true",
+                                "logging.level.root=WARN",
+                                "logging.level.audit.transfers=OFF")
+                        .run());
+            }
+            ClusterRing ring = contexts.get(0).getBean(ClusterRing.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                Account account = new Account("Load-" + i, new BigDecimal(1_000_000_000));
+                contexts.get(Arrays.asList(urls).indexOf(ring.ownerOf(account.getAccountId())))
+                        .getBean(AccountsService.class).createAccount(account);
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            LongAdder errors = new LongAdder();
+            LongAdder crossNode = new LongAdder();
+            long start = System.nanoTime();
+            CompletableFuture<?>[] pending = new CompletableFuture<?>[connections];
+            for (int c = 0; c < connections; c++) {
+                pending[c] = send(client, urls, ring, requestsPerConnection, errors, crossNode);
+            }
+            CompletableFuture.allOf(pending).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = (long) connections * requestsPerConnection;
+            double throughput = total / seconds;
+            report.add(String.format("nodes=%d connections=%-5d requests=%-7d errors=%-5d cross-node=%3.0f%% throughput=%8.0f req/s",
+                    nodeCount, connections, total, errors.sum(), 100.0 * crossNode.sum() / total, throughput));
+            return throughput;
+        } finally {
+            contexts.forEach(ConfigurableApplicationContext::close);
+            JournalBenchmark.deleteRecursively(directory);
+        }
+    }
+
+    // One connection: the next request is sent when the previous response arrives
+    private static CompletableFuture<Void> send(HttpClient client, String[] urls, ClusterRing ring, int remaining,
+                                                LongAdder errors, LongAdder crossNode) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        if (!ring.ownerOf("Load-" + from).equals(ring.ownerOf("Load-" + to))) {
+            crossNode.increment();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urls[random.nextInt(urls.length)] + "/v1/accounts/amount-transfer"))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"accountFrom\":\"Load-" + from + "\",\"accountTo\":\"Load-" + to + "\",\"transferAmount\":1}"))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.increment();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, urls, ring, remaining - 1, errors, crossNode));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
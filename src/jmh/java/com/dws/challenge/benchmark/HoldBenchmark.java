@@ -0,0 +1,120 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.HoldService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 1M outstanding holds with ttls spread over one hour (100 ms ticks): placing them, expiring all of them
+// by stepping a virtual clock through the hour, and a transfer from an account that carries holds
+// against one that carries none. The available balance is kept next to the balance, so a transfer
+// costs the same however many holds are open.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HoldBenchmark {
+
+    static final long TICK_MILLIS = 100;
+    static final long HOUR_SECONDS = 3600;
+    static final Instant START = Instant.parse("2024-01-31T08:00:00Z");
+
+    @Param({"1000000"})
+    int holds;
+
+    @Param({"1000"})
+    int accountCount;
+
+    @Benchmark
+    public HoldService placeHolds() throws InterruptedException {
+        return place(this, accounts(this), new VirtualClock(START));
+    }
+
+    @Benchmark
+    public long expireHolds(Placed placed) throws InterruptedException {
+        long expired = 0;
+        for (long millis = 0; millis <= HOUR_SECONDS * 1000; millis += TICK_MILLIS) {
+            placed.clock.millis = START.toEpochMilli() + millis;
+            expired += placed.holdService.expireDue();
+        }
+        return expired;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object transferFromHeldAccount(Placed placed) throws Exception {
+        return placed.accountsService.fundTransfer(new MoneyTransferRequest("Id-0", "Id-1", BigDecimal.ONE));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object transferFromUnheldAccount(Placed placed) throws Exception {
+        return placed.accountsService.fundTransfer(new MoneyTransferRequest("Free", "Id-1", BigDecimal.ONE));
+    }
+
+    static AccountsService accounts(HoldBenchmark benchmark) {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+        String[] accountIds = new String[benchmark.accountCount];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], new BigDecimal(1_000_000_000)));
+        }
+        repository.createAccount(new Account("Free", new BigDecimal(1_000_000_000)));
+        return accountsService;
+    }
+
+    static HoldService place(HoldBenchmark benchmark, AccountsService accountsService, VirtualClock clock) throws InterruptedException {
+        HoldService holdService = new HoldService(accountsService, clock, TICK_MILLIS, HOUR_SECONDS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < benchmark.holds; i++) {
+            int from = i % benchmark.accountCount;
+            holdService.place(new HoldRequest("Id-" + from, "Id-" + (from + 1) % benchmark.accountCount,
+                    BigDecimal.ONE, 1 + random.nextLong(HOUR_SECONDS)));
+        }
+        return holdService;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Placed {
+
+        VirtualClock clock;
+        AccountsService accountsService;
+        HoldService holdService;
+
+        @Setup(Level.Iteration)
+        public void place(HoldBenchmark benchmark) throws InterruptedException {
+            holdService = null;
+            clock = new VirtualClock(START);
+            accountsService = HoldBenchmark.accounts(benchmark);
+            holdService = HoldBenchmark.place(benchmark, accountsService, clock);
+        }
+    }
+}
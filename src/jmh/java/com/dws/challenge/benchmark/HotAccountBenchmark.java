@@ -0,0 +1,73 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Many threads crediting one merchant account, each from its own sender so that the merchant is the
+// only shared account: a plain account (every credit takes its lock) against a HotAccount
+// (accounts.hot.ids, credits spread over slots). Run with ./gradlew jmhScaling -PjmhInclude=HotAccountBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotAccountBenchmark {
+
+    static final String MERCHANT = "Merchant";
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"false", "true"})
+    boolean hot;
+
+    @Param({"0"})
+    int slots;
+
+    AccountsService accountsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(
+                hot ? new String[] {MERCHANT} : new String[0], slots);
+        accountsService = new AccountsService(repository, (account, description) -> { });
+        accountsService.createAccount(new Account(MERCHANT, BigDecimal.ZERO));
+    }
+
+    @State(Scope.Thread)
+    public static class Sender {
+
+        MoneyTransferRequest request;
+
+        @Setup(Level.Trial)
+        public void setUp(HotAccountBenchmark benchmark, ThreadParams threadParams) {
+            String sender = "Sender-" + threadParams.getThreadIndex();
+            benchmark.accountsService.createAccount(new Account(sender, INITIAL_BALANCE));
+            request = new MoneyTransferRequest(sender, MERCHANT, AMOUNT);
+        }
+    }
+
+    @Benchmark
+    public MoneyTransferResponse creditMerchant(Sender sender) throws Exception {
+        return accountsService.fundTransfer(sender.request);
+    }
+}
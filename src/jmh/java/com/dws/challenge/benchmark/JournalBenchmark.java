@@ -0,0 +1,120 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.repository.TransferJournal.SyncMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Journal append throughput with a force() per transfer versus group commit, and
+// recovery time of a journal holding 1M / 10M transfer records.
+public class JournalBenchmark {
+
+    static final BigDecimal AMOUNT = new BigDecimal("12.34");
+
+    @State(Scope.Benchmark)
+    public static class Appending {
+
+        @Param({"PER_TRANSFER", "GROUP", "NONE"})
+        SyncMode syncMode;
+
+        Path directory;
+        TransferJournal journal;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("journal-bench");
+            journal = new TransferJournal(new AccountsRepositoryInMemory(),
+                    directory.resolve("transfers.journal").toString(), true, syncMode, 64);
+            journal.open();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            System.out.printf("%n%s: %d records, %d forces%n", syncMode, journal.getAppended(), journal.getForces());
+            journal.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @Threads(16)
+    public void appendTransfer(Appending state) {
+        state.journal.recordTransfer("Id-1", "Id-2", AMOUNT);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recovering {
+
+        @Param({"1000000", "10000000"})
+        int records;
+
+        Path directory;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            directory = Files.createTempDirectory("journal-recovery");
+            file = directory.resolve("transfers.journal");
+            TransferJournal journal = new TransferJournal(new AccountsRepositoryInMemory(), file.toString(), true,
+                    SyncMode.NONE, 64);
+            journal.open();
+            journal.recordAccountCreated(new Account("Id-1", new BigDecimal(1_000_000_000)), () -> { });
+            journal.recordAccountCreated(new Account("Id-2", BigDecimal.ZERO), () -> { });
+            for (int i = 2; i < records; i++) {
+                journal.recordTransfer("Id-1", "Id-2", AMOUNT);
+            }
+            journal.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public long recover(Recovering state) throws IOException {
+        TransferJournal journal = new TransferJournal(new AccountsRepositoryInMemory(), state.file.toString(), true,
+                SyncMode.NONE, 64);
+        journal.open();
+        long recovered = journal.getRecovered();
+        journal.close();
+        return recovered;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Per-account locks (stripes = 0) against shared StampedLock stripes (account.lock.stripes): transfer and
+// read throughput over 1M accounts, uniform and Zipfian, plus the heap in use after a full GC per trial.
+// Per-account locks are created on first use, so the setup touches every account to compare steady states.
+// Run with -PjmhThreads=8 (or jmhScaling) to see stripe collisions under contention.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LockStripingBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"0", "64", "1024", "16384"})
+    int stripes;
+
+    @Param({"1000000"})
+    int accountCount;
+
+    @Param({"0.99"})
+    double skew;
+
+    AccountLockManager accountLockManager;
+    AccountsService accountsService;
+    ZipfianGenerator zipfian;
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        accountLockManager = new AccountLockManager(0, 1, 0, stripes);
+        accountsService = new AccountsService(repository, (account, description) -> { }, accountLockManager,
+                TransferJournal.disabled(), new TransactionLedger(65536, 256), new IdempotencyCache(),
+                TransferMetrics.disabled(), ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100_000);
+        zipfian = new ZipfianGenerator(accountCount, skew);
+        accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            Account account = new Account(accountIds[i], INITIAL_BALANCE);
+            repository.createAccount(account);
+            if (stripes == 0) {
+                account.getLock();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.gc();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%nstripes=%d, %d accounts: %d MB heap in use after GC%n",
+                stripes, accountCount, heapUsed / (1024 * 1024));
+    }
+
+    @Benchmark
+    public MoneyTransferResponse uniformTransfer() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accountCount);
+        int to = random.nextInt(accountCount - 1);
+        if (to >= from) {
+            to++;
+        }
+        return accountsService.fundTransfer(new MoneyTransferRequest(accountIds[from], accountIds[to], AMOUNT));
+    }
+
+    @Benchmark
+    public MoneyTransferResponse zipfianTransfer() throws Exception {
+        int from = zipfian.next();
+        int to = zipfian.next();
+        if (to == from) {
+            to = (from + 1) % accountCount;
+        }
+        return accountsService.fundTransfer(new MoneyTransferRequest(accountIds[from], accountIds[to], AMOUNT));
+    }
+
+    @Benchmark
+    public Account readAccount() {
+        return accountsService.readAccount(accountIds[zipfian.next()]);
+    }
+}
@@ -0,0 +1,112 @@
+package com.dws.challenge.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferAuditLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Cost of a disabled log statement in the old style (string concatenation plus Account.toString,
+// built before the level check) against the parameterized, level-guarded style now on the hot path,
+// and fundTransfer with the audit channel off or on (async appender over a no-op sink).
+// Compare ns/op and gc.alloc.rate.norm (-prof gc, enabled in build.gradle).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(LoggingBenchmark.class);
+
+    @Param({"OFF", "INFO"})
+    String auditLevel;
+
+    AccountsService accountsService;
+    Account from;
+    Account to;
+    BigDecimal amount = new BigDecimal("12.50");
+    MoneyTransferRequest forward;
+    MoneyTransferRequest backward;
+    boolean flip;
+
+    private AsyncAppenderBase<ILoggingEvent> asyncAudit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(ch.qos.logback.classic.Level.INFO);
+
+        NOPAppender<ILoggingEvent> sink = new NOPAppender<>();
+        sink.setContext(context);
+        sink.start();
+        asyncAudit = new ch.qos.logback.classic.AsyncAppender();
+        asyncAudit.setContext(context);
+        asyncAudit.setQueueSize(65536);
+        asyncAudit.setDiscardingThreshold(0);
+        asyncAudit.addAppender(sink);
+        asyncAudit.start();
+        Logger audit = context.getLogger(TransferAuditLog.LOGGER_NAME);
+        audit.setAdditive(false);
+        audit.addAppender(asyncAudit);
+        audit.setLevel(ch.qos.logback.classic.Level.toLevel(auditLevel));
+
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        accountsService = new AccountsService(repository, (account, description) -> { });
+        from = new Account("Id-a", INITIAL_BALANCE);
+        to = new Account("Id-b", INITIAL_BALANCE);
+        repository.createAccount(from);
+        repository.createAccount(to);
+        forward = new MoneyTransferRequest("Id-a", "Id-b", BigDecimal.ONE);
+        backward = new MoneyTransferRequest("Id-b", "Id-a", BigDecimal.ONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        asyncAudit.stop();
+    }
+
+    @Benchmark
+    public void concatenatedDisabled() {
+        log.debug(Thread.currentThread().getName() + " transferred " + amount + " to " + to + ".");
+    }
+
+    @Benchmark
+    public void parameterizedDisabled() {
+        if (log.isDebugEnabled()) {
+            log.debug("Transferred {} from {} to {}", amount, from.getAccountId(), to.getAccountId());
+        }
+    }
+
+    @Benchmark
+    public MoneyTransferResponse fundTransfer() throws Exception {
+        flip = !flip;
+        return accountsService.fundTransfer(flip ? forward : backward);
+    }
+}
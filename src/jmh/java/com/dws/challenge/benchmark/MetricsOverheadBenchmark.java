@@ -0,0 +1,73 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// fundTransfer with TransferMetrics disabled against fully recorded timers (percentile histograms
+// on a SimpleMeterRegistry). The two scores should stay within a few percent of each other, and
+// with -prof gc the instrumented run should show no extra gc.alloc.rate.norm per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    AccountsService accountsService;
+    MoneyTransferRequest forward;
+    MoneyTransferRequest backward;
+    boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        TransferMetrics transferMetrics = instrumented
+                ? new TransferMetrics(new SimpleMeterRegistry(), repository)
+                : TransferMetrics.disabled();
+        accountsService = new AccountsService(repository, (account, description) -> { }, new AccountLockManager(),
+                TransferJournal.disabled(), new TransactionLedger(65536, 256), new IdempotencyCache(),
+                transferMetrics, ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100_000);
+        repository.createAccount(new Account("Id-a", INITIAL_BALANCE));
+        repository.createAccount(new Account("Id-b", INITIAL_BALANCE));
+        forward = new MoneyTransferRequest("Id-a", "Id-b", BigDecimal.ONE);
+        backward = new MoneyTransferRequest("Id-b", "Id-a", BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public MoneyTransferResponse fundTransfer() throws Exception {
+        flip = !flip;
+        return accountsService.fundTransfer(flip ? forward : backward);
+    }
+}
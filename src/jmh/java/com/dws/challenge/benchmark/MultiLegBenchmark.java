@@ -0,0 +1,125 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Split payments: one payer pays `legs` recipients (merchant, fee and tax accounts). Compares one
+// multi-leg transfer per payment (all accounts locked once, one critical section) with the same
+// payment as a sequence of single transfers (a lock round trip per recipient, and a half-applied
+// payment if one of them fails). Scores are per payment; lock acquisitions per payment are printed
+// after each trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiLegBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+    // Every benchmark method works through exactly PAYMENTS payments per invocation
+    static final int PAYMENTS = 1_000;
+
+    @Param({"3", "10"})
+    int legs;
+
+    @Param({"1000"})
+    int accountCount;
+
+    AccountLockManager accountLockManager;
+    AccountsService accountsService;
+    List<MultiLegTransferRequest> payments;
+    List<List<MoneyTransferRequest>> singleTransfers;
+    long acquisitionsAtStart;
+    long paid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        accountLockManager = new AccountLockManager();
+        accountsService = new AccountsService(repository, (account, description) -> { }, accountLockManager,
+                TransferJournal.disabled(), new TransactionLedger(65536, 256), new IdempotencyCache(),
+                TransferMetrics.disabled(), ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100_000);
+        for (int i = 0; i < accountCount; i++) {
+            repository.createAccount(new Account("Id-" + i, INITIAL_BALANCE));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        payments = new ArrayList<>(PAYMENTS);
+        singleTransfers = new ArrayList<>(PAYMENTS);
+        for (int p = 0; p < PAYMENTS; p++) {
+            int payer = random.nextInt(accountCount);
+            List<TransferLeg> credits = new ArrayList<>(legs);
+            List<MoneyTransferRequest> transfers = new ArrayList<>(legs);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int l = 0; l < legs; l++) {
+                String payee = "Id-" + (payer + 1 + l) % accountCount;
+                BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100));
+                credits.add(new TransferLeg(payee, amount));
+                transfers.add(new MoneyTransferRequest("Id-" + payer, payee, amount));
+                total = total.add(amount);
+            }
+            payments.add(new MultiLegTransferRequest(List.of(new TransferLeg("Id-" + payer, total)), credits));
+            singleTransfers.add(transfers);
+        }
+        acquisitionsAtStart = accountLockManager.getAcquisitions();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nlegs=%d: %.3f lock acquisitions per payment%n", legs,
+                (double) (accountLockManager.getAcquisitions() - acquisitionsAtStart) / paid);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYMENTS)
+    public void multiLegTransfers(Blackhole blackhole) throws Exception {
+        for (MultiLegTransferRequest payment : payments) {
+            blackhole.consume(accountsService.fundMultiLegTransfer(payment));
+        }
+        paid += PAYMENTS;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYMENTS)
+    public void singleTransferSequences(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> payment : singleTransfers) {
+            for (MoneyTransferRequest transfer : payment) {
+                blackhole.consume(accountsService.fundTransfer(transfer));
+            }
+        }
+        paid += PAYMENTS;
+    }
+}
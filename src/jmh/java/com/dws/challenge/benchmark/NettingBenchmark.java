@@ -0,0 +1,146 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Settlement batches on a payment graph: payers and payees drawn Zipfian (a few merchants and
+// clearing accounts see most of the traffic) and returnShare of the payments sent back along an
+// earlier edge of the same batch, half of them as full refunds. Compares single transfers, an
+// ALL_OR_NOTHING batch (every involved account locked, running balances) and a NETTED batch
+// (only accounts with a non-zero net locked and written). Scores are per transfer; lock
+// acquisitions per transfer are printed after each trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NettingBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+
+    // Every benchmark method works through exactly BATCH_OPS transfers per invocation
+    static final int BATCH_OPS = 10_000;
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    @Param({"1000"})
+    int accountCount;
+
+    @Param({"0.3"})
+    double returnShare;
+
+    AccountLockManager accountLockManager;
+    AccountsService accountsService;
+    List<List<MoneyTransferRequest>> batches;
+    long acquisitionsAtStart;
+    long transfers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        accountLockManager = new AccountLockManager();
+        accountsService = new AccountsService(repository, (account, description) -> { }, accountLockManager,
+                TransferJournal.disabled(), new TransactionLedger(65536, 256), new IdempotencyCache(),
+                TransferMetrics.disabled(), ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100_000);
+        String[] accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+        }
+        ZipfianGenerator zipfian = new ZipfianGenerator(accountCount, 0.99);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        batches = new ArrayList<>();
+        List<MoneyTransferRequest> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < BATCH_OPS; i++) {
+            if (!batch.isEmpty() && random.nextDouble() < returnShare) {
+                MoneyTransferRequest earlier = batch.get(random.nextInt(batch.size()));
+                BigDecimal amount = random.nextBoolean() ? earlier.getTransferAmount()
+                        : BigDecimal.valueOf(1 + random.nextInt(earlier.getTransferAmount().intValue()));
+                batch.add(new MoneyTransferRequest(earlier.getAccountTo(), earlier.getAccountFrom(), amount));
+            } else {
+                int from = zipfian.next();
+                int to = zipfian.next();
+                if (to == from) {
+                    to = (from + 1) % accountCount;
+                }
+                batch.add(new MoneyTransferRequest(accountIds[from], accountIds[to], BigDecimal.valueOf(1 + random.nextInt(100))));
+            }
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        acquisitionsAtStart = accountLockManager.getAcquisitions();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nbatchSize=%d: %.3f lock acquisitions per transfer%n", batchSize,
+                (double) (accountLockManager.getAcquisitions() - acquisitionsAtStart) / transfers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_OPS)
+    public void singleTransfers(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> batch : batches) {
+            for (MoneyTransferRequest request : batch) {
+                blackhole.consume(accountsService.fundTransfer(request));
+            }
+        }
+        transfers += BATCH_OPS;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_OPS)
+    public void allOrNothingBatches(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> batch : batches) {
+            blackhole.consume(accountsService.fundTransferBatch(batch, BatchTransferMode.ALL_OR_NOTHING));
+        }
+        transfers += BATCH_OPS;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_OPS)
+    public void nettedBatches(Blackhole blackhole) throws Exception {
+        for (List<MoneyTransferRequest> batch : batches) {
+            blackhole.consume(accountsService.fundTransferBatch(batch, BatchTransferMode.NETTED));
+        }
+        transfers += BATCH_OPS;
+    }
+}
@@ -0,0 +1,110 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryAtomic;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.AccountsRepositoryOffHeap;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Large account sets held on heap (Account objects or atomic minor units) against the off-heap table:
+// random transfers and lookups over 1M / 10M accounts. Besides -prof gc, the trial prints the heap
+// still in use after a full GC and the GC time spent while measuring.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class OffHeapRepositoryBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"in-memory", "atomic", "off-heap"})
+    String repository;
+
+    @Param({"1000000", "10000000"})
+    int accounts;
+
+    AccountsRepository accountsRepository;
+    AccountsService accountsService;
+    long gcMillisBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (repository) {
+            case "in-memory":
+                accountsRepository = new AccountsRepositoryInMemory();
+                break;
+            case "atomic":
+                accountsRepository = new AccountsRepositoryAtomic();
+                break;
+            case "off-heap":
+                accountsRepository = new AccountsRepositoryOffHeap(64, accounts, 50);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown repository " + repository);
+        }
+        accountsService = new AccountsService(accountsRepository, (account, description) -> { });
+        for (int i = 0; i < accounts; i++) {
+            accountsRepository.createAccount(new Account("Id-" + i, INITIAL_BALANCE));
+        }
+        gcMillisBefore = gcMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        long gcMillis = gcMillis() - gcMillisBefore;
+        System.gc();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%n%s, %d accounts: %d MB heap in use after GC, %d ms GC time while measuring%n",
+                repository, accounts, heapUsed / (1024 * 1024), gcMillis);
+        accountsRepository.clearAccounts();
+    }
+
+    @Benchmark
+    public MoneyTransferResponse randomTransfer() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = random.nextInt(accounts - 1);
+        if (to >= from) {
+            to++;
+        }
+        return accountsService.fundTransfer(new MoneyTransferRequest("Id-" + from, "Id-" + to, AMOUNT));
+    }
+
+    @Benchmark
+    public Account getAccount() {
+        return accountsRepository.getAccount("Id-" + ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,90 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+// 95% account reads, 5% transfers over a Zipfian account set. "snapshot" is the GET path
+// (AccountsService.readAccount, one volatile read, no lock); "locked" copies the account under its lock,
+// the way a read would have to serialize with transfers otherwise. Run with
+// ./gradlew jmhScaling -PjmhInclude=ReadHeavyBenchmark to see how each path scales across cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadHeavyBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"snapshot", "locked"})
+    String readPath;
+
+    @Param({"1024"})
+    int accountCount;
+
+    @Param({"0.99"})
+    double skew;
+
+    @Param({"5"})
+    int writePercent;
+
+    AccountsService accountsService;
+    ZipfianGenerator zipfian;
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+        zipfian = new ZipfianGenerator(accountCount, skew);
+        accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            accountsService.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+        }
+    }
+
+    @Benchmark
+    public Object mixed() throws Exception {
+        if (ThreadLocalRandom.current().nextInt(100) < writePercent) {
+            int from = zipfian.next();
+            int to = zipfian.next();
+            if (to == from) {
+                to = (from + 1) % accountCount;
+            }
+            return accountsService.fundTransfer(new MoneyTransferRequest(accountIds[from], accountIds[to], AMOUNT));
+        }
+        String accountId = accountIds[zipfian.next()];
+        if ("snapshot".equals(readPath)) {
+            return accountsService.readAccount(accountId);
+        }
+        Account account = accountsService.getAccount(accountId);
+        Lock lock = account.getLock();
+        lock.lock();
+        try {
+            return new Account(accountId, account.getBalance());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TimerWheel;
+import com.dws.challenge.service.TransferScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 1M pending schedules spread over one hour (100 ms ticks). The raw timer wheel against a binary heap
+// (PriorityQueue, what ScheduledThreadPoolExecutor and DelayQueue use), then the whole scheduler:
+// booking 1M transfers, and running all of them by stepping a virtual clock through the hour.
+// Heap in use per pending schedule is printed when they are booked.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScheduledTransferBenchmark {
+
+    static final long TICK_MILLIS = 100;
+    static final long HOUR_TICKS = 36_000;
+    static final Instant START = Instant.parse("2024-01-31T08:00:00Z");
+
+    @Param({"1000000"})
+    int entries;
+
+    @Param({"1000"})
+    int accountCount;
+
+    long[] deadlines;
+
+    @Setup(Level.Trial)
+    public void deadlines() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        deadlines = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            deadlines[i] = 1 + random.nextLong(HOUR_TICKS);
+        }
+    }
+
+    @Benchmark
+    public long timerWheel() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(0);
+        for (int i = 0; i < entries; i++) {
+            wheel.schedule(deadlines[i], i);
+        }
+        long[] fired = new long[1];
+        for (long tick = 1; tick <= HOUR_TICKS; tick++) {
+            wheel.advance(tick, index -> fired[0]++);
+        }
+        return fired[0];
+    }
+
+    @Benchmark
+    public long priorityQueue() {
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < entries; i++) {
+            queue.add(new long[]{deadlines[i], i});
+        }
+        long fired = 0;
+        for (long tick = 1; tick <= HOUR_TICKS; tick++) {
+            while (!queue.isEmpty() && queue.peek()[0] <= tick) {
+                queue.poll();
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    @Benchmark
+    public TransferScheduler bookSchedules() {
+        return book(this, new VirtualClock(START));
+    }
+
+    @Benchmark
+    public long runSchedules(Booked booked) throws InterruptedException {
+        long ran = 0;
+        for (long tick = 1; tick <= HOUR_TICKS; tick++) {
+            booked.clock.millis += TICK_MILLIS;
+            ran += booked.scheduler.tick();
+        }
+        return ran;
+    }
+
+    static TransferScheduler book(ScheduledTransferBenchmark benchmark, VirtualClock clock) {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+        String[] accountIds = new String[benchmark.accountCount];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], new BigDecimal(1_000_000_000)));
+        }
+        TransferScheduler scheduler = new TransferScheduler(accountsService, clock, TICK_MILLIS, 0, 0, 1000);
+        for (int i = 0; i < benchmark.entries; i++) {
+            int from = i % accountIds.length;
+            int to = (from + 1 + i / accountIds.length % (accountIds.length - 1)) % accountIds.length;
+            scheduler.schedule(new ScheduledTransferRequest(accountIds[from], accountIds[to], BigDecimal.ONE,
+                    START.plusMillis(benchmark.deadlines[i] * TICK_MILLIS)));
+        }
+        return scheduler;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Booked {
+
+        VirtualClock clock;
+        TransferScheduler scheduler;
+
+        @Setup(Level.Iteration)
+        public void book(ScheduledTransferBenchmark benchmark) {
+            scheduler = null;
+            System.gc();
+            long before = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            clock = new VirtualClock(START);
+            scheduler = ScheduledTransferBenchmark.book(benchmark, clock);
+            System.gc();
+            long after = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            System.out.printf("%n%d pending schedules: %d bytes of heap each%n", scheduler.getPendingCount(),
+                    (after - before) / Math.max(1, scheduler.getPendingCount()));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Lock based engine against the sharded single-writer engine on a Zipfian (hot account) workload.
+// syncTransfer waits for every transfer; pipelinedTransfers keeps 64 in flight per thread through
+// fundTransferAsync, which is where the shard inboxes can batch work.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ShardedEngineBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final int PIPELINE = 64;
+
+    @Param({"locking", "sharded"})
+    String engine;
+
+    @Param({"1024"})
+    int accountCount;
+
+    @Param({"0.99"})
+    double skew;
+
+    ShardedTransferEngine shardedTransferEngine;
+    AccountsService accountsService;
+    ZipfianGenerator zipfian;
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        shardedTransferEngine = new ShardedTransferEngine(repository, engine, 0, false);
+        accountsService = new AccountsService(repository, (account, description) -> { }, new AccountLockManager(),
+                TransferJournal.disabled(), new TransactionLedger(65536, 256), new IdempotencyCache(),
+                TransferMetrics.disabled(), shardedTransferEngine, AccountSnapshotter.disabled(), 100_000);
+        zipfian = new ZipfianGenerator(accountCount, skew);
+        accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        shardedTransferEngine.shutdown();
+    }
+
+    MoneyTransferRequest nextRequest() {
+        int from = zipfian.next();
+        int to = zipfian.next();
+        if (to == from) {
+            to = (from + 1) % accountCount;
+        }
+        return new MoneyTransferRequest(accountIds[from], accountIds[to], BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public MoneyTransferResponse syncTransfer() throws Exception {
+        return accountsService.fundTransfer(nextRequest());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public Object pipelinedTransfers() {
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[PIPELINE];
+        for (int i = 0; i < PIPELINE; i++) {
+            inFlight[i] = accountsService.fundTransferAsync(nextRequest());
+        }
+        return CompletableFuture.allOf(inFlight).join();
+    }
+}
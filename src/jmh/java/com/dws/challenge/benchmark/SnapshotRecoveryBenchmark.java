@@ -0,0 +1,85 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.repository.TransferJournal.SyncMode;
+import com.dws.challenge.service.AccountSnapshotter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Startup time with 1M / 10M accounts: replaying every account creation from the journal
+// (full rebuild) against loading the snapshot taken at the end of the journal.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotRecoveryBenchmark {
+
+    @Param({"1000000", "10000000"})
+    int accounts;
+
+    Path directory;
+    Path journalFile;
+    Path snapshotFile;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        directory = Files.createTempDirectory("snapshot-recovery");
+        journalFile = directory.resolve("transfers.journal");
+        snapshotFile = directory.resolve("accounts.snapshot");
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        TransferJournal journal = new TransferJournal(repository, journalFile.toString(), true, SyncMode.NONE, 64,
+                true, snapshotFile.toString());
+        journal.open();
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account("Id-" + i, new BigDecimal("1000.00"));
+            journal.recordAccountCreated(account, () -> repository.createAccount(account));
+        }
+        new AccountSnapshotter(repository, journal, true, snapshotFile.toString(), 0).snapshot();
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        JournalBenchmark.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int fullRebuild() throws IOException {
+        return open(false);
+    }
+
+    @Benchmark
+    public int snapshotLoad() throws IOException {
+        return open(true);
+    }
+
+    private int open(boolean snapshots) throws IOException {
+        AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+        TransferJournal journal = new TransferJournal(repository, journalFile.toString(), true, SyncMode.NONE, 64,
+                snapshots, snapshotFile.toString());
+        journal.open();
+        journal.close();
+        return repository.getAccountCount();
+    }
+}
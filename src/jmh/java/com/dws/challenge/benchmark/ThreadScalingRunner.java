@@ -0,0 +1,38 @@
+package com.dws.challenge.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Runs the included benchmarks at 1, 2, 4 ... up to all available cores, one JSON result file per
+// thread count. Usage: ./gradlew jmhScaling -PjmhInclude=TransferBenchmark
+public final class ThreadScalingRunner {
+
+    private ThreadScalingRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : TransferBenchmark.class.getSimpleName();
+        File resultDir = new File(args.length > 1 ? args[1] : "build/results/jmh");
+        resultDir.mkdirs();
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "scaling-" + threads + "t.json").getPath())
+                    .build();
+            new Runner(options).run();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+}
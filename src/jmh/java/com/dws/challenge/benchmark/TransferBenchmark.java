@@ -0,0 +1,135 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Transfer hot path: AccountsService.fundTransfer, Account.transfer and repository lookups,
+// uncontended (one account pair per thread), skewed (Zipfian over a shared account set)
+// and mixed reads/transfers. Run with -prof gc for allocation rates (enabled in build.gradle).
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000_000);
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1024"})
+    int accountCount;
+
+    @Param({"0.99"})
+    double skew;
+
+    AccountsRepositoryInMemory repository;
+    AccountsService accountsService;
+    ZipfianGenerator zipfian;
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new AccountsRepositoryInMemory();
+        accountsService = new AccountsService(repository, (account, description) -> { });
+        zipfian = new ZipfianGenerator(accountCount, skew);
+        accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "Id-" + i;
+            repository.createAccount(new Account(accountIds[i], INITIAL_BALANCE));
+        }
+    }
+
+    // A private account pair per benchmark thread, transfers flip direction so balances never drain.
+    @State(Scope.Thread)
+    public static class PrivatePair {
+
+        Account first;
+        Account second;
+        MoneyTransferRequest forward;
+        MoneyTransferRequest backward;
+        boolean flip;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferBenchmark benchmark, ThreadParams threadParams) {
+            String prefix = "Pair-" + threadParams.getThreadIndex();
+            first = new Account(prefix + "-a", INITIAL_BALANCE);
+            second = new Account(prefix + "-b", INITIAL_BALANCE);
+            benchmark.repository.createAccount(first);
+            benchmark.repository.createAccount(second);
+            forward = new MoneyTransferRequest(first.getAccountId(), second.getAccountId(), AMOUNT);
+            backward = new MoneyTransferRequest(second.getAccountId(), first.getAccountId(), AMOUNT);
+        }
+
+        MoneyTransferRequest next() {
+            flip = !flip;
+            return flip ? forward : backward;
+        }
+    }
+
+    @Benchmark
+    public MoneyTransferResponse uncontendedFundTransfer(PrivatePair pair) throws Exception {
+        return accountsService.fundTransfer(pair.next());
+    }
+
+    @Benchmark
+    public boolean uncontendedAccountTransfer(PrivatePair pair) {
+        pair.flip = !pair.flip;
+        return pair.flip ? pair.first.transfer(pair.second, AMOUNT) : pair.second.transfer(pair.first, AMOUNT);
+    }
+
+    @Benchmark
+    public MoneyTransferResponse zipfianFundTransfer() throws Exception {
+        return accountsService.fundTransfer(skewedRequest());
+    }
+
+    @Benchmark
+    public Account getAccount() {
+        return repository.getAccount(accountIds[ThreadLocalRandom.current().nextInt(accountCount)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Account mixedRead() {
+        return repository.getAccount(accountIds[zipfian.next()]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public MoneyTransferResponse mixedTransfer() throws Exception {
+        return accountsService.fundTransfer(skewedRequest());
+    }
+
+    private MoneyTransferRequest skewedRequest() {
+        int from = zipfian.next();
+        int to = zipfian.next();
+        if (to == from) {
+            to = (from + 1) % accountCount;
+        }
+        return new MoneyTransferRequest(accountIds[from], accountIds[to], AMOUNT);
+    }
+}
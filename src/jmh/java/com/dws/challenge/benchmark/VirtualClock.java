@@ -0,0 +1,36 @@
+package com.dws.challenge.benchmark;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// A clock the benchmark moves by hand (millis), shared by the hold and scheduled transfer benchmarks
+final class VirtualClock extends Clock {
+
+    long millis;
+
+    VirtualClock(Instant start) {
+        this.millis = start.toEpochMilli();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+}
@@ -0,0 +1,156 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.ChallengeApplication;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.ThreadFactories;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Boots the application once per execution mode (platform / virtual request threads) and drives
+// /amount-transfer of the MVC (v1) and reactive (v2) APIs with N concurrent connections, each sending
+// its requests back to back. The notification sink sleeps and is called synchronously
+// (notification.async.enabled=false), so every request blocks a thread the way a slow downstream call would.
+// Usage: ./gradlew loadTest [-PloadConcurrency=1000,10000] [-PloadRequests=20] [-PloadSinkDelayMs=50]
+//                           [-PloadApis=v1,v2] [-PloadEngine=locking|sharded]
+// Virtual mode needs a Java 21 runtime; 10k connections may need a higher open files limit (ulimit -n).
+public final class VirtualThreadLoadTest {
+
+    private static final int ACCOUNTS = 1000;
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] concurrencyLevels = Arrays.stream((args.length > 0 ? args[0] : "1000,10000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int requestsPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long sinkDelayMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        String[] apis = (args.length > 3 ? args[3] : "v1,v2").split(",");
+        String engine = args.length > 4 ? args[4] : "locking";
+
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[] {false, true}) {
+            if (virtual && !ThreadFactories.virtualThreadsSupported()) {
+                report.add("virtual: skipped, needs Java 21 (running " + Runtime.version() + ")");
+                continue;
+            }
+            for (String api : apis) {
+                for (int concurrency : concurrencyLevels) {
+                    report.add(run(virtual, api, engine, concurrency, requestsPerConnection, sinkDelayMillis));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtual, String api, String engine, int concurrency, int requestsPerConnection, long sinkDelayMillis) {
+        SlowSink.delayMillis = sinkDelayMillis;
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(ChallengeApplication.class, SlowSink.class)
+                        .properties(
+                                "server.port=0",
+                                ThreadFactories.VIRTUAL_THREADS_PROPERTY + "=" + virtual,
+                                "transfer.engine=" + engine,
+                                "server.tomcat.threads.max=200",
+                                "server.tomcat.max-connections=" + (concurrency * 2),
+                                "server.tomcat.accept-count=" + concurrency,
+                                "notification.async.enabled=false",
+                                "spring.main.allow-bean-definition-overriding=true",
+                                "logging.level.root=WARN",
+                                "logging.level.audit.transfers=OFF")
+                        .run()) {
+            AccountsService accountsService = context.getBean(AccountsService.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountsService.createAccount(new Account("Load-" + i, new BigDecimal(1_000_000_000)));
+            }
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/" + api + "/accounts/amount-transfer");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            long[][] latencies = new long[concurrency][requestsPerConnection];
+            LongAdder errors = new LongAdder();
+            long start = System.nanoTime();
+            CompletableFuture<?>[] connections = new CompletableFuture<?>[concurrency];
+            for (int c = 0; c < concurrency; c++) {
+                connections[c] = send(client, uri, latencies[c], 0, errors);
+            }
+            CompletableFuture.allOf(connections).join();
+            long elapsedNanos = System.nanoTime() - start;
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            long total = all.length;
+            return String.format("%-8s %s %-7s connections=%-6d requests=%-7d errors=%-5d throughput=%8.0f req/s p50=%6.1f ms p99=%7.1f ms max=%7.1f ms",
+                    virtual ? "virtual" : "platform", api, engine, concurrency, total, errors.sum(),
+                    total / (elapsedNanos / 1e9), percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+        }
+    }
+
+    // One connection: the next request is sent when the previous response arrives
+    private static CompletableFuture<Void> send(HttpClient client, URI uri, long[] latencies, int index, LongAdder errors) {
+        if (index == latencies.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"accountFrom\":\"Load-" + from + "\",\"accountTo\":\"Load-" + to + "\",\"transferAmount\":1}"))
+                .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latencies[index] = System.nanoTime() - sent;
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.increment();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, uri, latencies, index + 1, errors));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // Replaces the email sink with one that blocks the calling (request) thread
+    static class SlowSink {
+
+        static volatile long delayMillis;
+
+        @Bean
+        NotificationService emailNotificationService() {
+            return (account, transferDescription) -> {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+    }
+}
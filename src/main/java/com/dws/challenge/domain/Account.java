@@ -7,61 +7,152 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Data
-@Builder
 public class Account {
 
+    private static final AtomicReferenceFieldUpdater<Account, Lock> LOCK =
+            AtomicReferenceFieldUpdater.newUpdater(Account.class, Lock.class, "lock");
+
     @NotNull
     @NotEmpty
     private final String accountId;
 
+    // Created on first use: with striped account locks (account.lock.stripes) most accounts never need one
     @JsonIgnore
-    private final Lock lock = new ReentrantLock();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Lock lock;
 
-    @NotNull
-    @Min(value = 0, message = "Initial balance must be positive.")
-    private BigDecimal balance;
+    // The balance, the amount held by open reservations and their version (number of changes) as one
+    // immutable value, replaced on every change. Readers take a single volatile read: they never block a
+    // writer and never see a half applied change, so balance and held always belong together.
+    // Writers are already exclusive (account locks or stripes, the shard writer, journal replay).
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile BalanceState state;
 
     public Account(String accountId) {
         this.accountId = accountId;
-        this.balance = BigDecimal.ZERO;
+        this.state = new BalanceState(BigDecimal.ZERO, BigDecimal.ZERO, 0);
     }
 
+    @Builder
     @JsonCreator
     public Account(@JsonProperty("accountId") String accountId,
                    @JsonProperty("balance") BigDecimal balance) {
         this.accountId = accountId;
-        this.balance = balance;
+        this.state = new BalanceState(balance, BigDecimal.ZERO, 0);
+    }
+
+    private Account(String accountId, BalanceState state) {
+        this.accountId = accountId;
+        this.state = state;
+    }
+
+    @NotNull
+    @Min(value = 0, message = "Initial balance must be positive.")
+    @ToString.Include(name = "balance")
+    public BigDecimal getBalance() {
+        return state.balance;
+    }
+
+    // Only for writers that hold the account exclusively; open holds stay as they are
+    public void setBalance(BigDecimal balance) {
+        BalanceState current = state;
+        state = new BalanceState(balance, current.held, current.version + 1);
+    }
+
+    // Reserved by open holds: still part of the balance, but no longer available to debits
+    @JsonIgnore
+    public BigDecimal getHeld() {
+        return state.held;
+    }
+
+    // What a debit may take: the balance less the open holds
+    @JsonIgnore
+    public BigDecimal getAvailableBalance() {
+        BalanceState current = state;
+        return current.balance == null ? null : current.balance.subtract(current.held);
+    }
+
+    // Same, for subclasses that keep part of the balance outside the state: balance and held amount
+    // come from one state, so a concurrent hold never pairs with the balance of another
+    protected BigDecimal availableBalance(UnaryOperator<BigDecimal> balance) {
+        BalanceState current = state;
+        BigDecimal total = balance.apply(current.balance);
+        return total == null ? null : total.subtract(current.held);
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return state.version;
+    }
+
+    // A detached copy with this account's current balance and version
+    public Account snapshot() {
+        return new Account(accountId, state);
+    }
+
+    // Same, for subclasses that keep part of the balance outside the state: it is computed from the
+    // balance in the state, read first, and held and version come from the same state
+    protected Account snapshot(UnaryOperator<BigDecimal> balance) {
+        BalanceState current = state;
+        return new Account(accountId, new BalanceState(balance.apply(current.balance), current.held, current.version));
+    }
+
+    public Lock getLock() {
+        Lock current = lock;
+        if (current == null) {
+            LOCK.compareAndSet(this, null, new ReentrantLock());
+            current = lock;
+        }
+        return current;
     }
 
     public void credit(BigDecimal amount) {
+        Lock lock = getLock();
         lock.lock();
         try {
-            this.balance = balance.add(amount);
-            System.out.println(Thread.currentThread().getName() + " deposited " + amount + ". New balance: " + this.balance);
+            setBalance(getBalance().add(amount));
+            log.debug("Account {} credited, new balance {}", accountId, getBalance());
         } finally {
             lock.unlock();
         }
     }
 
     public void debit(BigDecimal amount) {
+        Lock lock = getLock();
         try {
             lock.lock();
-            if ((!(balance.compareTo(BigDecimal.ZERO) == 0)) && balance.equals(amount) || balance.compareTo(amount) == 1) {
-                this.balance = balance.subtract(amount);
+            BigDecimal balance = getBalance();
+            BigDecimal available = getAvailableBalance();
+            if ((!(available.compareTo(BigDecimal.ZERO) == 0)) && available.equals(amount) || available.compareTo(amount) == 1) {
+                setBalance(balance.subtract(amount));
             } else {
-                System.out.println(Thread.currentThread().getName() + " cannot withdraw " + amount + " due to insufficient balance.");
+                log.debug("Account {} cannot be debited {}, insufficient balance", accountId, amount);
             }
         } finally {
             lock.unlock();
@@ -69,19 +160,85 @@ public class Account {
     }
 
     public boolean transfer(Account toAccount, BigDecimal amount) {
+        Lock lock = getLock();
         lock.lock();
         try {
-            if ((!(balance.compareTo(BigDecimal.ZERO) == 0)) && balance.equals(amount) || balance.compareTo(amount) == 1) {
+            BigDecimal available = getAvailableBalance();
+            if ((!(available.compareTo(BigDecimal.ZERO) == 0)) && available.equals(amount) || available.compareTo(amount) == 1) {
                 debit(amount);
                 toAccount.credit(amount);
-                log.info(Thread.currentThread().getName() + " transferred " + amount + " to " + toAccount + ".");
+                if (log.isDebugEnabled()) {
+                    log.debug("Transferred {} from {} to {}", amount, accountId, toAccount.getAccountId());
+                }
                 return true;
             } else {
-                log.info(Thread.currentThread().getName() + " cannot transfer " + amount + " due to insufficient balance.");
+                log.debug("Account {} cannot transfer {}, insufficient balance", accountId, amount);
                 return false;
             }
         } finally {
             lock.unlock();
         }
     }
+
+    // For callers that already hold both accounts exclusively (AccountLockManager.lockAll);
+    // a HotAccount on the receiving side needs no lock at all
+    public boolean transferLocked(Account toAccount, BigDecimal amount) {
+        if (!withdraw(amount)) {
+            log.debug("Account {} cannot transfer {}, insufficient balance", accountId, amount);
+            return false;
+        }
+        toAccount.deposit(amount);
+        return true;
+    }
+
+    // Debit for a caller that holds the account exclusively; refuses to overdraw or to take held money
+    public boolean withdraw(BigDecimal amount) {
+        if (getAvailableBalance().compareTo(amount) < 0) {
+            return false;
+        }
+        setBalance(getBalance().subtract(amount));
+        return true;
+    }
+
+    // Reserves amount for a caller that holds the account exclusively; false when it is not available
+    public boolean hold(BigDecimal amount) {
+        if (getAvailableBalance().compareTo(amount) < 0) {
+            return false;
+        }
+        BalanceState current = state;
+        state = new BalanceState(current.balance, current.held.add(amount), current.version + 1);
+        return true;
+    }
+
+    // Gives a hold back (released or expired), for a caller that holds the account exclusively
+    public void release(BigDecimal held) {
+        BalanceState current = state;
+        state = new BalanceState(current.balance, current.held.subtract(held), current.version + 1);
+    }
+
+    // Closes a hold by debiting captured (at most the held amount), for a caller that holds the account
+    // exclusively; the rest of the hold becomes available again. Works on the stored balance, like
+    // HotAccount.withdraw, so credit slots are left alone.
+    public void capture(BigDecimal held, BigDecimal captured) {
+        BalanceState current = state;
+        state = new BalanceState(current.balance.subtract(captured), current.held.subtract(held), current.version + 1);
+    }
+
+    // Credit for a caller that holds the account exclusively
+    public void deposit(BigDecimal amount) {
+        setBalance(getBalance().add(amount));
+    }
+
+    private static final class BalanceState {
+
+        private final BigDecimal balance;
+        private final BigDecimal held;
+        private final long version;
+
+        private BalanceState(BigDecimal balance, BigDecimal held, long version) {
+            this.balance = balance;
+            this.held = held;
+            this.version = version;
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountImportResponse {
+
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    // at most import.max-reported-errors failed lines, in line order
+    private List<AccountImportError> errors;
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferItemResult {
+
+    private int index;
+    private TransactionStatus status;
+    private String message;
+    private Long transactionId;
+}
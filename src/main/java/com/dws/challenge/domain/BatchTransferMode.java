@@ -0,0 +1,11 @@
+package com.dws.challenge.domain;
+
+public enum BatchTransferMode {
+    // the first invalid or unfunded item rejects the whole batch, nothing is applied
+    ALL_OR_NOTHING,
+    // every item is applied on its own, failed items are reported and skipped
+    BEST_EFFORT,
+    // all or nothing, but settled on net positions: only the net change per account has to be covered
+    // and is applied, so offsetting transfers (A->B 100, B->A 90) cost one write per account
+    NETTED
+}
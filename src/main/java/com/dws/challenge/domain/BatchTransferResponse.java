@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResponse {
+
+    private BatchTransferMode mode;
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> results;
+}
@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// The credit half of a cross-node transfer, sent by the node holding accountFrom to the node
+// holding accountTo. legId is unique per transfer; a leg sent twice is applied once.
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClusterLeg {
+
+    private String legId;
+    private String accountFrom;
+    private String accountTo;
+    private BigDecimal amount;
+}
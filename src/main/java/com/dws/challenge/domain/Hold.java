@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class Hold {
+
+    private long holdId;
+    private String accountFrom;
+    private String accountTo;
+    private BigDecimal amount;
+    private HoldStatus status;
+    private Instant expiresAt;
+    // set once captured
+    private BigDecimal capturedAmount;
+    private Long transactionId;
+}
@@ -0,0 +1,31 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldRequest {
+
+    @NotNull(message = "account from shuld not be null!")
+    @NotEmpty(message = "account from shuld not be empty!")
+    private String accountFrom;
+
+    @NotNull(message = "account to shuld not be null!")
+    @NotEmpty(message = "account to shuld not be empty!")
+    private String accountTo;
+
+    @NotNull(message = "Hold amount shuld not be null!")
+    private BigDecimal amount;
+
+    // time until the hold expires on its own; hold.default-ttl-seconds when missing
+    private Long ttlSeconds;
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.domain;
+
+public enum HoldStatus {
+    // amount reserved on accountFrom, not available to debits
+    HELD,
+    // captured (all or part of it) to accountTo, the rest was given back
+    CAPTURED,
+    RELEASED,
+    // not captured or released before expiresAt, given back
+    EXPIRED
+}
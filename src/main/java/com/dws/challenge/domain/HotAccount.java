@@ -0,0 +1,120 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+
+// An account that receives most of the credits (merchant or treasury accounts, accounts.hot.ids).
+// Its balance is a base balance plus K credit slots. Credits add to a slot picked by the crediting
+// thread, without the account lock and moving to another slot when the CAS loses, like LongAdder cells.
+// Debits still hold the account lock and only lower the base, checked against base + slots: slots
+// only grow between debits, so a racing credit can only add to the balance and no debit overdraws.
+// The base may go below zero while slots hold the credits that cover it. A balance read sums base and
+// slots like LongAdder.sum: it may miss a credit still in flight, but never counts money twice.
+public class HotAccount extends Account {
+
+    // slots sit 16 references apart so that two slots never share a cache line
+    private static final int STRIDE = 16;
+
+    private final AtomicReferenceArray<BigDecimal> slots;
+    private final int slotMask;
+
+    public HotAccount(String accountId, BigDecimal balance, int slotCount) {
+        super(accountId, balance);
+        int count = Integer.highestOneBit(Math.max(1, slotCount));
+        this.slots = new AtomicReferenceArray<>(count * STRIDE);
+        for (int i = 0; i < count; i++) {
+            slots.set(i * STRIDE, BigDecimal.ZERO);
+        }
+        this.slotMask = count - 1;
+    }
+
+    public int getSlotCount() {
+        return slotMask + 1;
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return plusCredits(super.getBalance());
+    }
+
+    // Holds only change under the account lock, like debits; a racing credit can only add to it
+    @Override
+    public BigDecimal getAvailableBalance() {
+        return availableBalance(this::plusCredits);
+    }
+
+    // Only for writers that hold the account exclusively and while no credit can race them
+    // (sharded engine, journal replay); the lock based transfer path uses withdraw and deposit
+    @Override
+    public void setBalance(BigDecimal balance) {
+        BigDecimal credited = BigDecimal.ZERO;
+        for (int i = 0; i <= slotMask; i++) {
+            credited = credited.add(slots.get(i * STRIDE));
+        }
+        super.setBalance(balance.subtract(credited));
+    }
+
+    // Needs the account lock, which serializes debits; credits may race it
+    @Override
+    public boolean withdraw(BigDecimal amount) {
+        if (getAvailableBalance().compareTo(amount) < 0) {
+            return false;
+        }
+        super.setBalance(super.getBalance().subtract(amount));
+        return true;
+    }
+
+    // Applies a change computed under the account lock (batch transfers) to the base only
+    public void adjust(BigDecimal delta) {
+        super.setBalance(super.getBalance().add(delta));
+    }
+
+    // Lock free; safe to call without holding the account
+    @Override
+    public void deposit(BigDecimal amount) {
+        int slot = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 40) & slotMask;
+        while (true) {
+            int index = slot * STRIDE;
+            BigDecimal current = slots.get(index);
+            if (slots.compareAndSet(index, current, current.add(amount))) {
+                return;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    @Override
+    public void credit(BigDecimal amount) {
+        deposit(amount);
+    }
+
+    @Override
+    public void debit(BigDecimal amount) {
+        Lock lock = getLock();
+        lock.lock();
+        try {
+            withdraw(amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A plain Account holding the summed balance, with the held amount and version
+    @Override
+    public Account snapshot() {
+        return snapshot(this::plusCredits);
+    }
+
+    // The base is read before the slots: a debit covered by a credit this misses is not seen either
+    private BigDecimal plusCredits(BigDecimal base) {
+        if (base == null) {
+            return null;
+        }
+        BigDecimal balance = base;
+        for (int i = 0; i <= slotMask; i++) {
+            balance = balance.add(slots.get(i * STRIDE));
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,27 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.exception.BadRequestExceptionClass;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Conversion between BigDecimal amounts and long minor units (cents).
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new BadRequestExceptionClass("Amount " + amount + " cannot be represented in minor units");
+        }
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -12,7 +12,14 @@ import java.time.ZonedDateTime;
 public class MoneyTransferResponse {
     private String message;
 
+    private Long transactionId;
+
     public MoneyTransferResponse(String message) {
         this.message = message;
     }
+
+    public MoneyTransferResponse(String message, Long transactionId) {
+        this.message = message;
+        this.transactionId = transactionId;
+    }
 }
@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Debits and credits applied together or not at all; both sides have to add up to the same amount
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiLegTransferRequest {
+
+    @Valid
+    @NotEmpty(message = "debits shuld not be empty!")
+    private List<TransferLeg> debits;
+
+    @Valid
+    @NotEmpty(message = "credits shuld not be empty!")
+    private List<TransferLeg> credits;
+}
@@ -0,0 +1,19 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiLegTransferResponse {
+
+    private String message;
+    // the ledger entries the legs were split into, one per debited/credited account pair
+    private List<Long> transactionIds;
+}
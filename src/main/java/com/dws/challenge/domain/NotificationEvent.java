@@ -0,0 +1,24 @@
+package com.dws.challenge.domain;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class NotificationEvent {
+
+    private final Account account;
+    private final String transferDescription;
+    private int attempts;
+    private String lastError;
+
+    public NotificationEvent(Account account, String transferDescription) {
+        this.account = account;
+        this.transferDescription = transferDescription;
+    }
+
+    public void failedAttempt(String error) {
+        this.attempts++;
+        this.lastError = error;
+    }
+}
@@ -0,0 +1,13 @@
+package com.dws.challenge.domain;
+
+public enum ScheduleStatus {
+    // waiting for its execution time
+    PENDING,
+    // due and handed to the transfer path, can no longer be cancelled
+    EXECUTING,
+    // the transfer ran, see transactionId
+    EXECUTED,
+    // the transfer was refused (insufficient balance, unknown account) or could not run
+    FAILED,
+    CANCELLED
+}
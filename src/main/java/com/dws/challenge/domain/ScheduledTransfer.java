@@ -0,0 +1,27 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduledTransfer {
+
+    private long scheduleId;
+    private String accountFrom;
+    private String accountTo;
+    private BigDecimal transferAmount;
+    private Instant executeAt;
+    private ScheduleStatus status;
+    // set once the transfer ran (EXECUTED or FAILED)
+    private Long transactionId;
+    private String message;
+    private Instant executedAt;
+}
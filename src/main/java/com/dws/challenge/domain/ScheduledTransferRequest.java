@@ -0,0 +1,32 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduledTransferRequest {
+
+    @NotNull(message = "account from shuld not be null!")
+    @NotEmpty(message = "account from shuld not be empty!")
+    private String accountFrom;
+
+    @NotNull(message = "account to shuld not be null!")
+    @NotEmpty(message = "account to shuld not be empty!")
+    private String accountTo;
+
+    @NotNull(message = "Transfer amount shuld not be null!")
+    private BigDecimal transferAmount;
+
+    @NotNull(message = "Execution time shuld not be null!")
+    private Instant executeAt;
+}
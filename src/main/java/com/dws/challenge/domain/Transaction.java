@@ -0,0 +1,23 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Transaction {
+
+    private long transactionId;
+    private String accountFrom;
+    private String accountTo;
+    private BigDecimal amount;
+    private TransactionStatus status;
+    private Instant executedAt;
+}
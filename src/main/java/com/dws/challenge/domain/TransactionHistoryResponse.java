@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionHistoryResponse {
+
+    private String accountId;
+    private List<Transaction> transactions;
+    // pass back as ?cursor= for the next (older) page, null when there is none
+    private Long nextCursor;
+}
@@ -0,0 +1,6 @@
+package com.dws.challenge.domain;
+
+public enum TransactionStatus {
+    SUCCESS,
+    FAILED
+}
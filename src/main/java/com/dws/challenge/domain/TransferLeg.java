@@ -0,0 +1,25 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// One debit or credit of a multi-leg transfer
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferLeg {
+
+    @NotNull(message = "account id shuld not be null!")
+    @NotEmpty(message = "account id shuld not be empty!")
+    private String accountId;
+
+    @NotNull(message = "Leg amount shuld not be null!")
+    private BigDecimal amount;
+}
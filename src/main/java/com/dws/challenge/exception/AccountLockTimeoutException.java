@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class AccountLockTimeoutException extends RuntimeException {
+
+  public AccountLockTimeoutException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class ClusterNodeUnavailableException extends RuntimeException {
+
+  public ClusterNodeUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
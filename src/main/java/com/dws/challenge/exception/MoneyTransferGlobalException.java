@@ -1,6 +1,7 @@
 package com.dws.challenge.exception;
 
 import com.dws.challenge.domain.ErrorResponse;
+import com.dws.challenge.service.TransferMetrics;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -9,9 +10,16 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class MoneyTransferGlobalException {
 
+    private final TransferMetrics transferMetrics;
+
+    public MoneyTransferGlobalException(TransferMetrics transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
+
     @ExceptionHandler(value = DuplicateAccountIdException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handlerException(DuplicateAccountIdException ex) {
+        transferMetrics.error(ex);
         return ErrorResponse.builder()
                 .code(HttpStatus.BAD_REQUEST.value())
                 .status(HttpStatus.BAD_REQUEST.name())
@@ -21,6 +29,7 @@ public class MoneyTransferGlobalException {
     @ExceptionHandler(value = AccountIdNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handlerException(AccountIdNotFoundException ex) {
+        transferMetrics.error(ex);
         return ErrorResponse.builder()
                 .code(HttpStatus.NOT_FOUND.value())
                 .status(HttpStatus.NOT_FOUND.name())
@@ -30,6 +39,7 @@ public class MoneyTransferGlobalException {
     @ExceptionHandler(value = InsufficientAmountInAccountException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handlerException(InsufficientAmountInAccountException ex) {
+        transferMetrics.error(ex);
         return ErrorResponse.builder()
                 .code(HttpStatus.BAD_REQUEST.value())
                 .status(HttpStatus.BAD_REQUEST.name())
@@ -39,6 +49,27 @@ public class MoneyTransferGlobalException {
     @ExceptionHandler(value = TransactionIdNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handlerException(TransactionIdNotFoundException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.NOT_FOUND.value())
+                .status(HttpStatus.NOT_FOUND.name())
+                .message(ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(value = ScheduledTransferNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handlerException(ScheduledTransferNotFoundException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.NOT_FOUND.value())
+                .status(HttpStatus.NOT_FOUND.name())
+                .message(ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(value = HoldNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handlerException(HoldNotFoundException ex) {
+        transferMetrics.error(ex);
         return ErrorResponse.builder()
                 .code(HttpStatus.NOT_FOUND.value())
                 .status(HttpStatus.NOT_FOUND.name())
@@ -48,9 +79,50 @@ public class MoneyTransferGlobalException {
     @ExceptionHandler(value = BadRequestExceptionClass.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handlerException(BadRequestExceptionClass ex) {
+        transferMetrics.error(ex);
         return ErrorResponse.builder()
                 .code(HttpStatus.BAD_REQUEST.value())
                 .status(HttpStatus.BAD_REQUEST.name())
                 .message(ex.getMessage()).build();
     }
+
+    @ExceptionHandler(value = AccountLockTimeoutException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handlerException(AccountLockTimeoutException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .message(ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(value = IdempotencyKeyReuseException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handlerException(IdempotencyKeyReuseException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .status(HttpStatus.UNPROCESSABLE_ENTITY.name())
+                .message(ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(value = ClusterNodeUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handlerException(ClusterNodeUnavailableException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .message(ex.getMessage()).build();
+    }
+
+    @ExceptionHandler(value = TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handlerException(TooManyRequestsException ex) {
+        transferMetrics.error(ex);
+        return ErrorResponse.builder()
+                .code(HttpStatus.TOO_MANY_REQUESTS.value())
+                .status(HttpStatus.TOO_MANY_REQUESTS.name())
+                .message(ex.getMessage()).build();
+    }
 }
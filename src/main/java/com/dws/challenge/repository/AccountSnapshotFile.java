@@ -0,0 +1,266 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+// Binary snapshot of all account balances, taken at a journal position.
+//   header:  magic(4) version(2) reserved(2) journalId(8) journalPosition(8) accountCount(8)
+//   chunks:  count(4) length(4) crc32(4) then count records of idLen(2) id unscaled(8) scale(1)
+//   trailer: chunk offsets(8 each) chunkCount(4) magic(4)
+// Chunks are independent, so a snapshot is loaded by mapping and parsing its chunks in parallel.
+// The file is written next to its final name and moved into place once complete.
+public final class AccountSnapshotFile {
+
+    static final int MAGIC = 0x41534E50;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int CHUNK_HEADER_SIZE = 12;
+    static final int CHUNK_SIZE = 1 << 20;
+    private static final int RECORD_OVERHEAD = 11;
+
+    private AccountSnapshotFile() {
+    }
+
+    public static Writer create(Path path, long journalId, long journalPosition) throws IOException {
+        return new Writer(path, journalId, journalPosition);
+    }
+
+    // Reads only the header, or returns null when there is no (complete) snapshot at path
+    public static Header readHeader(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path);
+        }
+    }
+
+    // Creates every account of the snapshot in the repository, parsing chunks on `parallelism` threads
+    public static Header load(Path path, AccountsRepository accountsRepository, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, path);
+            long[] chunks = readChunkTable(channel, path);
+            LongAdder loaded = new LongAdder();
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.submit(() -> IntStream.range(0, chunks.length).parallel()
+                        .forEach(chunk -> loaded.add(loadChunk(channel, chunks[chunk], path, accountsRepository)))).get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading snapshot " + path, ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IOException("Could not load snapshot " + path, ex.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            if (loaded.sum() != header.getAccountCount()) {
+                throw new IllegalStateException("Snapshot " + path + " holds " + loaded.sum() + " accounts, header says "
+                        + header.getAccountCount());
+            }
+            return header;
+        }
+    }
+
+    private static Header readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+            throw new IllegalStateException("Not an account snapshot (or unsupported version): " + path);
+        }
+        return new Header(header.getLong(8), header.getLong(16), header.getLong(24));
+    }
+
+    private static long[] readChunkTable(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        ByteBuffer trailer = ByteBuffer.allocate(8);
+        readFully(channel, trailer, size - 8);
+        if (trailer.getInt(4) != MAGIC) {
+            throw new IllegalStateException("Account snapshot has no trailer, it was not written completely: " + path);
+        }
+        int chunkCount = trailer.getInt(0);
+        ByteBuffer table = ByteBuffer.allocate(chunkCount * 8);
+        readFully(channel, table, size - 8 - chunkCount * 8L);
+        long[] chunks = new long[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = table.getLong(i * 8);
+        }
+        return chunks;
+    }
+
+    private static int loadChunk(FileChannel channel, long offset, Path path, AccountsRepository accountsRepository) {
+        try {
+            ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            readFully(channel, chunkHeader, offset);
+            int count = chunkHeader.getInt(0);
+            int length = chunkHeader.getInt(4);
+            MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, offset + CHUNK_HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != chunkHeader.getInt(8)) {
+                throw new IllegalStateException("Corrupt chunk at " + offset + " in account snapshot " + path);
+            }
+            byte[] id = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int idLength = body.getShort() & 0xFFFF;
+                if (idLength > id.length) {
+                    id = new byte[idLength];
+                }
+                body.get(id, 0, idLength);
+                long unscaled = body.getLong();
+                int scale = body.get();
+                accountsRepository.createAccount(new Account(new String(id, 0, idLength, StandardCharsets.UTF_8),
+                        BigDecimal.valueOf(unscaled, scale)));
+            }
+            return count;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read account snapshot " + path, ex);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("Account snapshot is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    public static final class Header {
+
+        private final long journalId;
+        private final long journalPosition;
+        private final long accountCount;
+
+        Header(long journalId, long journalPosition, long accountCount) {
+            this.journalId = journalId;
+            this.journalPosition = journalPosition;
+            this.accountCount = accountCount;
+        }
+
+        public long getJournalId() {
+            return journalId;
+        }
+
+        public long getJournalPosition() {
+            return journalPosition;
+        }
+
+        public long getAccountCount() {
+            return accountCount;
+        }
+    }
+
+    // Not thread safe, one snapshot is written by one thread
+    public static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        private final ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        private final ByteBuffer body = ByteBuffer.allocate(CHUNK_SIZE);
+        private final CRC32 crc = new CRC32();
+        private final List<Long> chunks = new ArrayList<>();
+        private int chunkCount;
+        private long accountCount;
+        private boolean finished;
+
+        private Writer(Path path, long journalId, long journalPosition) throws IOException {
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(journalId).putLong(journalPosition);
+            channel.position(HEADER_SIZE);
+        }
+
+        public void add(String accountId, BigDecimal balance) throws IOException {
+            byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+            long unscaled;
+            try {
+                unscaled = balance.unscaledValue().longValueExact();
+            } catch (ArithmeticException ex) {
+                throw new IllegalStateException("Balance " + balance + " of account " + accountId + " is too large to be snapshotted");
+            }
+            if (body.remaining() < RECORD_OVERHEAD + id.length) {
+                flushChunk();
+            }
+            body.putShort((short) id.length).put(id).putLong(unscaled).put((byte) balance.scale());
+            chunkCount++;
+            accountCount++;
+        }
+
+        // Writes the chunk table and header, forces the file and moves it over the previous snapshot
+        public Header finish() throws IOException {
+            flushChunk();
+            ByteBuffer trailer = ByteBuffer.allocate(chunks.size() * 8 + 8);
+            chunks.forEach(trailer::putLong);
+            trailer.putInt(chunks.size()).putInt(MAGIC).flip();
+            header.putLong(accountCount).flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return new Header(header.getLong(8), header.getLong(16), accountCount);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        // one gathering write per chunk: its header and body go out together
+        private void flushChunk() throws IOException {
+            if (chunkCount == 0) {
+                return;
+            }
+            body.flip();
+            crc.reset();
+            crc.update(body.duplicate());
+            chunkHeader.clear();
+            chunkHeader.putInt(chunkCount).putInt(body.remaining()).putInt((int) crc.getValue()).flip();
+            chunks.add(channel.position());
+            ByteBuffer[] buffers = {chunkHeader, body};
+            while (body.hasRemaining()) {
+                channel.write(buffers);
+            }
+            body.clear();
+            chunkCount = 0;
+        }
+    }
+}
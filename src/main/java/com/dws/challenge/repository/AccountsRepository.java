@@ -14,4 +14,5 @@ public interface AccountsRepository {
 
   void clearAccounts();
 
+  int getAccountCount();
 }
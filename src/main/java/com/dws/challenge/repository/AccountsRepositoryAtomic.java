@@ -0,0 +1,108 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.dws.challenge.domain.MinorUnits.fromMinorUnits;
+import static com.dws.challenge.domain.MinorUnits.toMinorUnits;
+
+// Balances kept as long minor units in atomic cells and moved with compare-and-set,
+// so transfers take no locks and allocate nothing on the hot path.
+// getAccount returns a detached Account built from the current cell value; the transfer path only
+// uses containsAccount, covers and transfer, which read the cells directly.
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "atomic")
+public class AccountsRepositoryAtomic implements BalanceStore {
+
+    private final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAccount(Account account) throws DuplicateAccountIdException {
+        AtomicLong previousBalance = balances.putIfAbsent(account.getAccountId(),
+                new AtomicLong(toMinorUnits(account.getBalance())));
+        if (previousBalance != null) {
+            throw new DuplicateAccountIdException(
+                    "Account id " + account.getAccountId() + " already exists!");
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        AtomicLong balance = balances.get(accountId);
+        return balance == null ? null : new Account(accountId, fromMinorUnits(balance.get()));
+    }
+
+    @Override
+    public void updateAccountDetails(Account account) {
+        long minorUnits = toMinorUnits(account.getBalance());
+        AtomicLong balance = balances.putIfAbsent(account.getAccountId(), new AtomicLong(minorUnits));
+        if (balance != null) {
+            balance.set(minorUnits);
+        }
+    }
+
+    @Override
+    public void clearAccounts() {
+        balances.clear();
+    }
+
+    @Override
+    public int getAccountCount() {
+        return balances.size();
+    }
+
+    @Override
+    public boolean containsAccount(String accountId) {
+        return balances.containsKey(accountId);
+    }
+
+    @Override
+    public boolean covers(String accountId, BigDecimal amount) {
+        AtomicLong balance = balances.get(accountId);
+        return balance != null && balance.get() >= toMinorUnits(amount);
+    }
+
+    // Ordered CAS: the debit is done first with a CAS loop that never goes below zero, then the credit
+    // with one that never goes past Long.MAX_VALUE; a refused credit gives the debit back.
+    // Between the two steps the amount is briefly in flight and not visible in either balance.
+    @Override
+    public boolean transfer(String accountFrom, String accountTo, BigDecimal amount) {
+        AtomicLong from = cell(accountFrom);
+        AtomicLong to = cell(accountTo);
+        long minorUnits = toMinorUnits(amount);
+        long current;
+        do {
+            current = from.get();
+            if (current < minorUnits) {
+                return false;
+            }
+        } while (!from.compareAndSet(current, current - minorUnits));
+        do {
+            current = to.get();
+            if (current > Long.MAX_VALUE - minorUnits) {
+                from.getAndAdd(minorUnits);
+                throw new BadRequestExceptionClass("Transfer would overflow the balance of account " + accountTo);
+            }
+        } while (!to.compareAndSet(current, current + minorUnits));
+        return true;
+    }
+
+    private AtomicLong cell(String accountId) {
+        AtomicLong balance = balances.get(accountId);
+        if (balance == null) {
+            throw new AccountIdNotFoundException("Invalid account :: " + accountId);
+        }
+        return balance;
+    }
+}
@@ -1,28 +1,57 @@
 package com.dws.challenge.repository;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.HotAccount;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.exception.AccountIdNotFoundException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "in-memory", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
     private final Map<String, Account> accounts = new ConcurrentHashMap<>();
 
+    // accounts created as HotAccount, with their credits spread over hotAccountSlots slots
+    private final Set<String> hotAccountIds;
+    private final int hotAccountSlots;
 
+    public AccountsRepositoryInMemory() {
+        this(new String[0], 0);
+    }
+
+    @Autowired
+    public AccountsRepositoryInMemory(@Value("${accounts.hot.ids:}") String[] hotAccountIds,
+                                      @Value("${accounts.hot.slots:0}") int hotAccountSlots) {
+        this.hotAccountIds = Arrays.stream(hotAccountIds).map(String::trim).filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.hotAccountSlots = hotAccountSlots > 0 ? hotAccountSlots : Runtime.getRuntime().availableProcessors();
+        if (!this.hotAccountIds.isEmpty()) {
+            log.info("Hot accounts {} split into {} credit slots", this.hotAccountIds, this.hotAccountSlots);
+        }
+    }
 
     @Override
     public void createAccount(Account account) throws DuplicateAccountIdException {
+        if (hotAccountIds.contains(account.getAccountId()) && !(account instanceof HotAccount)) {
+            account = new HotAccount(account.getAccountId(), account.getBalance(), hotAccountSlots);
+        }
         Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
         if (previousAccount != null) {
             throw new DuplicateAccountIdException(
@@ -44,4 +73,14 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
     public void clearAccounts() {
         accounts.clear();
     }
+
+    @Override
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    // Visits every account present when the call starts (snapshots); accounts added meanwhile may be visited too.
+    public void forEachAccount(Consumer<Account> action) {
+        accounts.values().forEach(action);
+    }
 }
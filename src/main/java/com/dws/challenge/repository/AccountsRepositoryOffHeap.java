@@ -0,0 +1,338 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.dws.challenge.domain.MinorUnits.fromMinorUnits;
+import static com.dws.challenge.domain.MinorUnits.toMinorUnits;
+
+// Accounts stored outside the Java heap, so tens of millions of them add nothing for the GC to trace.
+// The table is split into stripes; each stripe is an open addressing (linear probing) hash table in
+// one direct ByteBuffer, guarded by its own lock, and doubles under that lock when 70% full.
+// Every slot has the same width:
+//   balance(8) hash(4) idLength(2) id(maxIdBytes), rounded up to a multiple of 8
+// with the balance in minor units. idLength 0 marks a free slot; accounts are never removed one by one.
+// A transfer locks the stripes of both accounts (in stripe order) and moves the balance in one step.
+// getAccount returns a detached Account built from the slot; containsAccount and covers read it in place.
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "accounts.repository", havingValue = "off-heap")
+public class AccountsRepositoryOffHeap implements BalanceStore, MeterBinder {
+
+    private static final int BALANCE = 0;
+    private static final int HASH = 8;
+    private static final int ID_LENGTH = 12;
+    private static final int ID = 14;
+    private static final int MAX_LOAD_PERCENT = 70;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int stripeMask;
+    private final int maxIdBytes;
+    private final int slotSize;
+
+    public AccountsRepositoryOffHeap() {
+        this(64, 1 << 16, 50);
+    }
+
+    @Autowired
+    public AccountsRepositoryOffHeap(@Value("${accounts.off-heap.stripes:64}") int stripeCount,
+                                     @Value("${accounts.off-heap.initial-capacity:1048576}") int initialCapacity,
+                                     @Value("${accounts.off-heap.max-id-bytes:50}") int maxIdBytes) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount));
+        this.stripes = new Stripe[count];
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.stripeMask = count - 1;
+        this.maxIdBytes = maxIdBytes;
+        this.slotSize = (ID + maxIdBytes + 7) & ~7;
+        int slotsPerStripe = Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity / count)) * 2);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+        log.info("Off-heap account table: {} stripes, {} byte slots, {} MB reserved", count, slotSize,
+                getOffHeapBytes() / (1024 * 1024));
+    }
+
+    @Override
+    public void createAccount(Account account) throws DuplicateAccountIdException {
+        byte[] id = encode(account.getAccountId());
+        int hash = hash(account.getAccountId());
+        long minorUnits = toMinorUnits(account.getBalance());
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            if (stripe.find(id, hash) >= 0) {
+                throw new DuplicateAccountIdException(
+                        "Account id " + account.getAccountId() + " already exists!");
+            }
+            stripe.insert(id, hash, minorUnits);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        byte[] id = encode(accountId);
+        int hash = hash(accountId);
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(id, hash);
+            return slot < 0 ? null : new Account(accountId, fromMinorUnits(stripe.table.getLong(slot + BALANCE)));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsAccount(String accountId) {
+        return balanceOf(accountId) >= 0;
+    }
+
+    @Override
+    public boolean covers(String accountId, BigDecimal amount) {
+        return balanceOf(accountId) >= toMinorUnits(amount);
+    }
+
+    @Override
+    public void updateAccountDetails(Account account) {
+        byte[] id = encode(account.getAccountId());
+        int hash = hash(account.getAccountId());
+        long minorUnits = toMinorUnits(account.getBalance());
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(id, hash);
+            if (slot < 0) {
+                stripe.insert(id, hash, minorUnits);
+            } else {
+                stripe.table.putLong(slot + BALANCE, minorUnits);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clearAccounts() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int getAccountCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.size;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    @Override
+    public boolean transfer(String accountFrom, String accountTo, BigDecimal amount) {
+        long minorUnits = toMinorUnits(amount);
+        byte[] fromId = encode(accountFrom);
+        byte[] toId = encode(accountTo);
+        int fromHash = hash(accountFrom);
+        int toHash = hash(accountTo);
+        int fromStripe = stripeIndex(fromHash);
+        int toStripe = stripeIndex(toHash);
+        Stripe first = stripes[Math.min(fromStripe, toStripe)];
+        Stripe second = stripes[Math.max(fromStripe, toStripe)];
+        first.lock.lock();
+        try {
+            if (second != first) {
+                second.lock.lock();
+            }
+            try {
+                Stripe source = stripes[fromStripe];
+                Stripe target = stripes[toStripe];
+                int from = source.slot(fromId, fromHash, accountFrom);
+                int to = target.slot(toId, toHash, accountTo);
+                long balance = source.table.getLong(from + BALANCE);
+                if (balance < minorUnits) {
+                    return false;
+                }
+                // checked before anything is written, so a refused credit leaves both balances as they were
+                if (target.table.getLong(to + BALANCE) > Long.MAX_VALUE - minorUnits) {
+                    throw new BadRequestExceptionClass("Transfer would overflow the balance of account " + accountTo);
+                }
+                source.table.putLong(from + BALANCE, balance - minorUnits);
+                target.table.putLong(to + BALANCE, target.table.getLong(to + BALANCE) + minorUnits);
+                return true;
+            } finally {
+                if (second != first) {
+                    second.lock.unlock();
+                }
+            }
+        } finally {
+            first.lock.unlock();
+        }
+    }
+
+    // balance in minor units, -1 for an unknown account (balances never go below zero)
+    private long balanceOf(String accountId) {
+        byte[] id = encode(accountId);
+        int hash = hash(accountId);
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(id, hash);
+            return slot < 0 ? -1 : stripe.table.getLong(slot + BALANCE);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.table.capacity();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("accounts.offheap.bytes", this, AccountsRepositoryOffHeap::getOffHeapBytes).register(registry);
+    }
+
+    private byte[] encode(String accountId) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        if (id.length == 0 || id.length > maxIdBytes) {
+            throw new BadRequestExceptionClass("Account id must be 1 to " + maxIdBytes + " bytes long");
+        }
+        return id;
+    }
+
+    // String.hashCode is cached per String; spread so that stripe (high bits) and slot (low bits) both vary
+    private static int hash(String accountId) {
+        int hash = accountId.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private Stripe stripeOf(int hash) {
+        return stripes[stripeIndex(hash)];
+    }
+
+    // high bits pick the stripe, low bits the slot inside it (the mask covers a single stripe, shift 32)
+    private int stripeIndex(int hash) {
+        return (hash >>> stripeShift) & stripeMask;
+    }
+
+    private final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+        ByteBuffer table;
+        int mask;
+        // written under the lock, read without it for getAccountCount
+        volatile int size;
+
+        Stripe(int slots) {
+            allocate(slots);
+        }
+
+        void allocate(int slots) {
+            if ((long) slots * slotSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Off-heap account stripe is full, configure more stripes");
+            }
+            table = ByteBuffer.allocateDirect(slots * slotSize);
+            mask = slots - 1;
+        }
+
+        int slot(byte[] id, int hash, String accountId) {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                throw new AccountIdNotFoundException("Invalid account :: " + accountId);
+            }
+            return slot;
+        }
+
+        // byte offset of the account's slot, or -1
+        int find(byte[] id, int hash) {
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                int slot = index * slotSize;
+                int length = table.getShort(slot + ID_LENGTH);
+                if (length == 0) {
+                    return -1;
+                }
+                if (length == id.length && table.getInt(slot + HASH) == hash && idEquals(slot, id)) {
+                    return slot;
+                }
+            }
+        }
+
+        void insert(byte[] id, int hash, long minorUnits) {
+            if ((size + 1) * 100L > (mask + 1) * (long) MAX_LOAD_PERCENT) {
+                grow();
+            }
+            write(id, id.length, hash, minorUnits);
+            size++;
+        }
+
+        void write(byte[] id, int length, int hash, long minorUnits) {
+            int index = hash & mask;
+            while (table.getShort(index * slotSize + ID_LENGTH) != 0) {
+                index = (index + 1) & mask;
+            }
+            int slot = index * slotSize;
+            table.putLong(slot + BALANCE, minorUnits)
+                    .putInt(slot + HASH, hash)
+                    .putShort(slot + ID_LENGTH, (short) length)
+                    .put(slot + ID, id, 0, length);
+        }
+
+        void grow() {
+            ByteBuffer old = table;
+            int oldSlots = mask + 1;
+            allocate(oldSlots * 2);
+            byte[] id = new byte[maxIdBytes];
+            for (int index = 0; index < oldSlots; index++) {
+                int slot = index * slotSize;
+                int length = old.getShort(slot + ID_LENGTH);
+                if (length != 0) {
+                    old.get(slot + ID, id, 0, length);
+                    write(id, length, old.getInt(slot + HASH), old.getLong(slot + BALANCE));
+                }
+            }
+        }
+
+        void clear() {
+            for (int slot = 0; slot < table.capacity(); slot += slotSize) {
+                table.putShort(slot + ID_LENGTH, (short) 0);
+            }
+            size = 0;
+        }
+
+        boolean idEquals(int slot, byte[] id) {
+            for (int i = 0; i < id.length; i++) {
+                if (table.get(slot + ID + i) != id[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
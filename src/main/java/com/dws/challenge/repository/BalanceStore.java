@@ -0,0 +1,16 @@
+package com.dws.challenge.repository;
+
+import java.math.BigDecimal;
+
+// Account stores that keep balances outside Account (and so outside its lock): they apply transfers
+// themselves, and answer existence and balance checks without building an Account.
+public interface BalanceStore extends AccountsRepository {
+
+  boolean containsAccount(String accountId);
+
+  boolean covers(String accountId, BigDecimal amount);
+
+  // Moves amount between two accounts, returns false when the source balance is insufficient.
+  boolean transfer(String accountFrom, String accountTo, BigDecimal amount);
+
+}
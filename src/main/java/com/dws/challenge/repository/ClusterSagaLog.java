@@ -0,0 +1,311 @@
+package com.dws.challenge.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Recovery log of the cross-node transfers this node takes part in: the sagas it started (sender
+// side) and the credit legs it applied and still has to recognise (receiver side).
+// Every state change is one forced record
+//   length(4) state(1) idLen(2) id fromLen(2) from toLen(2) to unscaled(8) scale(1) crc32(4)
+// and the last record of a saga wins. The file is rewritten with only the open entries on startup
+// and, by the recovery task, whenever it has grown well past them, so it stays proportional to the
+// transfers in flight. Reading stops at the first torn record, like the journal.
+@Slf4j
+@Component
+public class ClusterSagaLog {
+
+    public enum State {
+        // logged before the debit; after a crash the journal tells whether the debit happened
+        STARTED,
+        // debit applied and journaled, the credit on the other node is owed
+        DEBITED,
+        // credited on the other node
+        DONE,
+        // the other node refused the credit, the debit was given back
+        REFUNDED,
+        // the debit was refused (insufficient funds) or never happened
+        ABORTED,
+        // credited on the other node, which still has to be told it can forget the leg
+        CREDITED,
+        // receiver side: logged before a credit leg is applied; after a crash the journal tells whether it was
+        RECEIVING,
+        // receiver side: credit leg applied, a resend of it is recognised until its sender is done
+        RECEIVED,
+        // receiver side: the sender is done with the leg
+        FORGOTTEN;
+
+        public boolean isOpen() {
+            return this == STARTED || this == DEBITED || this == CREDITED || this == RECEIVING || this == RECEIVED;
+        }
+
+        public boolean isReceiverSide() {
+            return this == RECEIVING || this == RECEIVED || this == FORGOTTEN;
+        }
+    }
+
+    private static final int FIXED_RECORD_SIZE = 24;
+    // records appended since the last rewrite before the file is worth compacting
+    private static final int COMPACT_AFTER_RECORDS = 16384;
+
+    private final Path path;
+    private final boolean enabled;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Saga> open = new ConcurrentHashMap<>();
+    // guarded by appendLock
+    private FileChannel channel;
+    private long appendedSinceCompaction;
+
+    public static ClusterSagaLog disabled() {
+        return new ClusterSagaLog("", false);
+    }
+
+    public ClusterSagaLog(String path, boolean enabled) {
+        this.path = Paths.get(path);
+        this.enabled = enabled;
+    }
+
+    @Autowired
+    public ClusterSagaLog(@Value("${cluster.saga-log.path:data/cluster-saga.log}") String path,
+                          @Value("${cluster.nodes:}") String[] nodes) {
+        this(path, nodes.length > 0);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(path)) {
+            for (Saga saga : read(path).values()) {
+                if (saga.getState().isOpen()) {
+                    open.put(saga.getId(), saga);
+                }
+            }
+        }
+        appendLock.lock();
+        try {
+            compact();
+        } finally {
+            appendLock.unlock();
+        }
+        log.info("Cluster saga log {} opened, {} transfers to recover", path, open.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Durable once this returns
+    public Saga record(Saga saga, State state) {
+        Saga next = saga.withState(state);
+        if (!enabled) {
+            track(next);
+            return next;
+        }
+        appendLock.lock();
+        try {
+            write(channel, next);
+            channel.force(false);
+            appendedSinceCompaction++;
+            // under the lock, so that a compaction never misses a state that is already in the file
+            track(next);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write cluster saga log " + path, ex);
+        } finally {
+            appendLock.unlock();
+        }
+        return next;
+    }
+
+    // Rewrites the file with only the open sagas once most of its records are of finished ones
+    public boolean compactIfGrown() {
+        if (!enabled) {
+            return false;
+        }
+        appendLock.lock();
+        try {
+            if (channel == null || appendedSinceCompaction < Math.max(COMPACT_AFTER_RECORDS, 4L * open.size())) {
+                return false;
+            }
+            compact();
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not compact cluster saga log " + path, ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Open entries of both sides, including the ones recovered on startup
+    public Collection<Saga> getOpenSagas() {
+        return new ArrayList<>(open.values());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void track(Saga saga) {
+        if (saga.getState().isOpen()) {
+            open.put(saga.getId(), saga);
+        } else {
+            open.remove(saga.getId());
+        }
+    }
+
+    // Caller holds appendLock. The old file stays in use until the new one has replaced it.
+    private void compact() throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel rewrite = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Saga saga : open.values()) {
+                write(rewrite, saga);
+            }
+            rewrite.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        appendedSinceCompaction = open.size();
+    }
+
+    private void write(FileChannel target, Saga saga) throws IOException {
+        byte[] id = saga.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] from = saga.getAccountFrom().getBytes(StandardCharsets.UTF_8);
+        byte[] to = saga.getAccountTo().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_RECORD_SIZE + id.length + from.length + to.length;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length)
+                .put((byte) saga.getState().ordinal())
+                .putShort((short) id.length).put(id)
+                .putShort((short) from.length).put(from)
+                .putShort((short) to.length).put(to)
+                .putLong(saga.getAmount().unscaledValue().longValueExact())
+                .put((byte) saga.getAmount().scale());
+        record.putInt(checksum(record.duplicate().position(0), length));
+        record.flip();
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    private Map<String, Saga> read(Path file) throws IOException {
+        Map<String, Saga> sagas = new LinkedHashMap<>();
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        State[] states = State.values();
+        while (content.remaining() >= FIXED_RECORD_SIZE) {
+            int start = content.position();
+            int length = content.getInt(start);
+            if (length < FIXED_RECORD_SIZE || length > content.remaining()
+                    || content.getInt(start + length - 4) != checksum(content.duplicate().position(start), length)) {
+                log.warn("Torn cluster saga log record at {}, ignoring the tail", start);
+                break;
+            }
+            content.position(start + 4);
+            State state = states[content.get()];
+            String id = readString(content);
+            String from = readString(content);
+            String to = readString(content);
+            BigDecimal amount = BigDecimal.valueOf(content.getLong(), content.get());
+            content.position(start + length);
+            sagas.put(id, new Saga(id, from, to, amount, state));
+        }
+        return sagas;
+    }
+
+    private static String readString(ByteBuffer content) {
+        byte[] bytes = new byte[content.getShort()];
+        content.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // crc32 of the record between the length and the checksum; record is positioned at its start
+    private int checksum(ByteBuffer record, int length) {
+        ByteBuffer body = record.duplicate();
+        int start = body.position();
+        body.limit(start + length - 4).position(start + 4);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    public static final class Saga {
+
+        private final String id;
+        private final String accountFrom;
+        private final String accountTo;
+        private final BigDecimal amount;
+        private final State state;
+
+        public Saga(String id, String accountFrom, String accountTo, BigDecimal amount, State state) {
+            this.id = id;
+            this.accountFrom = accountFrom;
+            this.accountTo = accountTo;
+            this.amount = amount;
+            this.state = state;
+        }
+
+        public Saga withState(State next) {
+            return new Saga(id, accountFrom, accountTo, amount, next);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getAccountFrom() {
+            return accountFrom;
+        }
+
+        public String getAccountTo() {
+            return accountTo;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.domain.TransactionHistoryResponse;
+import com.dws.challenge.domain.TransactionStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory ledger of the most recent transfers.
+// Primary index: transaction ids are a global sequence, so a record lives in slot (id & mask) of a
+// ring of parallel arrays; older records are overwritten, which bounds memory by the retention.
+// Secondary index: per account a ring of the latest transaction ids, grown on demand up to
+// ledger.history-per-account. Whenever the primary ring wraps, accounts none of whose ids are still
+// retained are dropped, so the index is bounded by the retention too, not by the number of accounts.
+// The drop is a sweep spread over the following records, a few accounts each, so no single transfer
+// pays for all of them.
+// Readers never lock: a slot is written seqlock style (id negated while writing) and re-validated,
+// and an account's ring is replaced, not resized, when it grows.
+@Component
+public class TransactionLedger {
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    // accounts checked per record; a wrap adds at most two accounts per record, so a sweep is done
+    // well before the next wrap
+    private static final int SWEEP_BATCH = 8;
+
+    private final int mask;
+    private final int historyPerAccount;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray ids;
+    private final String[] accountsFrom;
+    private final String[] accountsTo;
+    private final BigDecimal[] amounts;
+    private final long[] timestamps;
+    private final byte[] statuses;
+    private final Map<String, AccountHistory> histories = new ConcurrentHashMap<>();
+    // ids below this are evicted; moves up each time the ring wraps
+    private volatile long evictedBefore;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    // guarded by sweeping
+    private Iterator<Map.Entry<String, AccountHistory>> sweep = Collections.emptyIterator();
+    private long sweepBefore;
+
+    @Autowired
+    public TransactionLedger(@Value("${ledger.retained-transactions:262144}") int retainedTransactions,
+                             @Value("${ledger.history-per-account:1024}") int historyPerAccount) {
+        int capacity = Integer.highestOneBit(Math.max(2, retainedTransactions - 1)) << 1;
+        this.mask = capacity - 1;
+        this.historyPerAccount = historyPerAccount;
+        this.ids = new AtomicLongArray(capacity);
+        this.accountsFrom = new String[capacity];
+        this.accountsTo = new String[capacity];
+        this.amounts = new BigDecimal[capacity];
+        this.timestamps = new long[capacity];
+        this.statuses = new byte[capacity];
+    }
+
+    public long record(String accountFrom, String accountTo, BigDecimal amount, TransactionStatus status) {
+        long transactionId = sequence.incrementAndGet();
+        int slot = (int) (transactionId & mask);
+        ids.set(slot, -transactionId);
+        VarHandle.storeStoreFence();
+        accountsFrom[slot] = accountFrom;
+        accountsTo[slot] = accountTo;
+        amounts[slot] = amount;
+        timestamps[slot] = System.currentTimeMillis();
+        statuses[slot] = (byte) status.ordinal();
+        ids.set(slot, transactionId);
+        append(accountFrom, transactionId);
+        append(accountTo, transactionId);
+        if (slot == 0) {
+            // the ring wrapped: ids up to transactionId - capacity are gone
+            evictedBefore = transactionId - mask;
+        }
+        sweepHistories();
+        return transactionId;
+    }
+
+    // null when the id was never issued or has already been evicted
+    public Transaction find(long transactionId) {
+        if (transactionId <= 0) {
+            return null;
+        }
+        int slot = (int) (transactionId & mask);
+        if (ids.get(slot) != transactionId) {
+            return null;
+        }
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionId)
+                .accountFrom(accountsFrom[slot])
+                .accountTo(accountsTo[slot])
+                .amount(amounts[slot])
+                .status(STATUSES[statuses[slot]])
+                .executedAt(Instant.ofEpochMilli(timestamps[slot]))
+                .build();
+        VarHandle.acquireFence();
+        return ids.get(slot) == transactionId ? transaction : null;
+    }
+
+    // Newest first, only transactions with an id below the cursor.
+    public TransactionHistoryResponse history(String accountId, Long cursor, int limit) {
+        AccountHistory history = histories.get(accountId);
+        long[] candidates = history == null ? new long[0]
+                : history.idsBefore(cursor == null ? Long.MAX_VALUE : cursor);
+        List<Transaction> page = new ArrayList<>(Math.min(limit, candidates.length));
+        int next = candidates.length - 1;
+        for (; next >= 0 && page.size() < limit; next--) {
+            Transaction transaction = find(candidates[next]);
+            if (transaction != null) {
+                page.add(transaction);
+            }
+        }
+        Long nextCursor = next >= 0 && !page.isEmpty() ? page.get(page.size() - 1).getTransactionId() : null;
+        return TransactionHistoryResponse.builder()
+                .accountId(accountId)
+                .transactions(page)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public long getLastTransactionId() {
+        return sequence.get();
+    }
+
+    // Number of accounts with an indexed history
+    public int getIndexedAccounts() {
+        return histories.size();
+    }
+
+    private void append(String accountId, long transactionId) {
+        while (true) {
+            AccountHistory history = histories.get(accountId);
+            if (history == null) {
+                history = histories.computeIfAbsent(accountId, id -> new AccountHistory(historyPerAccount));
+            }
+            if (history.append(transactionId)) {
+                return;
+            }
+            // dropped meanwhile, start a new one
+            histories.remove(accountId, history);
+        }
+    }
+
+    // Checks the next few accounts of the sweep started by the last wrap and drops those with nothing
+    // retained. A record that finds another one sweeping skips it.
+    private void sweepHistories() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long before = evictedBefore;
+            if (before != sweepBefore) {
+                sweepBefore = before;
+                sweep = histories.entrySet().iterator();
+            }
+            for (int i = 0; i < SWEEP_BATCH && sweep.hasNext(); i++) {
+                Map.Entry<String, AccountHistory> entry = sweep.next();
+                if (entry.getValue().retireIfOlderThan(before)) {
+                    histories.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class AccountHistory {
+
+        private static final int INITIAL_SIZE = 8;
+
+        private final int maxSize;
+        private final ReentrantLock appendLock = new ReentrantLock();
+        // replaced by a larger copy while it is still filling up, so it only ever wraps at maxSize
+        private volatile AtomicLongArray ring;
+        private volatile long count;
+        private volatile long latest;
+        // guarded by appendLock
+        private boolean retired;
+
+        AccountHistory(int maxSize) {
+            this.maxSize = maxSize;
+            this.ring = new AtomicLongArray(Math.min(INITIAL_SIZE, maxSize));
+        }
+
+        // false once the history was dropped
+        boolean append(long transactionId) {
+            appendLock.lock();
+            try {
+                if (retired) {
+                    return false;
+                }
+                AtomicLongArray current = ring;
+                if (count == current.length() && current.length() < maxSize) {
+                    // not wrapped yet, so every id keeps its index
+                    AtomicLongArray grown = new AtomicLongArray(Math.min(maxSize, current.length() * 2));
+                    for (int i = 0; i < current.length(); i++) {
+                        grown.set(i, current.get(i));
+                    }
+                    ring = grown;
+                    current = grown;
+                }
+                current.set((int) (count % current.length()), transactionId);
+                latest = Math.max(latest, transactionId);
+                count++;
+                return true;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        boolean retireIfOlderThan(long oldestRetained) {
+            if (latest >= oldestRetained) {
+                return false;
+            }
+            appendLock.lock();
+            try {
+                retired = latest < oldestRetained;
+                return retired;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        // Sorted ascending. Appends from concurrent transfers may land slightly out of order,
+        // so the whole retained window is scanned rather than trusting ring order. count is read
+        // before ring, so the ring read holds at least the ids counted.
+        long[] idsBefore(long cursor) {
+            long end = count;
+            AtomicLongArray current = ring;
+            long start = Math.max(0, end - current.length());
+            long[] found = new long[(int) (end - start)];
+            int size = 0;
+            for (long i = start; i < end; i++) {
+                long transactionId = current.get((int) (i % current.length()));
+                if (transactionId < cursor) {
+                    found[size++] = transactionId;
+                }
+            }
+            Arrays.sort(found, 0, size);
+            return Arrays.copyOf(found, size);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only journal of account creations and transfers on a memory-mapped file.
+// The file is a header followed by fixed-size mapped segments; each record is
+//   length(4) type(1) timestamp(8) fromLen(2) from toLen(2) to unscaled(8) scale(1) crc32(4)
+// and never straddles a segment (the tail of a segment is padded instead).
+// On startup the journal is replayed into the AccountsRepository; replay stops at the first
+// zero length or bad checksum, which is where a crash tore the last write. With snapshots enabled
+// the latest account snapshot of this journal is loaded first and only the tail after the
+// snapshot's journal position is replayed. Version 2 headers carry a random journal id for that
+// match; version 1 journals (8 byte header, id 0) are still read.
+// In cluster mode one node's half of a cross-node transfer is a LEG record: from is the account,
+// to the leg id and the amount is signed (negative for a debit). Replayed leg ids are kept so that
+// a leg resent after a restart is not applied twice.
+@Slf4j
+@Component
+public class TransferJournal implements MeterBinder {
+
+    public enum SyncMode {
+        // leave flushing to the OS page cache
+        NONE,
+        // concurrent appenders share one force(): the first waiter forces everything appended so far
+        GROUP,
+        // force() after every single record, under the append lock
+        PER_TRANSFER
+    }
+
+    static final int MAGIC = 0x4A524E4C;
+    static final short VERSION = 2;
+    static final short VERSION_1 = 1;
+    static final int FILE_HEADER_SIZE = 16;
+    static final int VERSION_1_HEADER_SIZE = 8;
+    static final byte ACCOUNT_CREATED = 1;
+    static final byte TRANSFER = 2;
+    static final byte PADDING = 3;
+    static final byte LEG = 4;
+    static final int FIXED_RECORD_SIZE = 30;
+    private static final int MIN_PADDING = 5;
+    private static final byte[] NO_ID = new byte[0];
+
+    private final AccountsRepository accountsRepository;
+    private final Path path;
+    private final boolean enabled;
+    private final SyncMode syncMode;
+    private final long segmentSize;
+    private final Path snapshotPath;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private final AtomicLong durablePosition = new AtomicLong();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long writePosition;
+    private long journalId;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+    private long recovered;
+    private long snapshotAccounts;
+    private final Set<String> replayedLegs = new HashSet<>();
+
+    public TransferJournal(AccountsRepository accountsRepository, String path, boolean enabled, SyncMode syncMode,
+                           int segmentSizeMb) {
+        this(accountsRepository, path, enabled, syncMode, segmentSizeMb, false, "");
+    }
+
+    @Autowired
+    public TransferJournal(AccountsRepository accountsRepository,
+                           @Value("${journal.path:data/transfers.journal}") String path,
+                           @Value("${journal.enabled:false}") boolean enabled,
+                           @Value("${journal.sync-mode:GROUP}") SyncMode syncMode,
+                           @Value("${journal.segment-size-mb:64}") int segmentSizeMb,
+                           @Value("${snapshot.enabled:false}") boolean snapshotsEnabled,
+                           @Value("${snapshot.path:data/accounts.snapshot}") String snapshotPath) {
+        this.accountsRepository = accountsRepository;
+        this.path = Paths.get(path);
+        this.enabled = enabled;
+        this.syncMode = syncMode;
+        this.segmentSize = segmentSizeMb * 1024L * 1024L;
+        this.snapshotPath = snapshotsEnabled ? Paths.get(snapshotPath) : null;
+    }
+
+    public static TransferJournal disabled() {
+        return new TransferJournal(null, "", false, SyncMode.NONE, 1);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long started = System.nanoTime();
+        boolean fresh = channel.size() == 0;
+        mapSegment(0);
+        if (fresh) {
+            journalId = ThreadLocalRandom.current().nextLong() | 1;
+            segment.putInt(0, MAGIC).putShort(4, VERSION).putLong(8, journalId);
+            segment.force();
+            writePosition = FILE_HEADER_SIZE;
+        } else {
+            short version = segment.getShort(4);
+            if (segment.getInt(0) != MAGIC || (version != VERSION && version != VERSION_1)) {
+                throw new IllegalStateException("Not a transfer journal (or unsupported version): " + path);
+            }
+            journalId = version == VERSION ? segment.getLong(8) : 0;
+            long start = loadSnapshot(version == VERSION ? FILE_HEADER_SIZE : VERSION_1_HEADER_SIZE);
+            writePosition = replay(start);
+        }
+        durablePosition.set(writePosition);
+        log.info("Transfer journal {} opened, {} snapshot accounts loaded and {} records replayed in {} ms", path,
+                snapshotAccounts, recovered, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+            channel.close();
+            channel = null;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Runs the insert and journals it under the append lock, so a creation is always
+    // journaled before any transfer that can see the new account.
+    public void recordAccountCreated(Account account, Runnable insert) {
+        if (!enabled) {
+            insert.run();
+            return;
+        }
+        long end;
+        appendLock.lock();
+        try {
+            insert.run();
+            end = append(ACCOUNT_CREATED, account.getAccountId(), null, account.getBalance());
+        } finally {
+            appendLock.unlock();
+        }
+        awaitDurable(end);
+    }
+
+    // Returns once the record is durable according to the sync mode.
+    public void recordTransfer(String accountFrom, String accountTo, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+        awaitDurable(append(TRANSFER, accountFrom, accountTo, amount));
+    }
+
+    // Appends all transfers and waits once, so a whole batch shares a single force in GROUP mode.
+    public void recordTransfers(List<MoneyTransferRequest> transfers) {
+        if (!enabled || transfers.isEmpty()) {
+            return;
+        }
+        long end = 0;
+        for (MoneyTransferRequest transfer : transfers) {
+            end = append(TRANSFER, transfer.getAccountFrom(), transfer.getAccountTo(), transfer.getTransferAmount());
+        }
+        awaitDurable(end);
+    }
+
+    // One side of a cross-node transfer; returns once the record is durable according to the sync mode.
+    public void recordLeg(String accountId, String legId, BigDecimal delta) {
+        if (!enabled) {
+            return;
+        }
+        awaitDurable(append(LEG, accountId, legId, delta));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getForces() {
+        return forces.sum();
+    }
+
+    public long getRecovered() {
+        return recovered;
+    }
+
+    public long getSnapshotAccounts() {
+        return snapshotAccounts;
+    }
+
+    // Ids of the legs replayed on startup (legs covered by a snapshot are not included)
+    public Set<String> getReplayedLegs() {
+        return Collections.unmodifiableSet(replayedLegs);
+    }
+
+    public long getJournalId() {
+        return journalId;
+    }
+
+    // Position right after the last appended record; every record before it is already applied
+    public long getPosition() {
+        appendLock.lock();
+        try {
+            return writePosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("journal.appended", appended, LongAdder::sum).register(registry);
+        FunctionCounter.builder("journal.forces", forces, LongAdder::sum).register(registry);
+    }
+
+    private long append(byte type, String accountFrom, String accountTo, BigDecimal amount) {
+        byte[] from = accountFrom.getBytes(StandardCharsets.UTF_8);
+        byte[] to = accountTo == null ? NO_ID : accountTo.getBytes(StandardCharsets.UTF_8);
+        long unscaled;
+        try {
+            unscaled = amount.unscaledValue().longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new BadRequestExceptionClass("Amount " + amount + " is too large to be journaled");
+        }
+        int length = FIXED_RECORD_SIZE + from.length + to.length;
+        appendLock.lock();
+        try {
+            int offset = (int) (writePosition - segmentStart);
+            if (offset + length > segmentSize) {
+                rotate(offset);
+                offset = 0;
+            }
+            segment.position(offset);
+            segment.putInt(length)
+                    .put(type)
+                    .putLong(System.currentTimeMillis())
+                    .putShort((short) from.length).put(from)
+                    .putShort((short) to.length).put(to)
+                    .putLong(unscaled)
+                    .put((byte) amount.scale());
+            segment.putInt(checksum(offset, length));
+            writePosition += length;
+            appended.increment();
+            if (syncMode == SyncMode.PER_TRANSFER) {
+                segment.force();
+                forces.increment();
+                durablePosition.accumulateAndGet(writePosition, Math::max);
+            }
+            return writePosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long position) {
+        if (syncMode != SyncMode.GROUP || durablePosition.get() >= position) {
+            return;
+        }
+        // whoever gets here first forces for everybody queued behind it
+        syncLock.lock();
+        try {
+            if (durablePosition.get() >= position) {
+                return;
+            }
+            MappedByteBuffer current;
+            long target;
+            appendLock.lock();
+            try {
+                current = segment;
+                target = writePosition;
+            } finally {
+                appendLock.unlock();
+            }
+            current.force();
+            forces.increment();
+            durablePosition.accumulateAndGet(target, Math::max);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void rotate(int offset) {
+        int remaining = (int) (segmentSize - offset);
+        if (remaining >= MIN_PADDING) {
+            segment.putInt(offset, remaining).put(offset + 4, PADDING);
+        }
+        segment.force();
+        forces.increment();
+        long next = segmentStart + segmentSize;
+        // everything before the new segment is on disk now
+        durablePosition.accumulateAndGet(next, Math::max);
+        writePosition = next;
+        try {
+            mapSegment(next);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map next journal segment of " + path, ex);
+        }
+    }
+
+    // Loads the snapshot taken from this journal, returns the journal position to replay from
+    private long loadSnapshot(long headerSize) throws IOException {
+        if (snapshotPath == null) {
+            return headerSize;
+        }
+        AccountSnapshotFile.Header header = AccountSnapshotFile.readHeader(snapshotPath);
+        if (header == null) {
+            return headerSize;
+        }
+        if (header.getJournalId() != journalId || header.getJournalPosition() > channel.size()) {
+            log.warn("Snapshot {} was not taken from journal {}, replaying the whole journal", snapshotPath, path);
+            return headerSize;
+        }
+        AccountSnapshotFile.load(snapshotPath, accountsRepository, Runtime.getRuntime().availableProcessors());
+        snapshotAccounts = header.getAccountCount();
+        return header.getJournalPosition();
+    }
+
+    private long replay(long start) throws IOException {
+        long fileSize = channel.size();
+        long position = start;
+        while (position < fileSize) {
+            long base = position - position % segmentSize;
+            if (base != segmentStart) {
+                mapSegment(base);
+            }
+            int offset = (int) (position - base);
+            int remaining = (int) (segmentSize - offset);
+            if (remaining < MIN_PADDING || segment.get(offset + 4) == PADDING) {
+                position = base + segmentSize;
+                continue;
+            }
+            int length = segment.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < FIXED_RECORD_SIZE || length > remaining
+                    || segment.getInt(offset + length - 4) != checksum(offset, length)) {
+                log.warn("Torn journal record at position {}, discarding the tail", position);
+                for (int i = offset; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                break;
+            }
+            apply(offset);
+            recovered++;
+            position += length;
+        }
+        long base = position - position % segmentSize;
+        if (base != segmentStart) {
+            mapSegment(base);
+        }
+        return position;
+    }
+
+    private void apply(int offset) {
+        byte type = segment.get(offset + 4);
+        int cursor = offset + 13;
+        int fromLength = segment.getShort(cursor);
+        String from = readId(cursor + 2, fromLength);
+        cursor += 2 + fromLength;
+        int toLength = segment.getShort(cursor);
+        String to = readId(cursor + 2, toLength);
+        cursor += 2 + toLength;
+        BigDecimal amount = BigDecimal.valueOf(segment.getLong(cursor), segment.get(cursor + 8));
+        if (type == ACCOUNT_CREATED) {
+            try {
+                accountsRepository.createAccount(new Account(from, amount));
+            } catch (DuplicateAccountIdException ex) {
+                // expected after a snapshot: accounts created while it was written can be in both
+                if (snapshotAccounts == 0) {
+                    log.warn("Journal creates account {} twice, keeping the first", from);
+                }
+            }
+        } else if (type == TRANSFER) {
+            adjust(from, amount.negate());
+            adjust(to, amount);
+        } else if (type == LEG) {
+            adjust(from, amount);
+            replayedLegs.add(to);
+        }
+    }
+
+    private void adjust(String accountId, BigDecimal delta) {
+        Account account = accountsRepository.getAccount(accountId);
+        if (account == null) {
+            log.warn("Journal references unknown account {}", accountId);
+            return;
+        }
+        account.setBalance(account.getBalance().add(delta));
+        accountsRepository.updateAccountDetails(account);
+    }
+
+    private String readId(int offset, int length) {
+        byte[] bytes = new byte[length];
+        segment.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checksum(int offset, int length) {
+        ByteBuffer body = segment.duplicate();
+        body.limit(offset + length - 4).position(offset + 4);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private void mapSegment(long base) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, base, segmentSize);
+        segmentStart = base;
+    }
+}
@@ -0,0 +1,285 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportError;
+import com.dws.challenge.domain.AccountImportResponse;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bulk account import from a streamed body, one account per line: NDJSON ({"accountId":..,"balance":..})
+// or CSV (accountId,balance with an optional header line). The request thread reads and parses line
+// by line with the Jackson streaming parser (no data binding, no list of the whole upload) into
+// chunks, and a fixed pool inserts the chunks in parallel. Each import keeps at most maxChunksInFlight
+// chunks parsed ahead of the inserts, so memory does not depend on the size of the upload.
+// Duplicates and invalid lines are counted and reported per line (up to maxReportedErrors of them);
+// they never abort the import.
+@Slf4j
+@Component
+public class AccountImporter {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final String DUPLICATE = "Account id already exists";
+
+    private final AccountsService accountsService;
+    private final ClusterRing clusterRing;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final int maxReportedErrors;
+    private final ExecutorService inserters;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Standalone wiring (tests, benchmarks)
+    public AccountImporter(AccountsService accountsService, int parallelism) {
+        this(accountsService, ClusterRing.disabled(), parallelism, 1000, 1000, false);
+    }
+
+    @Autowired
+    public AccountImporter(AccountsService accountsService, ClusterRing clusterRing,
+                           @Value("${import.parallelism:0}") int parallelism,
+                           @Value("${import.chunk-size:1000}") int chunkSize,
+                           @Value("${import.max-reported-errors:1000}") int maxReportedErrors,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.accountsService = accountsService;
+        this.clusterRing = clusterRing;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxChunksInFlight = threads * 2;
+        this.maxReportedErrors = maxReportedErrors;
+        this.inserters = Executors.newFixedThreadPool(threads, ThreadFactories.named("account-import-", virtualThreads));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        inserters.shutdown();
+        inserters.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    public AccountImportResponse importAccounts(InputStream body, Format format) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        Semaphore inFlight = new Semaphore(maxChunksInFlight);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16);
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String text;
+        try {
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(text))) {
+                    continue;
+                }
+                Account account;
+                try {
+                    account = format == Format.NDJSON ? parseJson(text) : parseCsv(text);
+                } catch (IllegalArgumentException ex) {
+                    progress.invalid(lineNumber, null, ex.getMessage());
+                    continue;
+                }
+                try {
+                    validate(account);
+                } catch (IllegalArgumentException ex) {
+                    progress.invalid(lineNumber, account.getAccountId(), ex.getMessage());
+                    continue;
+                }
+                chunk.add(new Line(lineNumber, account));
+                if (chunk.size() == chunkSize) {
+                    submit(chunk, inFlight, progress);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, inFlight, progress);
+            }
+        } finally {
+            // every chunk handed to the pool has released its permit once all permits are back
+            inFlight.acquire(maxChunksInFlight);
+        }
+        AccountImportResponse response = progress.toResponse(maxReportedErrors);
+        log.info("Imported {} accounts from {} lines in {} ms, {} duplicates, {} invalid", response.getImported(), lineNumber,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), response.getDuplicates(), response.getInvalid());
+        return response;
+    }
+
+    private void submit(List<Line> chunk, Semaphore inFlight, Progress progress) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            inserters.execute(() -> {
+                try {
+                    insert(chunk, progress);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            throw ex;
+        }
+    }
+
+    private void insert(List<Line> chunk, Progress progress) {
+        for (Line line : chunk) {
+            Account account = line.account;
+            try {
+                if (!clusterRing.isLocal(account.getAccountId())) {
+                    progress.invalid(line.number, account.getAccountId(),
+                            "Account is held by cluster node " + clusterRing.ownerOf(account.getAccountId()));
+                    continue;
+                }
+                accountsService.createAccount(account);
+                progress.imported.increment();
+            } catch (DuplicateAccountIdException ex) {
+                progress.duplicates.increment();
+                progress.report(line.number, account.getAccountId(), DUPLICATE);
+            } catch (RuntimeException ex) {
+                progress.invalid(line.number, account.getAccountId(), ex.getMessage());
+            }
+        }
+    }
+
+    // One flat object per line; unknown fields are skipped
+    private Account parseJson(String text) {
+        String accountId = null;
+        BigDecimal balance = null;
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Line is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("accountId".equals(field)) {
+                    accountId = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                } else if ("balance".equals(field)) {
+                    balance = value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT
+                            ? parser.getDecimalValue() : decimal(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new IllegalArgumentException("Line is not a single JSON object");
+            }
+        } catch (StreamReadException ex) {
+            throw new IllegalArgumentException("Malformed JSON: " + ex.getOriginalMessage());
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unreadable line: " + ex.getMessage());
+        }
+        return new Account(accountId, balance);
+    }
+
+    private static Account parseCsv(String text) {
+        int comma = text.indexOf(',');
+        if (comma < 0 || text.indexOf(',', comma + 1) >= 0) {
+            throw new IllegalArgumentException("Expected accountId,balance");
+        }
+        return new Account(unquote(text.substring(0, comma)), decimal(unquote(text.substring(comma + 1))));
+    }
+
+    // the same rules as @Valid on Account
+    private static void validate(Account account) {
+        if (account.getAccountId() == null || account.getAccountId().isEmpty()) {
+            throw new IllegalArgumentException("Account id should not be empty");
+        }
+        if (account.getBalance() == null) {
+            throw new IllegalArgumentException("Balance should not be null");
+        }
+        if (account.getBalance().signum() < 0) {
+            throw new IllegalArgumentException("Initial balance must be positive.");
+        }
+    }
+
+    private static boolean isCsvHeader(String text) {
+        return text.trim().toLowerCase().startsWith("accountid");
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        return trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")
+                ? trimmed.substring(1, trimmed.length() - 1) : trimmed;
+    }
+
+    private static BigDecimal decimal(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Balance " + value + " is not a number");
+        }
+    }
+
+    private static final class Line {
+
+        final long number;
+        final Account account;
+
+        Line(long number, Account account) {
+            this.number = number;
+            this.account = account;
+        }
+    }
+
+    // Counters shared by the parser and the inserters of one import
+    private final class Progress {
+
+        final LongAdder imported = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder invalid = new LongAdder();
+        final AtomicInteger reported = new AtomicInteger();
+        final ConcurrentLinkedQueue<AccountImportError> errors = new ConcurrentLinkedQueue<>();
+
+        void invalid(long line, String accountId, String message) {
+            invalid.increment();
+            report(line, accountId, message);
+        }
+
+        void report(long line, String accountId, String message) {
+            // bounded: beyond maxReportedErrors only the counters move
+            if (reported.getAndIncrement() < maxReportedErrors) {
+                errors.add(AccountImportError.builder().line(line).accountId(accountId).message(message).build());
+            }
+        }
+
+        AccountImportResponse toResponse(int limit) {
+            List<AccountImportError> sorted = new ArrayList<>(errors);
+            sorted.sort(Comparator.comparingLong(AccountImportError::getLine));
+            return AccountImportResponse.builder()
+                    .imported(imported.sum())
+                    .duplicates(duplicates.sum())
+                    .invalid(invalid.sum())
+                    .errors(sorted)
+                    .errorsTruncated(reported.get() > limit)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.AccountLockTimeoutException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+
+// Acquires account locks in one global order (by account id), so two transfers
+// touching the same accounts in opposite directions can never wait on each other.
+// With account.lock.stripes > 0 accounts share a fixed, power-of-two pool of StampedLocks picked by
+// account id hash instead of one lock each: the order is then the stripe index, and two accounts on
+// the same stripe take it once. Stripe locks are not reentrant, so never call lockAll while holding them.
+@Slf4j
+@Component
+public class AccountLockManager implements MeterBinder {
+
+    private static final Comparator<Account> LOCK_ORDER = Comparator.comparing(Account::getAccountId);
+
+    // 0 means wait forever; ordering alone already rules out deadlocks
+    private final long lockTimeoutMillis;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    // null when every account uses its own lock
+    private final StampedLock[] stripes;
+    private final int stripeMask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public AccountLockManager() {
+        this(0, 1, 0);
+    }
+
+    public AccountLockManager(long lockTimeoutMillis, int maxAttempts, long backoffMillis) {
+        this(lockTimeoutMillis, maxAttempts, backoffMillis, 0);
+    }
+
+    @Autowired
+    public AccountLockManager(@Value("${account.lock.timeout-ms:0}") long lockTimeoutMillis,
+                              @Value("${account.lock.max-attempts:3}") int maxAttempts,
+                              @Value("${account.lock.backoff-ms:5}") long backoffMillis,
+                              @Value("${account.lock.stripes:0}") int stripeCount) {
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+        if (stripeCount > 0) {
+            int count = Integer.highestOneBit(stripeCount);
+            if (count != stripeCount) {
+                log.warn("account.lock.stripes={} is not a power of two, using {}", stripeCount, count);
+            }
+            this.stripes = new StampedLock[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new StampedLock();
+            }
+            this.stripeMask = count - 1;
+        } else {
+            this.stripes = null;
+            this.stripeMask = 0;
+        }
+    }
+
+    public boolean isStriped() {
+        return stripes != null;
+    }
+
+    public int getStripeCount() {
+        return stripes == null ? 0 : stripes.length;
+    }
+
+    public List<Lock> lockAll(Account... accounts) throws InterruptedException {
+        return lockAll(Arrays.asList(accounts));
+    }
+
+    // Returns the acquired locks in acquisition order; hand them back to unlockAll.
+    public List<Lock> lockAll(Collection<Account> accounts) throws InterruptedException {
+        List<Lock> locks = orderedLocks(accounts);
+        for (int attempt = 1; ; attempt++) {
+            if (tryAcquireAll(locks)) {
+                return locks;
+            }
+            if (attempt >= maxAttempts) {
+                timeouts.increment();
+                log.warn("Giving up on {} account locks after {} attempts", locks.size(), attempt);
+                throw new AccountLockTimeoutException("Accounts are busy, please retry the transfer");
+            }
+            retries.increment();
+            backoff(attempt);
+        }
+    }
+
+    public void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContentions() {
+        return contentions.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    // Exposes the counters above; wait and hold times are timed by TransferMetrics
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("account.lock.acquisitions", acquisitions, LongAdder::sum).register(registry);
+        FunctionCounter.builder("account.lock.contentions", contentions, LongAdder::sum).register(registry);
+        FunctionCounter.builder("account.lock.retries", retries, LongAdder::sum).register(registry);
+        FunctionCounter.builder("account.lock.timeouts", timeouts, LongAdder::sum).register(registry);
+    }
+
+    private List<Lock> orderedLocks(Collection<Account> accounts) {
+        if (stripes != null) {
+            return orderedStripes(accounts);
+        }
+        List<Account> ordered = new ArrayList<>(accounts);
+        ordered.sort(LOCK_ORDER);
+        List<Lock> locks = new ArrayList<>(ordered.size());
+        String previousId = null;
+        for (Account account : ordered) {
+            if (!account.getAccountId().equals(previousId)) {
+                locks.add(account.getLock());
+                previousId = account.getAccountId();
+            }
+        }
+        return locks;
+    }
+
+    private List<Lock> orderedStripes(Collection<Account> accounts) {
+        int[] indexes = new int[accounts.size()];
+        int count = 0;
+        for (Account account : accounts) {
+            indexes[count++] = stripeIndex(account.getAccountId());
+        }
+        Arrays.sort(indexes);
+        List<Lock> locks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                locks.add(stripes[indexes[i]].asWriteLock());
+            }
+        }
+        return locks;
+    }
+
+    // String.hashCode is cached per String; spread it so the low bits vary for similar ids
+    private int stripeIndex(String accountId) {
+        int hash = accountId.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private boolean tryAcquireAll(List<Lock> locks) throws InterruptedException {
+        for (int i = 0; i < locks.size(); i++) {
+            if (!acquire(locks.get(i))) {
+                unlockAll(locks.subList(0, i));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean acquire(Lock lock) throws InterruptedException {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return true;
+        }
+        contentions.increment();
+        if (lockTimeoutMillis <= 0) {
+            lock.lock();
+            return true;
+        }
+        return lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // exponential backoff with full jitter, so retrying transfers do not collide again in lock step
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis, ceiling + 1));
+    }
+}
@@ -0,0 +1,211 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountSnapshotFile;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransferJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Periodic snapshots of the in-memory account store, written while transfers keep running.
+// Every balance change runs between enter() and exit(), journal append included. A snapshot
+// starts with a short epoch switch: new transfers wait at enter() while the ones in flight
+// drain, then the journal position is taken and copy-on-write is switched on. From there on
+// writers save an account's balance before they first change it (beforeWrite), and the snapshot
+// thread claims each account it copies the same way, so it sees every account as of the switch.
+// The journal records after that position are the transfers the snapshot does not contain.
+// Needs the journal (it is what makes a snapshot restartable) and the in-memory account store, the
+// one it can iterate; otherwise snapshots stay off.
+@Slf4j
+@Component
+public class AccountSnapshotter implements MeterBinder {
+
+    // null unless the store is the in-memory one, the only one snapshots can iterate
+    private final AccountsRepositoryInMemory accountsRepository;
+    private final TransferJournal transferJournal;
+    private final Path path;
+    private final long intervalSeconds;
+    private final boolean active;
+
+    private final ReentrantLock switchLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final LongAdder inFlight = new LongAdder();
+    private volatile boolean switching;
+    private volatile boolean capturing;
+    private volatile Map<String, BigDecimal> preImages = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    private final LongAdder written = new LongAdder();
+    private final AtomicLong lastAccounts = new AtomicLong();
+    private final AtomicLong lastDurationMillis = new AtomicLong();
+
+    public static AccountSnapshotter disabled() {
+        return new AccountSnapshotter(null, TransferJournal.disabled(), false, "", 0);
+    }
+
+    @Autowired
+    public AccountSnapshotter(AccountsRepository accountsRepository, TransferJournal transferJournal,
+                              @Value("${snapshot.enabled:false}") boolean enabled,
+                              @Value("${snapshot.path:data/accounts.snapshot}") String path,
+                              @Value("${snapshot.interval-seconds:300}") long intervalSeconds) {
+        this.accountsRepository = accountsRepository instanceof AccountsRepositoryInMemory
+                ? (AccountsRepositoryInMemory) accountsRepository : null;
+        this.transferJournal = transferJournal;
+        this.path = Paths.get(path);
+        this.intervalSeconds = intervalSeconds;
+        if (enabled && (!transferJournal.isEnabled() || this.accountsRepository == null)) {
+            log.warn("Account snapshots need journal.enabled=true and the in-memory account store, snapshots are off");
+            enabled = false;
+        }
+        this.active = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!active || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("account-snapshot-", false));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException ex) {
+                log.error("Account snapshot to {} failed", path, ex);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // Call before the first balance change of a transfer; never nest, always pair with exit()
+    public void enter() {
+        if (!active) {
+            return;
+        }
+        while (true) {
+            inFlight.increment();
+            if (!switching) {
+                return;
+            }
+            // an epoch switch is draining the transfers in flight, wait for it to finish
+            inFlight.decrement();
+            switchLock.lock();
+            switchLock.unlock();
+        }
+    }
+
+    // Call once the transfer is applied and journaled (or refused)
+    public void exit() {
+        if (active) {
+            inFlight.decrement();
+        }
+    }
+
+    // Call between enter() and exit(), right before changing the account's balance
+    public void beforeWrite(Account account) {
+        if (capturing) {
+            preImages.putIfAbsent(account.getAccountId(), account.getBalance());
+        }
+    }
+
+    // Writes a snapshot of all accounts and returns the number written
+    public long snapshot() throws IOException {
+        if (!active) {
+            throw new IllegalStateException("Account snapshots are disabled");
+        }
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            long journalPosition = switchEpoch();
+            AccountSnapshotFile.Header header;
+            try (AccountSnapshotFile.Writer writer = AccountSnapshotFile.create(path, transferJournal.getJournalId(), journalPosition)) {
+                Map<String, BigDecimal> saved = preImages;
+                accountsRepository.forEachAccount(account -> {
+                    // read before claiming: a writer that got here first has saved the older balance
+                    BigDecimal balance = account.getBalance();
+                    BigDecimal claimed = saved.putIfAbsent(account.getAccountId(), balance);
+                    try {
+                        writer.add(account.getAccountId(), claimed != null ? claimed : balance);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    // later writers only add entries for accounts already copied
+                    saved.remove(account.getAccountId());
+                });
+                header = writer.finish();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } finally {
+                capturing = false;
+                preImages = new ConcurrentHashMap<>();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            written.increment();
+            lastAccounts.set(header.getAccountCount());
+            lastDurationMillis.set(millis);
+            log.info("Snapshot of {} accounts at journal position {} written to {} in {} ms",
+                    header.getAccountCount(), journalPosition, path, millis);
+            return header.getAccountCount();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("snapshot.written", written, LongAdder::sum).register(registry);
+        Gauge.builder("snapshot.accounts", lastAccounts, AtomicLong::get).register(registry);
+        Gauge.builder("snapshot.duration.ms", lastDurationMillis, AtomicLong::get).register(registry);
+    }
+
+    // Blocks new transfers only until the ones in flight are done, then turns on copy-on-write
+    private long switchEpoch() {
+        switchLock.lock();
+        try {
+            switching = true;
+            while (inFlight.sum() != 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+            preImages = new ConcurrentHashMap<>();
+            capturing = true;
+            return transferJournal.getPosition();
+        } finally {
+            switching = false;
+            switchLock.unlock();
+        }
+    }
+}
@@ -1,20 +1,44 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferItemResult;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.HotAccount;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferResponse;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.domain.TransactionHistoryResponse;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.domain.TransferLeg;
 import com.dws.challenge.exception.AccountIdNotFoundException;
 import com.dws.challenge.exception.BadRequestExceptionClass;
 import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.exception.TransactionIdNotFoundException;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.BalanceStore;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @Service
@@ -23,100 +47,837 @@ public class AccountsService {
     @Getter
     private final AccountsRepository accountsRepository;
 
+    // the account store when it keeps the balances itself, null otherwise
+    private final BalanceStore balanceStore;
+
     @Getter
     private final NotificationService notificationService;
 
-    private final String SUCCESS_MSG = "Money Transfer Successfully!!!";
-    private final String FAILED_MSG = "Money Transfer failed";
+    @Getter
+    private final AccountLockManager accountLockManager;
 
+    @Getter
+    private final TransferJournal transferJournal;
 
-    @Autowired
+    @Getter
+    private final TransactionLedger transactionLedger;
+
+    @Getter
+    private final IdempotencyCache idempotencyCache;
+
+    private final TransferMetrics transferMetrics;
+
+    @Getter
+    private final ShardedTransferEngine shardedTransferEngine;
+
+    @Getter
+    private final AccountSnapshotter accountSnapshotter;
+
+    static final String SUCCESS_MSG = "Money Transfer Successfully!!!";
+    static final String FAILED_MSG = "Money Transfer failed";
+    private static final int MAX_HISTORY_PAGE = 100;
+
+    private final int maxBatchItems;
+
+    // Standalone wiring (tests, benchmarks): blocking ordered locks, no journal
     public AccountsService(AccountsRepository accountsRepository, NotificationService notificationService) {
+        this(accountsRepository, notificationService, new AccountLockManager(), TransferJournal.disabled(),
+                new TransactionLedger(65536, 256), new IdempotencyCache(), TransferMetrics.disabled(),
+                ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100_000);
+    }
+
+    @Autowired
+    public AccountsService(AccountsRepository accountsRepository, NotificationService notificationService,
+                           AccountLockManager accountLockManager, TransferJournal transferJournal,
+                           TransactionLedger transactionLedger, IdempotencyCache idempotencyCache,
+                           TransferMetrics transferMetrics, ShardedTransferEngine shardedTransferEngine,
+                           AccountSnapshotter accountSnapshotter,
+                           @Value("${transfer.batch.max-items:100000}") int maxBatchItems) {
         this.accountsRepository = accountsRepository;
+        this.balanceStore = accountsRepository instanceof BalanceStore ? (BalanceStore) accountsRepository : null;
         this.notificationService = notificationService;
+        this.accountLockManager = accountLockManager;
+        this.transferJournal = transferJournal;
+        this.transactionLedger = transactionLedger;
+        this.idempotencyCache = idempotencyCache;
+        this.transferMetrics = transferMetrics;
+        this.shardedTransferEngine = shardedTransferEngine;
+        this.accountSnapshotter = accountSnapshotter;
+        this.maxBatchItems = maxBatchItems;
     }
 
     public void createAccount(Account account) {
-        this.accountsRepository.createAccount(account);
+        this.transferJournal.recordAccountCreated(account, () -> this.accountsRepository.createAccount(account));
     }
 
     public Account getAccount(String accountId) {
         return this.accountsRepository.getAccount(accountId);
     }
 
+    // For API reads: a detached copy, so serialization never races a transfer; takes no lock
+    public Account readAccount(String accountId) {
+        Account account = getAccount(accountId);
+        return account == null ? null : account.snapshot();
+    }
+
+    public Transaction getTransaction(long transactionId) {
+        Transaction transaction = transactionLedger.find(transactionId);
+        if (transaction == null) {
+            throw new TransactionIdNotFoundException("Transaction id " + transactionId + " not found!");
+        }
+        return transaction;
+    }
+
+    public TransactionHistoryResponse getTransactionHistory(String accountId, Long cursor, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE) {
+            throw new BadRequestExceptionClass("Limit should be between 1 and " + MAX_HISTORY_PAGE + "!");
+        }
+        if (getAccount(accountId) == null) {
+            throw new AccountIdNotFoundException("Invalid account :: " + accountId);
+        }
+        return transactionLedger.history(accountId, cursor, limit);
+    }
+
     // Here we are doing to check Validation and call transaction method
     public MoneyTransferResponse fundTransfer(MoneyTransferRequest moneyTransferRequest) throws ExecutionException, InterruptedException {
-        log.info("Start basic validation before calling trasfer metghod");
-        if (moneyTransferRequest.getAccountFrom() == null || moneyTransferRequest.getAccountFrom() == "") {
-            throw new BadRequestExceptionClass("Account from should not be empty/null!");
+        if (shardedTransferEngine.isEnabled()) {
+            try {
+                return fundTransferAsync(moneyTransferRequest).get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
         }
-        if (moneyTransferRequest.getAccountTo() == null || moneyTransferRequest.getAccountTo() == "") {
-            throw new BadRequestExceptionClass("Account to should not be null.empty!");
+        long start = transferMetrics.start();
+        try {
+            log.debug("Start basic validation before calling trasfer metghod");
+            validateTransferRequest(moneyTransferRequest);
+            log.debug("End basic validation before calling trasfer metghod");
+            long phaseStart = transferMetrics.record(TransferMetrics.Phase.VALIDATE, start);
+
+            log.debug("Start calling Money transfer method after validation");
+            MoneyTransferResponse moneyTransferResponse;
+            if (managesBalances()) {
+                validateStoredAccounts(moneyTransferRequest);
+                transferMetrics.record(TransferMetrics.Phase.LOOKUP, phaseStart);
+                moneyTransferResponse = transferStored(moneyTransferRequest);
+            } else {
+                Account fromAccountDetails = getAccount(moneyTransferRequest.getAccountFrom());
+                Account toAccountDetails = getAccount(moneyTransferRequest.getAccountTo());
+                transferMetrics.record(TransferMetrics.Phase.LOOKUP, phaseStart);
+                moneyTransferResponse = transfer(fromAccountDetails, toAccountDetails, moneyTransferRequest);
+            }
+            transferMetrics.transferCompleted(SUCCESS_MSG.equals(moneyTransferResponse.getMessage())
+                    ? TransferMetrics.Outcome.SUCCESS : TransferMetrics.Outcome.INSUFFICIENT_FUNDS, start);
+            return moneyTransferResponse;
+        } catch (RuntimeException ex) {
+            transferMetrics.transferCompleted(ex instanceof InsufficientAmountInAccountException
+                    ? TransferMetrics.Outcome.INSUFFICIENT_FUNDS : TransferMetrics.Outcome.ERROR, start);
+            throw ex;
         }
-        if (moneyTransferRequest.getTransferAmount() != null && moneyTransferRequest.getTransferAmount().compareTo(BigDecimal.ZERO) == 0) {
-            throw new BadRequestExceptionClass("Transfer amount should be greater than zero!");
-        } else if (moneyTransferRequest.getTransferAmount().compareTo(BigDecimal.ZERO) == 1) {
-            log.info("Balance id greater than transfer amount");
-        } else {
-            throw new BadRequestExceptionClass("Transfer amount should be greater than balance!");
+    }
+
+    // With transfer.engine=sharded the transfer is applied by the shard writers and the future completes
+    // once both sides are applied; with the lock based engine it runs on the caller and is already done.
+    public CompletableFuture<MoneyTransferResponse> fundTransferAsync(MoneyTransferRequest moneyTransferRequest) {
+        if (!shardedTransferEngine.isEnabled()) {
+            try {
+                return CompletableFuture.completedFuture(fundTransfer(moneyTransferRequest));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(ex);
+            } catch (RuntimeException | ExecutionException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
         }
-        if (moneyTransferRequest.getAccountFrom().trim().equals(moneyTransferRequest.getAccountTo().trim())) {
-            throw new BadRequestExceptionClass("Please check, To and From Account are the same!");
+        long start = transferMetrics.start();
+        try {
+            validateTransferRequest(moneyTransferRequest);
+            Account fromAccountDetails = getAccount(moneyTransferRequest.getAccountFrom());
+            Account toAccountDetails = getAccount(moneyTransferRequest.getAccountTo());
+            // the shard re-checks the balance when it applies the debit
+            validateAccountDetails(moneyTransferRequest, fromAccountDetails, toAccountDetails);
+            long applyStart = transferMetrics.record(TransferMetrics.Phase.VALIDATE, start);
+            CompletableFuture<Boolean> transferred;
+            accountSnapshotter.enter();
+            try {
+                transferred = shardedTransferEngine.submit(fromAccountDetails.getAccountId(), toAccountDetails.getAccountId(),
+                        moneyTransferRequest.getTransferAmount());
+            } catch (RuntimeException ex) {
+                accountSnapshotter.exit();
+                throw ex;
+            }
+            return transferred
+                    .thenApply(applied -> {
+                        transferMetrics.record(TransferMetrics.Phase.APPLY, applyStart);
+                        MoneyTransferResponse response = completeTransfer(fromAccountDetails, toAccountDetails, moneyTransferRequest, applied);
+                        transferMetrics.transferCompleted(applied
+                                ? TransferMetrics.Outcome.SUCCESS : TransferMetrics.Outcome.INSUFFICIENT_FUNDS, start);
+                        return response;
+                    })
+                    .whenComplete((response, failure) -> accountSnapshotter.exit());
+        } catch (RuntimeException ex) {
+            transferMetrics.transferCompleted(ex instanceof InsufficientAmountInAccountException
+                    ? TransferMetrics.Outcome.INSUFFICIENT_FUNDS : TransferMetrics.Outcome.ERROR, start);
+            return CompletableFuture.failedFuture(ex);
         }
-        log.info("End basic validanotificationToAccountHoldertion before calling trasfer metghod");
+    }
 
+    // Retries carrying the same Idempotency-Key get the first result back instead of a second transfer
+    public MoneyTransferResponse fundTransfer(MoneyTransferRequest moneyTransferRequest, String idempotencyKey) throws ExecutionException, InterruptedException {
+        if (idempotencyKey == null) {
+            return fundTransfer(moneyTransferRequest);
+        }
+        return idempotencyCache.execute(idempotencyKey, moneyTransferRequest, () -> fundTransfer(moneyTransferRequest));
+    }
 
-        log.info("Start calling Money transfer method after validation");
-        Account fromAccountDetails = getAccount(moneyTransferRequest.getAccountFrom());
-        Account toAccountDetails = getAccount(moneyTransferRequest.getAccountTo());
-        MoneyTransferResponse moneyTransferResponse =
-                transfer(fromAccountDetails, toAccountDetails, moneyTransferRequest);
-        return moneyTransferResponse;
+    // One item of a streamed batch; the future never fails, errors are reported in the item result
+    public CompletableFuture<BatchTransferItemResult> fundTransferItemAsync(int index, MoneyTransferRequest moneyTransferRequest) {
+        return fundTransferAsync(moneyTransferRequest).handle((response, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                return failedItem(index, cause.getMessage());
+            }
+            boolean transferred = SUCCESS_MSG.equals(response.getMessage());
+            return BatchTransferItemResult.builder()
+                    .index(index)
+                    .status(transferred ? TransactionStatus.SUCCESS : TransactionStatus.FAILED)
+                    .message(response.getMessage())
+                    .transactionId(response.getTransactionId())
+                    .build();
+        });
+    }
+
+    public int getMaxBatchItems() {
+        return maxBatchItems;
     }
 
     public MoneyTransferResponse transfer(Account fromAccountDetails, Account toAccountDetails, MoneyTransferRequest moneyTransferRequest) throws InsufficientAmountInAccountException, ExecutionException, InterruptedException {
         validateAccountDetails(moneyTransferRequest, fromAccountDetails, toAccountDetails);
-        Lock fromAccountLock = fromAccountDetails.getLock();
-        Lock toAccountLock = toAccountDetails.getLock();
+        // a snapshot switch waits until the transfer is applied and journaled
+        accountSnapshotter.enter();
         try {
-            fromAccountLock.lock();
-            toAccountLock.lock();
-            // Perform the transfer
-            if (fromAccountDetails.transfer(toAccountDetails, moneyTransferRequest.getTransferAmount())) {
-                accountsRepository.updateAccountDetails(toAccountDetails);
-                accountsRepository.updateAccountDetails(fromAccountDetails);
-                notificationToAccountHolder(true, moneyTransferRequest, fromAccountDetails, toAccountDetails);
-                log.info("Transfer successful: $" + moneyTransferRequest.getTransferAmount() + " transferred from Account " + fromAccountDetails.getAccountId() + " to Account " + toAccountDetails.getAccountId());
-                return MoneyTransferResponse.builder().message(SUCCESS_MSG).build();
+            boolean transferred = applyTransfer(fromAccountDetails, toAccountDetails, moneyTransferRequest.getTransferAmount());
+            return completeTransfer(fromAccountDetails, toAccountDetails, moneyTransferRequest, transferred);
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    // Stores that keep the balances themselves are checked and moved by account id; Accounts are only
+    // built once the money moved, for the notifications
+    private MoneyTransferResponse transferStored(MoneyTransferRequest moneyTransferRequest) {
+        accountSnapshotter.enter();
+        try {
+            long applyStart = transferMetrics.start();
+            boolean transferred = balanceStore.transfer(moneyTransferRequest.getAccountFrom(),
+                    moneyTransferRequest.getAccountTo(), moneyTransferRequest.getTransferAmount());
+            transferMetrics.record(TransferMetrics.Phase.APPLY, applyStart);
+            return completeTransfer(getAccount(moneyTransferRequest.getAccountFrom()),
+                    getAccount(moneyTransferRequest.getAccountTo()), moneyTransferRequest, transferred);
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    // Everything after the balances moved (or the debit was refused): journal, ledger, audit, notifications
+    private MoneyTransferResponse completeTransfer(Account fromAccountDetails, Account toAccountDetails,
+                                                   MoneyTransferRequest moneyTransferRequest, boolean transferred) {
+        long phaseStart = transferMetrics.start();
+        if (transferred) {
+            // durable (per journal.sync-mode) before the client sees the success
+            transferJournal.recordTransfer(fromAccountDetails.getAccountId(), toAccountDetails.getAccountId(),
+                    moneyTransferRequest.getTransferAmount());
+            phaseStart = transferMetrics.record(TransferMetrics.Phase.JOURNAL, phaseStart);
+        }
+
+        long transactionId = transactionLedger.record(fromAccountDetails.getAccountId(), toAccountDetails.getAccountId(),
+                moneyTransferRequest.getTransferAmount(), transferred ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+        phaseStart = transferMetrics.record(TransferMetrics.Phase.LEDGER, phaseStart);
+
+        // Notify only after the locks are released, so the sink never adds to lock hold time
+        notificationToAccountHolder(transferred, moneyTransferRequest, fromAccountDetails, toAccountDetails);
+        transferMetrics.record(TransferMetrics.Phase.NOTIFY, phaseStart);
+        TransferAuditLog.transfer(transactionId, fromAccountDetails.getAccountId(), toAccountDetails.getAccountId(),
+                moneyTransferRequest.getTransferAmount(), transferred ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+        if (transferred) {
+            return MoneyTransferResponse.builder().message(SUCCESS_MSG).transactionId(transactionId).build();
+        }
+        return MoneyTransferResponse.builder().message(FAILED_MSG).transactionId(transactionId).build();
+    }
+
+    // One node's half of a cross-node transfer (cluster mode): a debit (negative delta) or a credit of
+    // a single local account, journaled as a leg. Returns false when the debit is not covered.
+    // applied runs once the leg is journaled and before a snapshot can contain it, so whatever it logs
+    // is never missing for a leg the journal no longer replays by id.
+    public boolean applyLeg(String legId, Account account, BigDecimal delta, Runnable applied) throws InterruptedException {
+        accountSnapshotter.enter();
+        try {
+            List<Lock> accountLocks = accountLockManager.lockAll(account);
+            try {
+                accountSnapshotter.beforeWrite(account);
+                if (delta.signum() < 0) {
+                    if (!account.withdraw(delta.negate())) {
+                        return false;
+                    }
+                } else {
+                    account.deposit(delta);
+                }
+                accountsRepository.updateAccountDetails(account);
+            } finally {
+                accountLockManager.unlockAll(accountLocks);
+            }
+            transferJournal.recordLeg(account.getAccountId(), legId, delta);
+            applied.run();
+            return true;
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    // True when the account store keeps the balances itself, outside Account and its lock
+    public boolean managesBalances() {
+        return balanceStore != null;
+    }
+
+    // Holds (reservations) need the account locks: the sharded engine and the stores that keep
+    // balances themselves do not go through them
+    public boolean supportsHolds() {
+        return !shardedTransferEngine.isEnabled() && !managesBalances();
+    }
+
+    // Reserves amount on the account; false when its available balance does not cover it
+    public boolean placeHold(Account account, BigDecimal amount) throws InterruptedException {
+        List<Lock> accountLocks = accountLockManager.lockAll(account);
+        try {
+            return account.hold(amount);
+        } finally {
+            accountLockManager.unlockAll(accountLocks);
+        }
+    }
+
+    // Gives held back to the account if close, run under the account lock, still finds the hold open
+    public boolean releaseHold(Account account, BigDecimal held, BooleanSupplier close) throws InterruptedException {
+        List<Lock> accountLocks = accountLockManager.lockAll(account);
+        try {
+            if (!close.getAsBoolean()) {
+                return false;
+            }
+            account.release(held);
+            return true;
+        } finally {
+            accountLockManager.unlockAll(accountLocks);
+        }
+    }
+
+    // Moves captured (at most held) from a hold on fromAccount to toAccount and makes the rest of the hold
+    // available again, if close, run under both account locks, still finds the hold open; null otherwise.
+    // Journaled, recorded and notified like a transfer.
+    public MoneyTransferResponse captureHold(Account fromAccount, Account toAccount, BigDecimal held, BigDecimal captured,
+                                             BooleanSupplier close) throws InterruptedException {
+        accountSnapshotter.enter();
+        try {
+            List<Lock> accountLocks = accountLockManager.lockAll(fromAccount, toAccount);
+            try {
+                if (!close.getAsBoolean()) {
+                    return null;
+                }
+                accountSnapshotter.beforeWrite(fromAccount);
+                accountSnapshotter.beforeWrite(toAccount);
+                fromAccount.capture(held, captured);
+                toAccount.deposit(captured);
+                accountsRepository.updateAccountDetails(toAccount);
+                accountsRepository.updateAccountDetails(fromAccount);
+            } finally {
+                accountLockManager.unlockAll(accountLocks);
+            }
+            return completeTransfer(fromAccount, toAccount,
+                    new MoneyTransferRequest(fromAccount.getAccountId(), toAccount.getAccountId(), captured), true);
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    // N debits and M credits with the same total, applied as one transfer: every account with a non-zero
+    // net change is locked once (in global order, so no deadlocks), all of them are checked under those
+    // locks and only then written, each once. Nothing is written when one account cannot cover its net
+    // debit. The legs are recorded as debit/credit pairs in the journal and the ledger.
+    public MultiLegTransferResponse fundMultiLegTransfer(MultiLegTransferRequest multiLegTransferRequest) throws InterruptedException {
+        if (shardedTransferEngine.isEnabled() || managesBalances()) {
+            throw new BadRequestExceptionClass("Multi-leg transfers need the lock based transfer engine and account store!");
+        }
+        List<TransferLeg> debits = multiLegTransferRequest.getDebits();
+        List<TransferLeg> credits = multiLegTransferRequest.getCredits();
+        if (debits == null || debits.isEmpty() || credits == null || credits.isEmpty()) {
+            throw new BadRequestExceptionClass("Multi-leg transfer should have at least one debit and one credit!");
+        }
+        if (debits.size() + credits.size() > maxBatchItems) {
+            throw new BadRequestExceptionClass("Multi-leg transfer should not have more than " + maxBatchItems + " legs!");
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        Map<String, BigDecimal> netDeltas = new HashMap<>();
+        BigDecimal debited = addLegs(debits, true, accounts, netDeltas);
+        BigDecimal credited = addLegs(credits, false, accounts, netDeltas);
+        if (debited.compareTo(credited) != 0) {
+            throw new BadRequestExceptionClass("Multi-leg transfer is not balanced, debits " + debited + " and credits " + credited);
+        }
+        netDeltas.values().removeIf(delta -> delta.signum() == 0);
+
+        accountSnapshotter.enter();
+        try {
+            List<Account> involved = new ArrayList<>(netDeltas.size());
+            netDeltas.keySet().forEach(accountId -> involved.add(accounts.get(accountId)));
+            long lockStart = transferMetrics.start();
+            List<Lock> accountLocks = accountLockManager.lockAll(involved);
+            long holdStart = transferMetrics.record(TransferMetrics.Phase.LOCK_WAIT, lockStart);
+            try {
+                for (Map.Entry<String, BigDecimal> netDelta : netDeltas.entrySet()) {
+                    if (accounts.get(netDelta.getKey()).getAvailableBalance().add(netDelta.getValue()).signum() < 0) {
+                        throw new InsufficientAmountInAccountException("Insufficient amount in account " + netDelta.getKey());
+                    }
+                }
+                netDeltas.forEach((accountId, delta) -> {
+                    Account account = accounts.get(accountId);
+                    accountSnapshotter.beforeWrite(account);
+                    if (account instanceof HotAccount) {
+                        ((HotAccount) account).adjust(delta);
+                    } else {
+                        account.setBalance(account.getBalance().add(delta));
+                    }
+                    accountsRepository.updateAccountDetails(account);
+                });
+            } finally {
+                accountLockManager.unlockAll(accountLocks);
+                transferMetrics.record(TransferMetrics.Phase.LOCK_HOLD, holdStart);
+            }
+
+            List<MoneyTransferRequest> pairs = pairLegs(debits, credits);
+            transferJournal.recordTransfers(pairs);
+            List<Long> transactionIds = new ArrayList<>(pairs.size());
+            for (MoneyTransferRequest pair : pairs) {
+                long transactionId = transactionLedger.record(pair.getAccountFrom(), pair.getAccountTo(),
+                        pair.getTransferAmount(), TransactionStatus.SUCCESS);
+                TransferAuditLog.transfer(transactionId, pair.getAccountFrom(), pair.getAccountTo(),
+                        pair.getTransferAmount(), TransactionStatus.SUCCESS);
+                notificationToAccountHolder(true, pair, accounts.get(pair.getAccountFrom()), accounts.get(pair.getAccountTo()));
+                transactionIds.add(transactionId);
+            }
+            log.info("Multi-leg transfer of {} over {} debits and {} credits done", debited, debits.size(), credits.size());
+            return MultiLegTransferResponse.builder()
+                    .message(SUCCESS_MSG)
+                    .transactionIds(transactionIds)
+                    .build();
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    // Validates the legs of one side, resolves their accounts and adds them to the net changes; returns their sum
+    private BigDecimal addLegs(List<TransferLeg> legs, boolean debit, Map<String, Account> accounts,
+                               Map<String, BigDecimal> netDeltas) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (TransferLeg leg : legs) {
+            if (leg == null || leg.getAccountId() == null || leg.getAccountId().isEmpty()) {
+                throw new BadRequestExceptionClass("Leg account should not be empty/null!");
+            }
+            if (leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+                throw new BadRequestExceptionClass("Leg amount should be greater than zero!");
+            }
+            if (resolve(accounts, leg.getAccountId()) == null) {
+                throw new AccountIdNotFoundException("Invalid account :: " + leg.getAccountId());
+            }
+            netDeltas.merge(leg.getAccountId(), debit ? leg.getAmount().negate() : leg.getAmount(), BigDecimal::add);
+            total = total.add(leg.getAmount());
+        }
+        return total;
+    }
+
+    // Splits balanced legs into debit -> credit transfers, walking both sides in request order
+    // (at most debits + credits - 1 of them); a leg paired with the same account is dropped, it cancels out
+    private static List<MoneyTransferRequest> pairLegs(List<TransferLeg> debits, List<TransferLeg> credits) {
+        List<MoneyTransferRequest> pairs = new ArrayList<>(debits.size() + credits.size() - 1);
+        int d = 0;
+        int c = 0;
+        BigDecimal debitLeft = debits.get(0).getAmount();
+        BigDecimal creditLeft = credits.get(0).getAmount();
+        while (d < debits.size() && c < credits.size()) {
+            BigDecimal amount = debitLeft.min(creditLeft);
+            String from = debits.get(d).getAccountId();
+            String to = credits.get(c).getAccountId();
+            if (!from.equals(to)) {
+                pairs.add(new MoneyTransferRequest(from, to, amount));
+            }
+            debitLeft = debitLeft.subtract(amount);
+            creditLeft = creditLeft.subtract(amount);
+            if (debitLeft.signum() == 0 && ++d < debits.size()) {
+                debitLeft = debits.get(d).getAmount();
+            }
+            if (creditLeft.signum() == 0 && ++c < credits.size()) {
+                creditLeft = credits.get(c).getAmount();
+            }
+        }
+        return pairs;
+    }
+
+    // Validates every item in one pass, locks all involved accounts once (in global order) and
+    // applies the transfers in request order against running balances; each account is written once.
+    // NETTED batches settle only the net result per account, see applyNetted.
+    public BatchTransferResponse fundTransferBatch(List<MoneyTransferRequest> requests, BatchTransferMode mode) throws InterruptedException {
+        accountSnapshotter.enter();
+        try {
+            return transferBatch(requests, mode);
+        } finally {
+            accountSnapshotter.exit();
+        }
+    }
+
+    private BatchTransferResponse transferBatch(List<MoneyTransferRequest> requests, BatchTransferMode mode) throws InterruptedException {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestExceptionClass("Batch should contain at least one transfer!");
+        }
+        if (requests.size() > maxBatchItems) {
+            throw new BadRequestExceptionClass("Batch should not contain more than " + maxBatchItems + " transfers!");
+        }
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+        Map<String, Account> accounts = new HashMap<>();
+        int invalid = -1;
+        for (int i = 0; i < requests.size(); i++) {
+            MoneyTransferRequest request = requests.get(i);
+            try {
+                validateTransferRequest(request);
+                validateAccountsExist(request, resolve(accounts, request.getAccountFrom()), resolve(accounts, request.getAccountTo()));
+            } catch (RuntimeException ex) {
+                results[i] = failedItem(i, ex.getMessage());
+                invalid = invalid < 0 ? i : invalid;
+            }
+        }
+        if (mode != BatchTransferMode.BEST_EFFORT && invalid >= 0) {
+            return rejectBatch(mode, results, invalid);
+        }
+
+        boolean[] applied = new boolean[requests.size()];
+        if (shardedTransferEngine.isEnabled()) {
+            if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                throw new BadRequestExceptionClass("All-or-nothing batches need the lock based transfer engine!");
+            }
+            if (mode == BatchTransferMode.NETTED) {
+                throw new BadRequestExceptionClass("Netted batches need the lock based transfer engine!");
+            }
+            // items leave in request order; each shard applies its debits in that order
+            List<CompletableFuture<Boolean>> pending = new ArrayList<>(Collections.nCopies(requests.size(), null));
+            for (int i = 0; i < requests.size(); i++) {
+                if (results[i] == null) {
+                    MoneyTransferRequest request = requests.get(i);
+                    pending.set(i, shardedTransferEngine.submit(request.getAccountFrom(), request.getAccountTo(), request.getTransferAmount()));
+                }
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                if (pending.get(i) != null) {
+                    applied[i] = awaitShard(pending.get(i));
+                }
+            }
+        } else if (managesBalances()) {
+            if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                throw new BadRequestExceptionClass("All-or-nothing batches need the lock based account store!");
+            }
+            if (mode == BatchTransferMode.NETTED) {
+                throw new BadRequestExceptionClass("Netted batches need the lock based account store!");
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                if (results[i] == null) {
+                    MoneyTransferRequest request = requests.get(i);
+                    try {
+                        applied[i] = balanceStore.transfer(request.getAccountFrom(), request.getAccountTo(), request.getTransferAmount());
+                    } catch (BadRequestExceptionClass ex) {
+                        // refused by the store (the credit would overflow), nothing moved
+                        results[i] = failedItem(i, ex.getMessage());
+                    }
+                }
+            }
+        } else {
+            Map<String, BigDecimal> netDeltas = mode == BatchTransferMode.NETTED ? netDeltas(requests, results) : null;
+            List<Account> involved = new ArrayList<>(accounts.size());
+            accounts.forEach((accountId, account) -> {
+                // accounts whose transfers cancel out are neither locked nor written by a netted batch
+                if (account != null && (netDeltas == null || netDeltas.containsKey(accountId))) {
+                    involved.add(account);
+                }
+            });
+            long lockStart = transferMetrics.start();
+            List<Lock> accountLocks = accountLockManager.lockAll(involved);
+            long holdStart = transferMetrics.record(TransferMetrics.Phase.LOCK_WAIT, lockStart);
+            try {
+                int unfunded = netDeltas != null ? applyNetted(requests, results, accounts, netDeltas, applied)
+                        : applyBatch(requests, results, accounts, applied, mode);
+                if (unfunded >= 0) {
+                    return rejectBatch(mode, results, unfunded);
+                }
+            } finally {
+                accountLockManager.unlockAll(accountLocks);
+                transferMetrics.record(TransferMetrics.Phase.LOCK_HOLD, holdStart);
+            }
+        }
+
+        List<MoneyTransferRequest> appliedRequests = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (applied[i]) {
+                appliedRequests.add(requests.get(i));
+            }
+        }
+        transferJournal.recordTransfers(appliedRequests);
+
+        int succeeded = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                // rejected by validation, it never reached an account
+                continue;
+            }
+            MoneyTransferRequest request = requests.get(i);
+            long transactionId = transactionLedger.record(request.getAccountFrom(), request.getAccountTo(),
+                    request.getTransferAmount(), applied[i] ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+            TransferAuditLog.transfer(transactionId, request.getAccountFrom(), request.getAccountTo(),
+                    request.getTransferAmount(), applied[i] ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+            results[i] = BatchTransferItemResult.builder()
+                    .index(i)
+                    .status(applied[i] ? TransactionStatus.SUCCESS : TransactionStatus.FAILED)
+                    .message(applied[i] ? SUCCESS_MSG : FAILED_MSG)
+                    .transactionId(transactionId)
+                    .build();
+            notificationToAccountHolder(applied[i], request, accounts.get(request.getAccountFrom()), accounts.get(request.getAccountTo()));
+            if (applied[i]) {
+                succeeded++;
+            }
+        }
+        log.info("Batch of {} transfers done, {} succeeded", requests.size(), succeeded);
+        return BatchTransferResponse.builder()
+                .mode(mode)
+                .succeeded(succeeded)
+                .failed(requests.size() - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    // Runs under the locks of every involved account. Returns the index of the first unfunded item
+    // when an all-or-nothing batch has to be rejected (nothing written), otherwise -1.
+    private int applyBatch(List<MoneyTransferRequest> requests, BatchTransferItemResult[] results,
+                           Map<String, Account> accounts, boolean[] applied, BatchTransferMode mode) {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        Map<String, BigDecimal> initialBalances = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            MoneyTransferRequest request = requests.get(i);
+            BigDecimal amount = request.getTransferAmount();
+            BigDecimal fromBalance = balances.computeIfAbsent(request.getAccountFrom(), id -> initialBalance(accounts, initialBalances, id));
+            // held money stays put, so only the running balance above the holds can be debited
+            if (fromBalance.subtract(accounts.get(request.getAccountFrom()).getHeld()).compareTo(amount) < 0) {
+                if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                    return i;
+                }
+                continue;
+            }
+            BigDecimal toBalance = balances.computeIfAbsent(request.getAccountTo(), id -> initialBalance(accounts, initialBalances, id));
+            balances.put(request.getAccountFrom(), fromBalance.subtract(amount));
+            balances.put(request.getAccountTo(), toBalance.add(amount));
+            applied[i] = true;
+        }
+        balances.forEach((accountId, balance) -> {
+            Account account = accounts.get(accountId);
+            accountSnapshotter.beforeWrite(account);
+            if (account instanceof HotAccount) {
+                // single transfers may have credited it meanwhile, only apply what the batch changed
+                ((HotAccount) account).adjust(balance.subtract(initialBalances.get(accountId)));
+            } else {
+                account.setBalance(balance);
+            }
+            accountsRepository.updateAccountDetails(account);
+        });
+        return -1;
+    }
+
+    // Net balance change per account over the valid items; accounts that net to zero are left out
+    private static Map<String, BigDecimal> netDeltas(List<MoneyTransferRequest> requests, BatchTransferItemResult[] results) {
+        Map<String, BigDecimal> netDeltas = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null) {
+                MoneyTransferRequest request = requests.get(i);
+                netDeltas.merge(request.getAccountFrom(), request.getTransferAmount().negate(), BigDecimal::add);
+                netDeltas.merge(request.getAccountTo(), request.getTransferAmount(), BigDecimal::add);
+            }
+        }
+        netDeltas.values().removeIf(delta -> delta.signum() == 0);
+        return netDeltas;
+    }
+
+    // Runs under the locks of the accounts with a non-zero net delta. The batch settles as a whole:
+    // every account has to cover its net debit (not each gross item in turn), then each account is
+    // written once. Returns the first item debiting an uncovered account (nothing written), otherwise -1.
+    private int applyNetted(List<MoneyTransferRequest> requests, BatchTransferItemResult[] results,
+                            Map<String, Account> accounts, Map<String, BigDecimal> netDeltas, boolean[] applied) {
+        for (Map.Entry<String, BigDecimal> netDelta : netDeltas.entrySet()) {
+            if (accounts.get(netDelta.getKey()).getAvailableBalance().add(netDelta.getValue()).signum() < 0) {
+                for (int i = 0; i < requests.size(); i++) {
+                    if (results[i] == null && requests.get(i).getAccountFrom().equals(netDelta.getKey())) {
+                        return i;
+                    }
+                }
+            }
+        }
+        netDeltas.forEach((accountId, delta) -> {
+            Account account = accounts.get(accountId);
+            accountSnapshotter.beforeWrite(account);
+            if (account instanceof HotAccount) {
+                ((HotAccount) account).adjust(delta);
             } else {
-                notificationToAccountHolder(false, moneyTransferRequest, fromAccountDetails, toAccountDetails);
-                log.info("Transfer failed: Insufficient funds in Account " + fromAccountDetails.getAccountId());
-                return MoneyTransferResponse.builder().message(FAILED_MSG).build();
+                account.setBalance(account.getBalance().add(delta));
             }
+            accountsRepository.updateAccountDetails(account);
+        });
+        for (int i = 0; i < requests.size(); i++) {
+            applied[i] = results[i] == null;
+        }
+        return -1;
+    }
+
+    private static BigDecimal initialBalance(Map<String, Account> accounts, Map<String, BigDecimal> initialBalances, String accountId) {
+        BigDecimal balance = accounts.get(accountId).getBalance();
+        initialBalances.put(accountId, balance);
+        return balance;
+    }
+
+    private boolean awaitShard(CompletableFuture<Boolean> transferred) throws InterruptedException {
+        try {
+            return transferred.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private BatchTransferResponse rejectBatch(BatchTransferMode mode, BatchTransferItemResult[] results, int cause) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = failedItem(i, i == cause ? "Insufficient amount in from account balance"
+                        : "Batch rejected, item " + cause + " failed");
+            }
+        }
+        log.info("Batch of {} transfers rejected because of item {}", results.length, cause);
+        return BatchTransferResponse.builder()
+                .mode(mode)
+                .succeeded(0)
+                .failed(results.length)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private BatchTransferItemResult failedItem(int index, String message) {
+        return BatchTransferItemResult.builder()
+                .index(index)
+                .status(TransactionStatus.FAILED)
+                .message(message)
+                .build();
+    }
+
+    // each account is looked up once per batch, unknown ids are remembered as null
+    private Account resolve(Map<String, Account> accounts, String accountId) {
+        if (!accounts.containsKey(accountId)) {
+            accounts.put(accountId, getAccount(accountId));
+        }
+        return accounts.get(accountId);
+    }
+
+    private boolean applyTransfer(Account fromAccountDetails, Account toAccountDetails, BigDecimal amount) throws InterruptedException {
+        long lockStart = transferMetrics.start();
+        if (managesBalances()) {
+            boolean transferred = balanceStore.transfer(fromAccountDetails.getAccountId(), toAccountDetails.getAccountId(), amount);
+            transferMetrics.record(TransferMetrics.Phase.APPLY, lockStart);
+            return transferred;
+        }
+        // Locks are taken in account id order, so opposite transfers (A->B, B->A) cannot deadlock.
+        // A hot account is credited without its lock, so only the debited account is locked then.
+        boolean hotCredit = toAccountDetails instanceof HotAccount;
+        List<Lock> accountLocks = hotCredit ? accountLockManager.lockAll(fromAccountDetails)
+                : accountLockManager.lockAll(fromAccountDetails, toAccountDetails);
+        long holdStart = transferMetrics.record(TransferMetrics.Phase.LOCK_WAIT, lockStart);
+        try {
+            // Perform the transfer
+            accountSnapshotter.beforeWrite(fromAccountDetails);
+            accountSnapshotter.beforeWrite(toAccountDetails);
+            // stripes already exclude other writers; Account.transfer would give each account its own lock
+            boolean transferred = accountLockManager.isStriped() || hotCredit || fromAccountDetails instanceof HotAccount
+                    ? fromAccountDetails.transferLocked(toAccountDetails, amount)
+                    : fromAccountDetails.transfer(toAccountDetails, amount);
+            if (!transferred) {
+                return false;
+            }
+            accountsRepository.updateAccountDetails(toAccountDetails);
+            accountsRepository.updateAccountDetails(fromAccountDetails);
+            return true;
         } finally {
-            toAccountLock.unlock();
-            fromAccountLock.unlock();
+            accountLockManager.unlockAll(accountLocks);
+            transferMetrics.record(TransferMetrics.Phase.LOCK_HOLD, holdStart);
         }
+    }
 
+    void validateTransferRequest(MoneyTransferRequest moneyTransferRequest) {
+        if (moneyTransferRequest.getAccountFrom() == null || moneyTransferRequest.getAccountFrom().isEmpty()) {
+            throw new BadRequestExceptionClass("Account from should not be empty/null!");
+        }
+        if (moneyTransferRequest.getAccountTo() == null || moneyTransferRequest.getAccountTo().isEmpty()) {
+            throw new BadRequestExceptionClass("Account to should not be null.empty!");
+        }
+        if (moneyTransferRequest.getTransferAmount() == null) {
+            throw new BadRequestExceptionClass("Transfer amount should not be null!");
+        }
+        if (moneyTransferRequest.getTransferAmount().compareTo(BigDecimal.ZERO) == 0) {
+            throw new BadRequestExceptionClass("Transfer amount should be greater than zero!");
+        } else if (moneyTransferRequest.getTransferAmount().compareTo(BigDecimal.ZERO) < 0) {
+            throw new BadRequestExceptionClass("Transfer amount should be greater than balance!");
+        }
+        if (moneyTransferRequest.getAccountFrom().trim().equals(moneyTransferRequest.getAccountTo().trim())) {
+            throw new BadRequestExceptionClass("Please check, To and From Account are the same!");
+        }
     }
 
     private void validateAccountDetails(final MoneyTransferRequest moneyTransferRequest, Account fromAccountDetails, Account toAccountDetails) {
-        if (fromAccountDetails == null) {
+        validateAccountsExist(moneyTransferRequest, fromAccountDetails, toAccountDetails);
+
+        // one lock-free read of balance and holds together; the debit re-checks them under the lock
+        BigDecimal balance = fromAccountDetails.getAvailableBalance();
+        // balance greater than zero and no negative value consider
+        if ((balance.compareTo(BigDecimal.ZERO) == 0)) {
+            throw new InsufficientAmountInAccountException("Insufficient amount in from account");
+        }
+        // balance greater than or equal to transfer amount (compareTo, so 1000.00 covers 1000)
+        if (balance.compareTo(moneyTransferRequest.getTransferAmount()) < 0) {
+            throw new InsufficientAmountInAccountException("Insufficient amount in from account balance");
+        }
+    }
+
+    private void validateStoredAccounts(final MoneyTransferRequest moneyTransferRequest) {
+        if (!balanceStore.containsAccount(moneyTransferRequest.getAccountFrom())) {
             throw new AccountIdNotFoundException("Invalid fromAccount :: " + moneyTransferRequest.getAccountFrom());
         }
-        if (toAccountDetails == null) {
+        if (!balanceStore.containsAccount(moneyTransferRequest.getAccountTo())) {
             throw new AccountIdNotFoundException("Invalid toAccount :: " + moneyTransferRequest.getAccountTo());
         }
+        // lock-free pre-check, the store re-checks when it moves the money
+        if (!balanceStore.covers(moneyTransferRequest.getAccountFrom(), moneyTransferRequest.getTransferAmount())) {
+            throw new InsufficientAmountInAccountException("Insufficient amount in from account balance");
+        }
+    }
 
-        // balance greater than zero and no negative value consider
-        if ((fromAccountDetails.getBalance().compareTo(BigDecimal.ZERO) == 0)) {
-            throw new InsufficientAmountInAccountException("Insufficient amount in from account");
+    private void validateAccountsExist(final MoneyTransferRequest moneyTransferRequest, Account fromAccountDetails, Account toAccountDetails) {
+        if (fromAccountDetails == null) {
+            throw new AccountIdNotFoundException("Invalid fromAccount :: " + moneyTransferRequest.getAccountFrom());
         }
-        // balance greater than transfer amount
-        if (!fromAccountDetails.getBalance().equals(moneyTransferRequest.getTransferAmount())) {
-            if (!(fromAccountDetails.getBalance().compareTo(moneyTransferRequest.getTransferAmount()) == 1)) {
-                throw new InsufficientAmountInAccountException("Insufficient amount in from account balance");
-            }
+        if (toAccountDetails == null) {
+            throw new AccountIdNotFoundException("Invalid toAccount :: " + moneyTransferRequest.getAccountTo());
         }
     }
 
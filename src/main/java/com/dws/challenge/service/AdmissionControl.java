@@ -0,0 +1,121 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Admission control for /amount-transfer: under overload a request is refused up front with 429
+// instead of queueing behind account locks and making every client slow. Three checks, in order:
+// a token bucket per client (X-Client-Id header, else the remote address), a token bucket per source
+// account, and a global limit on transfers in flight that adapts to the observed latency.
+// Everything is off unless admission.enabled=true; a rate of 0 turns that bucket off.
+@Component
+public class AdmissionControl implements MeterBinder {
+
+    // Returned by admit(); close it when the transfer is done, it feeds the latency to the limiter
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit NO_PERMIT = () -> { };
+
+    private final boolean enabled;
+    private final GcraRateLimiter clients;
+    private final GcraRateLimiter accounts;
+    private final AdaptiveConcurrencyLimiter concurrency;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedClient = new LongAdder();
+    private final LongAdder rejectedAccount = new LongAdder();
+    private final LongAdder rejectedConcurrency = new LongAdder();
+
+    public static AdmissionControl disabled() {
+        return new AdmissionControl(false, 0, 1, 0, 1, 1, 1, 1, 1, 1);
+    }
+
+    @Autowired
+    public AdmissionControl(@Value("${admission.enabled:false}") boolean enabled,
+                            @Value("${admission.client.rate-per-second:0}") double clientRate,
+                            @Value("${admission.client.burst:50}") int clientBurst,
+                            @Value("${admission.account.rate-per-second:0}") double accountRate,
+                            @Value("${admission.account.burst:10}") int accountBurst,
+                            @Value("${admission.concurrency.initial-limit:64}") int initialLimit,
+                            @Value("${admission.concurrency.min-limit:4}") int minLimit,
+                            @Value("${admission.concurrency.max-limit:1024}") int maxLimit,
+                            @Value("${admission.concurrency.target-latency-ms:50}") long targetLatencyMillis,
+                            @Value("${admission.max-keys:100000}") int maxKeys) {
+        this.enabled = enabled;
+        this.clients = new GcraRateLimiter(clientRate, clientBurst, maxKeys);
+        this.accounts = new GcraRateLimiter(accountRate, accountBurst, maxKeys);
+        this.concurrency = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Client rate only; in cluster mode it is checked on the node the client called, before forwarding
+    public void checkClient(String clientId) {
+        if (!enabled || clientId == null) {
+            return;
+        }
+        long waitNanos = clients.tryAcquire(clientId);
+        if (waitNanos > 0) {
+            rejectedClient.increment();
+            throw new TooManyRequestsException("Too many transfers from client " + clientId + ", retry in "
+                    + retryMillis(waitNanos) + " ms");
+        }
+    }
+
+    // Source account rate and the concurrency limit, on the node that runs the transfer
+    public Permit admit(String accountFrom) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        long waitNanos = accountFrom == null ? 0 : accounts.tryAcquire(accountFrom);
+        if (waitNanos > 0) {
+            rejectedAccount.increment();
+            throw new TooManyRequestsException("Too many transfers from account " + accountFrom + ", retry in "
+                    + retryMillis(waitNanos) + " ms");
+        }
+        if (!concurrency.tryAcquire()) {
+            // the transfer does not happen, so it must not count against the account's rate
+            if (accountFrom != null) {
+                accounts.refund(accountFrom);
+            }
+            rejectedConcurrency.increment();
+            throw new TooManyRequestsException("Too many transfers in progress, retry later");
+        }
+        admitted.increment();
+        long start = System.nanoTime();
+        return () -> concurrency.release(System.nanoTime() - start);
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrency.getLimit();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("admission.admitted", admitted, LongAdder::sum).register(registry);
+        FunctionCounter.builder("admission.rejected", rejectedClient, LongAdder::sum).tag("reason", "client").register(registry);
+        FunctionCounter.builder("admission.rejected", rejectedAccount, LongAdder::sum).tag("reason", "account").register(registry);
+        FunctionCounter.builder("admission.rejected", rejectedConcurrency, LongAdder::sum).tag("reason", "concurrency").register(registry);
+        Gauge.builder("admission.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit).register(registry);
+        Gauge.builder("admission.concurrency.inflight", concurrency, AdaptiveConcurrencyLimiter::getInFlight).register(registry);
+    }
+
+    private static long retryMillis(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+}
@@ -0,0 +1,221 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.NotificationEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Outbox in front of the real notification sink: a transfer only enqueues an event,
+// a bounded pool of workers drains the queue in batches and delivers to the sink,
+// retrying failures with backoff and dead-lettering what still fails.
+@Slf4j
+@Primary
+@Component
+public class AsyncNotificationService implements NotificationService, MeterBinder {
+
+    private final NotificationService sink;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long enqueueTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int deadLetterCapacity;
+
+    private final BlockingQueue<NotificationEvent> outbox;
+    private final ConcurrentLinkedDeque<NotificationEvent> deadLetters = new ConcurrentLinkedDeque<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public AsyncNotificationService(NotificationService sink, boolean enabled, int workerCount, int queueCapacity,
+                                    int batchSize, long enqueueTimeoutMillis, int maxAttempts,
+                                    long retryBackoffMillis, int deadLetterCapacity) {
+        this(sink, enabled, workerCount, queueCapacity, batchSize, enqueueTimeoutMillis, maxAttempts,
+                retryBackoffMillis, deadLetterCapacity, false);
+    }
+
+    @Autowired
+    public AsyncNotificationService(@Qualifier("emailNotificationService") NotificationService sink,
+                                    @Value("${notification.async.enabled:true}") boolean enabled,
+                                    @Value("${notification.async.workers:2}") int workerCount,
+                                    @Value("${notification.async.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${notification.async.batch-size:100}") int batchSize,
+                                    @Value("${notification.async.enqueue-timeout-ms:50}") long enqueueTimeoutMillis,
+                                    @Value("${notification.async.max-attempts:3}") int maxAttempts,
+                                    @Value("${notification.async.retry-backoff-ms:200}") long retryBackoffMillis,
+                                    @Value("${notification.async.dead-letter-capacity:1000}") int deadLetterCapacity,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sink = sink;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.deadLetterCapacity = deadLetterCapacity;
+        this.outbox = new ArrayBlockingQueue<>(queueCapacity);
+        if (enabled) {
+            this.workers = Executors.newFixedThreadPool(workerCount,
+                    ThreadFactories.named("notification-worker-", virtualThreads));
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                    ThreadFactories.named("notification-retry-", virtualThreads));
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::drainOutbox);
+            }
+        } else {
+            this.workers = null;
+            this.retryScheduler = null;
+        }
+    }
+
+    @Override
+    public void notifyAboutTransfer(Account account, String transferDescription) {
+        if (!enabled) {
+            sink.notifyAboutTransfer(account, transferDescription);
+            return;
+        }
+        NotificationEvent event = new NotificationEvent(account, transferDescription);
+        try {
+            // backpressure: callers wait a little for room, but never for the sink itself
+            if (outbox.offer(event, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+                return;
+            }
+            event.failedAttempt("outbox full");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            event.failedAttempt("interrupted while enqueueing");
+        }
+        deadLetter(event);
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    public int getPending() {
+        return outbox.size();
+    }
+
+    public List<NotificationEvent> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("notification.enqueued", enqueued, LongAdder::sum).register(registry);
+        FunctionCounter.builder("notification.delivered", delivered, LongAdder::sum).register(registry);
+        FunctionCounter.builder("notification.retried", retried, LongAdder::sum).register(registry);
+        FunctionCounter.builder("notification.dead-lettered", deadLettered, LongAdder::sum).register(registry);
+        Gauge.builder("notification.outbox.pending", outbox, BlockingQueue::size).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        retryScheduler.shutdown();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Notification workers stopped with {} events still queued", outbox.size());
+            workers.shutdownNow();
+        }
+    }
+
+    private void drainOutbox() {
+        List<NotificationEvent> batch = new ArrayList<>(batchSize);
+        while (running || !outbox.isEmpty()) {
+            try {
+                NotificationEvent first = outbox.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outbox.drainTo(batch, batchSize - 1);
+                for (NotificationEvent event : batch) {
+                    deliver(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(NotificationEvent event) {
+        try {
+            sink.notifyAboutTransfer(event.getAccount(), event.getTransferDescription());
+            delivered.increment();
+        } catch (RuntimeException e) {
+            event.failedAttempt(e.getMessage());
+            if (event.getAttempts() >= maxAttempts || !running) {
+                deadLetter(event);
+                return;
+            }
+            retried.increment();
+            long delay = retryBackoffMillis << Math.min(event.getAttempts() - 1, 10);
+            try {
+                retryScheduler.schedule(() -> requeue(event), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                deadLetter(event);
+            }
+        }
+    }
+
+    private void requeue(NotificationEvent event) {
+        if (!outbox.offer(event)) {
+            deadLetter(event);
+        }
+    }
+
+    private void deadLetter(NotificationEvent event) {
+        log.warn("Dead-lettering notification for account {} after {} attempts: {}",
+                event.getAccount().getAccountId(), event.getAttempts(), event.getLastError());
+        deadLettered.increment();
+        deadLetters.addLast(event);
+        while (deadLetters.size() > deadLetterCapacity) {
+            deadLetters.pollFirst();
+        }
+    }
+}
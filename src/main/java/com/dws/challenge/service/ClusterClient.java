@@ -0,0 +1,121 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.ClusterLeg;
+import com.dws.challenge.exception.ClusterNodeUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// HTTP between the nodes of a cluster: requests forwarded to the node that owns the account, and
+// the credit legs of cross-node transfers. A forwarded request carries X-Cluster-Forwarded and is
+// always handled by the node it reaches, so nodes with different cluster.nodes lists cannot
+// bounce a request between them.
+@Component
+public class ClusterClient {
+
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    public static final String CREDIT_PATH = "/internal/cluster/credit";
+    public static final String FORGET_PATH = "/internal/cluster/credit/forget";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    @Autowired
+    public ClusterClient(ObjectMapper objectMapper,
+                         @Value("${cluster.request-timeout-ms:2000}") long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    // Sends the request on to the node and relays its status, content type and body
+    public ResponseEntity<Object> forward(String node, String method, String path, Object body, String idempotencyKey) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(timeout)
+                .header(FORWARDED_HEADER, "true");
+        if (body != null) {
+            request.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(toJson(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        if (idempotencyKey != null) {
+            request.header(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        HttpResponse<String> response = send(node, request.build());
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(type -> headers.set(HttpHeaders.CONTENT_TYPE, type));
+        String content = response.body();
+        return new ResponseEntity<>(content == null || content.isEmpty() ? null : content, headers,
+                HttpStatusCode.valueOf(response.statusCode()));
+    }
+
+    // True once the node has applied the credit (now or on an earlier attempt), false when it refused
+    // it (4xx, e.g. unknown account). Throws ClusterNodeUnavailableException when the outcome is unknown.
+    public boolean credit(String node, ClusterLeg leg) {
+        int status = post(node, CREDIT_PATH, leg);
+        if (status >= 200 && status < 300) {
+            return true;
+        }
+        if (status >= 400 && status < 500) {
+            return false;
+        }
+        throw new ClusterNodeUnavailableException("Cluster node " + node + " answered " + status + " to credit " + leg.getLegId(), null);
+    }
+
+    // Tells the node it no longer has to recognise the credit leg. Throws ClusterNodeUnavailableException
+    // unless the node confirmed it.
+    public void forget(String node, ClusterLeg leg) {
+        int status = post(node, FORGET_PATH, leg);
+        if (status < 200 || status >= 300) {
+            throw new ClusterNodeUnavailableException("Cluster node " + node + " answered " + status + " to forget " + leg.getLegId(), null);
+        }
+    }
+
+    private int post(String node, String path, ClusterLeg leg) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(timeout)
+                .header(FORWARDED_HEADER, "true")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(leg)))
+                .build();
+        return send(node, request).statusCode();
+    }
+
+    private HttpResponse<String> send(String node, HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            throw new ClusterNodeUnavailableException("Cluster node " + node + " is not reachable", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClusterNodeUnavailableException("Interrupted while calling cluster node " + node, ex);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.dws.challenge.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Assigns every account to one node of the cluster by consistent hashing. Each node (its base URL,
+// e.g. http://10.0.0.7:8080) is placed on a 64 bit ring at cluster.virtual-nodes points; an account
+// belongs to the first point at or after its own hash. Adding a node moves only the accounts that now
+// hash to its points. Every node must be started with the same cluster.nodes list (order does not
+// matter) and its own URL as cluster.self. An empty cluster.nodes list is single node mode.
+@Slf4j
+@Component
+public class ClusterRing {
+
+    private final List<String> nodes;
+    private final String self;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public static ClusterRing disabled() {
+        return new ClusterRing(new String[0], "", 0);
+    }
+
+    @Autowired
+    public ClusterRing(@Value("${cluster.nodes:}") String[] nodes,
+                       @Value("${cluster.self:}") String self,
+                       @Value("${cluster.virtual-nodes:64}") int virtualNodes) {
+        List<String> members = new ArrayList<>();
+        for (String node : nodes) {
+            String url = normalize(node);
+            if (!url.isEmpty() && !members.contains(url)) {
+                members.add(url);
+            }
+        }
+        this.nodes = Collections.unmodifiableList(members);
+        this.self = normalize(self);
+        if (members.isEmpty()) {
+            return;
+        }
+        if (!members.contains(this.self)) {
+            throw new IllegalStateException("cluster.self " + self + " is not one of cluster.nodes " + members);
+        }
+        for (String node : members) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        log.info("Cluster of {} nodes, this node is {}", members.size(), this.self);
+    }
+
+    public boolean isEnabled() {
+        return !ring.isEmpty();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    // Base URL of the node that holds the account
+    public String ownerOf(String accountId) {
+        if (!isEnabled()) {
+            return self;
+        }
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(accountId));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public boolean isLocal(String accountId) {
+        return !isEnabled() || self.equals(ownerOf(accountId));
+    }
+
+    private static String normalize(String node) {
+        String url = node == null ? "" : node.trim();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    // FNV-1a over the UTF-8 bytes, then a murmur3 finalizer so that similar ids land far apart
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,352 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ClusterLeg;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.ClusterNodeUnavailableException;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.ClusterSagaLog;
+import com.dws.challenge.repository.ClusterSagaLog.Saga;
+import com.dws.challenge.repository.ClusterSagaLog.State;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Transfers between accounts held by different nodes, as a saga instead of a distributed lock.
+// The node holding accountFrom logs the saga (STARTED), debits and journals the debit leg, logs
+// DEBITED and sends the credit leg to the node holding accountTo. That node applies it once per
+// leg id and journals it. If the credit is refused (unknown account) the debit is given back with a
+// refund leg; if the node cannot be reached the saga stays DEBITED, the client gets "pending"
+// (202) and a recovery task resends the credit until it gets an answer, also after a restart.
+// Money is never in two places: between debit and credit it is owed by the saga log.
+// The receiver keeps every applied credit leg in its own saga log (RECEIVED) until the sender,
+// having logged CREDITED, tells it to forget the leg; only then does the sender log DONE. So a
+// resend is recognised however late it comes. Needs the journal (journal.enabled=true): it tells,
+// after a crash, whether a leg logged as STARTED or RECEIVING was applied.
+@Slf4j
+@Component
+public class ClusterTransferCoordinator implements MeterBinder {
+
+    static final String PENDING_MSG = "Money Transfer pending";
+    private static final String DEBIT = ":debit";
+    private static final String CREDIT = ":credit";
+    private static final String REFUND = ":refund";
+
+    private final AccountsService accountsService;
+    private final ClusterRing clusterRing;
+    private final ClusterClient clusterClient;
+    private final ClusterSagaLog sagaLog;
+    private final long recoveryIntervalMillis;
+
+    // credits applied on this node by leg id, until their sender is done; a resent leg waits for (or
+    // returns) the first attempt
+    private final Map<String, CompletableFuture<Boolean>> credits = new ConcurrentHashMap<>();
+    // sagas a request thread or the recovery task is driving right now
+    private final Set<String> driving = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder refunded = new LongAdder();
+    private final LongAdder credited = new LongAdder();
+
+    @Autowired
+    public ClusterTransferCoordinator(AccountsService accountsService, ClusterRing clusterRing,
+                                      ClusterClient clusterClient, ClusterSagaLog sagaLog,
+                                      @Value("${cluster.recovery-interval-ms:1000}") long recoveryIntervalMillis) {
+        this.accountsService = accountsService;
+        this.clusterRing = clusterRing;
+        this.clusterClient = clusterClient;
+        this.sagaLog = sagaLog;
+        this.recoveryIntervalMillis = recoveryIntervalMillis;
+        if (clusterRing.isEnabled() && (accountsService.getShardedTransferEngine().isEnabled()
+                || accountsService.managesBalances())) {
+            throw new IllegalStateException("Cluster mode needs transfer.engine=locking and an account store whose balances live on Account");
+        }
+        // without it a restart loses the debits and applied credits the saga log still refers to
+        if (clusterRing.isEnabled() && !accountsService.getTransferJournal().isEnabled()) {
+            throw new IllegalStateException("Cluster mode needs journal.enabled=true");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!clusterRing.isEnabled()) {
+            return;
+        }
+        Set<String> replayedLegs = accountsService.getTransferJournal().getReplayedLegs();
+        for (Saga saga : sagaLog.getOpenSagas()) {
+            if (saga.getState() == State.STARTED) {
+                // crashed between the STARTED record and the DEBITED record: the journal knows if the debit happened
+                sagaLog.record(saga, replayedLegs.contains(saga.getId() + DEBIT) ? State.DEBITED : State.ABORTED);
+            } else if (saga.getState() == State.RECEIVING && !replayedLegs.contains(saga.getId())) {
+                // crashed before the credit was applied: a resend applies it
+                sagaLog.record(saga, State.FORGOTTEN);
+            } else if (saga.getState().isReceiverSide()) {
+                credits.put(saga.getId(), CompletableFuture.completedFuture(true));
+                if (saga.getState() == State.RECEIVING) {
+                    sagaLog.record(saga, State.RECEIVED);
+                }
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("cluster-recovery-", false));
+        scheduler.scheduleWithFixedDelay(this::recover, recoveryIntervalMillis, recoveryIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public boolean isEnabled() {
+        return clusterRing.isEnabled();
+    }
+
+    public static boolean isPending(MoneyTransferResponse response) {
+        return PENDING_MSG.equals(response.getMessage());
+    }
+
+    // Sender side: runs on the node holding accountFrom when accountTo is held by another node
+    public MoneyTransferResponse transfer(MoneyTransferRequest moneyTransferRequest) throws InterruptedException {
+        accountsService.validateTransferRequest(moneyTransferRequest);
+        Account fromAccount = accountsService.getAccount(moneyTransferRequest.getAccountFrom());
+        if (fromAccount == null) {
+            throw new AccountIdNotFoundException("Invalid fromAccount :: " + moneyTransferRequest.getAccountFrom());
+        }
+        BigDecimal amount = moneyTransferRequest.getTransferAmount();
+        if (fromAccount.getAvailableBalance().compareTo(amount) < 0) {
+            throw new InsufficientAmountInAccountException("Insufficient amount in from account balance");
+        }
+        Saga saga = new Saga(UUID.randomUUID().toString(), fromAccount.getAccountId(),
+                moneyTransferRequest.getAccountTo(), amount, State.STARTED);
+        driving.add(saga.getId());
+        try {
+            Saga started = sagaLog.record(saga, State.STARTED);
+            if (!accountsService.applyLeg(saga.getId() + DEBIT, fromAccount, amount.negate(),
+                    () -> sagaLog.record(started, State.DEBITED))) {
+                sagaLog.record(started, State.ABORTED);
+                return finish(started, TransactionStatus.FAILED, AccountsService.FAILED_MSG);
+            }
+            return sendCredit(started.withState(State.DEBITED));
+        } finally {
+            driving.remove(saga.getId());
+        }
+    }
+
+    // Receiver side: credits a local account once per leg id
+    public void credit(ClusterLeg leg) throws InterruptedException {
+        if (leg.getLegId() == null || leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+            throw new BadRequestExceptionClass("Credit leg needs an id and a positive amount!");
+        }
+        CompletableFuture<Boolean> applied = new CompletableFuture<>();
+        CompletableFuture<Boolean> first = credits.putIfAbsent(leg.getLegId(), applied);
+        if (first != null) {
+            awaitCredit(first);
+            return;
+        }
+        AtomicBoolean moved = new AtomicBoolean();
+        try {
+            Account account = clusterRing.isLocal(leg.getAccountTo()) ? accountsService.getAccount(leg.getAccountTo()) : null;
+            if (account == null) {
+                throw new AccountIdNotFoundException("Invalid toAccount :: " + leg.getAccountTo());
+            }
+            Saga receiving = sagaLog.record(new Saga(leg.getLegId(), leg.getAccountFrom(), leg.getAccountTo(),
+                    leg.getAmount(), State.RECEIVING), State.RECEIVING);
+            accountsService.applyLeg(leg.getLegId(), account, leg.getAmount(), () -> {
+                moved.set(true);
+                sagaLog.record(receiving, State.RECEIVED);
+            });
+            applied.complete(true);
+            credited.increment();
+            long transactionId = accountsService.getTransactionLedger().record(leg.getAccountFrom(), leg.getAccountTo(),
+                    leg.getAmount(), TransactionStatus.SUCCESS);
+            TransferAuditLog.transfer(transactionId, leg.getAccountFrom(), leg.getAccountTo(), leg.getAmount(), TransactionStatus.SUCCESS);
+            accountsService.getNotificationService().notifyAboutTransfer(account, "Your account is "
+                    + account.getAccountId() + " Amount ::" + leg.getAmount() +
+                    " is credited from this account :: " + leg.getAccountFrom());
+        } catch (RuntimeException | InterruptedException ex) {
+            if (moved.get()) {
+                // the money moved, so a resend must still be recognised
+                applied.complete(true);
+            } else if (!applied.isDone()) {
+                credits.remove(leg.getLegId(), applied);
+                applied.completeExceptionally(ex);
+            }
+            throw ex;
+        }
+    }
+
+    // Receiver side: the sender logged the leg's saga as credited and will not send it again
+    public void forget(ClusterLeg leg) {
+        if (leg.getLegId() == null) {
+            throw new BadRequestExceptionClass("Credit leg needs an id!");
+        }
+        CompletableFuture<Boolean> applied = credits.get(leg.getLegId());
+        if (applied == null || !applied.isDone()) {
+            // unknown (forgotten before) or still being applied, which a sender never forgets
+            return;
+        }
+        sagaLog.record(new Saga(leg.getLegId(), leg.getAccountFrom(), leg.getAccountTo(), leg.getAmount(),
+                State.RECEIVED), State.FORGOTTEN);
+        credits.remove(leg.getLegId(), applied);
+    }
+
+    // Sagas this node started and has not finished
+    public int getOpenSagas() {
+        int open = 0;
+        for (Saga saga : sagaLog.getOpenSagas()) {
+            if (!saga.getState().isReceiverSide()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    // Leg ids a resend is still recognised by
+    public int getRememberedCredits() {
+        return credits.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cluster.transfers.completed", completed, LongAdder::sum).register(registry);
+        FunctionCounter.builder("cluster.transfers.refunded", refunded, LongAdder::sum).register(registry);
+        FunctionCounter.builder("cluster.credits.applied", credited, LongAdder::sum).register(registry);
+        Gauge.builder("cluster.sagas.open", this, ClusterTransferCoordinator::getOpenSagas).register(registry);
+        Gauge.builder("cluster.credits.remembered", this, ClusterTransferCoordinator::getRememberedCredits).register(registry);
+    }
+
+    // Resends the credit of every DEBITED saga and the forget of every CREDITED one nobody is driving,
+    // and compacts the saga log; runs on the recovery thread
+    void recover() {
+        try {
+            sagaLog.compactIfGrown();
+        } catch (RuntimeException ex) {
+            log.error("Compaction of the cluster saga log failed", ex);
+        }
+        for (Saga saga : sagaLog.getOpenSagas()) {
+            if ((saga.getState() != State.DEBITED && saga.getState() != State.CREDITED) || !driving.add(saga.getId())) {
+                continue;
+            }
+            try {
+                if (saga.getState() == State.CREDITED) {
+                    sendForget(saga);
+                    continue;
+                }
+                MoneyTransferResponse response = sendCredit(saga);
+                if (!isPending(response)) {
+                    log.info("Cross-node transfer {} from {} to {} recovered", saga.getId(), saga.getAccountFrom(), saga.getAccountTo());
+                }
+            } catch (AccountIdNotFoundException ex) {
+                log.info("Cross-node transfer {} refunded: {}", saga.getId(), ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Recovery of cross-node transfer {} failed", saga.getId(), ex);
+            } finally {
+                driving.remove(saga.getId());
+            }
+        }
+    }
+
+    // The saga is DEBITED. An unreachable node leaves it that way (pending) for the recovery task.
+    private MoneyTransferResponse sendCredit(Saga saga) throws InterruptedException {
+        boolean accepted;
+        try {
+            accepted = clusterClient.credit(clusterRing.ownerOf(saga.getAccountTo()), creditLeg(saga));
+        } catch (ClusterNodeUnavailableException ex) {
+            log.warn("Credit of cross-node transfer {} to {} is pending: {}", saga.getId(), saga.getAccountTo(), ex.getMessage());
+            return MoneyTransferResponse.builder().message(PENDING_MSG).build();
+        }
+        if (accepted) {
+            Saga credited = sagaLog.record(saga, State.CREDITED);
+            completed.increment();
+            MoneyTransferResponse response = finish(saga, TransactionStatus.SUCCESS, AccountsService.SUCCESS_MSG);
+            sendForget(credited);
+            return response;
+        }
+        // refused: give the debit back, unless a refund before a restart already did
+        if (accountsService.getTransferJournal().getReplayedLegs().contains(saga.getId() + REFUND)) {
+            sagaLog.record(saga, State.REFUNDED);
+        } else {
+            Account fromAccount = accountsService.getAccount(saga.getAccountFrom());
+            accountsService.applyLeg(saga.getId() + REFUND, fromAccount, saga.getAmount(),
+                    () -> sagaLog.record(saga, State.REFUNDED));
+        }
+        refunded.increment();
+        finish(saga, TransactionStatus.FAILED, AccountsService.FAILED_MSG);
+        throw new AccountIdNotFoundException("Invalid toAccount :: " + saga.getAccountTo());
+    }
+
+    // The saga is CREDITED: lets the receiver forget the leg id. An unreachable node leaves it that way
+    // for the recovery task.
+    private void sendForget(Saga saga) {
+        try {
+            clusterClient.forget(clusterRing.ownerOf(saga.getAccountTo()), creditLeg(saga));
+        } catch (ClusterNodeUnavailableException ex) {
+            log.debug("Forget of credit leg {} is pending: {}", saga.getId() + CREDIT, ex.getMessage());
+            return;
+        }
+        sagaLog.record(saga, State.DONE);
+    }
+
+    private static ClusterLeg creditLeg(Saga saga) {
+        return ClusterLeg.builder()
+                .legId(saga.getId() + CREDIT)
+                .accountFrom(saga.getAccountFrom())
+                .accountTo(saga.getAccountTo())
+                .amount(saga.getAmount())
+                .build();
+    }
+
+    // Ledger, audit and notification of the sender side
+    private MoneyTransferResponse finish(Saga saga, TransactionStatus status, String message) {
+        long transactionId = accountsService.getTransactionLedger().record(saga.getAccountFrom(), saga.getAccountTo(),
+                saga.getAmount(), status);
+        TransferAuditLog.transfer(transactionId, saga.getAccountFrom(), saga.getAccountTo(), saga.getAmount(), status);
+        Account fromAccount = accountsService.getAccount(saga.getAccountFrom());
+        if (fromAccount != null) {
+            accountsService.getNotificationService().notifyAboutTransfer(fromAccount,
+                    status == TransactionStatus.SUCCESS ? "Successfully Transfer the Money" : "Transaction failed ");
+        }
+        return MoneyTransferResponse.builder().message(message).transactionId(transactionId).build();
+    }
+
+    private static void awaitCredit(CompletableFuture<Boolean> first) throws InterruptedException {
+        try {
+            first.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
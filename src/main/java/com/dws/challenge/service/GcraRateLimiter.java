@@ -0,0 +1,152 @@
+package com.dws.challenge.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Token bucket per key in the GCRA form (generic cell rate algorithm): instead of a token count and
+// a refill timestamp each key keeps one number, its theoretical arrival time (TAT). A request at
+// `now` is admitted when TAT - now stays within the burst tolerance and then moves TAT one emission
+// interval (1 / rate) further, with a single CAS; nothing is locked and nothing refills in the
+// background. A key whose TAT is in the past has a full bucket, so once the table reaches maxKeys a
+// new key first sweeps the next few entries (a cursor that walks the table round robin) and drops the
+// idle ones. If there is still no room the key shares one overflow bucket with every other key that
+// did not fit, so a flood of new keys is limited like a single client instead of getting in unchecked.
+// An entry is only dropped after its TAT was CASed to a tombstone, so a request that fetched it just
+// before sees the tombstone and fetches again instead of spending a token nobody else will see.
+public class GcraRateLimiter {
+
+    // entries looked at per sweep, so that no request pays for the whole table
+    private static final int SWEEP_BATCH = 64;
+    // TAT of an entry being dropped
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    // guarded by sweeping
+    private Iterator<Map.Entry<String, AtomicLong>> sweep;
+    // created on first use, like the entries of the table
+    private final AtomicReference<AtomicLong> overflow = new AtomicReference<>();
+
+    // ratePerSecond <= 0 disables the limiter
+    public GcraRateLimiter(double ratePerSecond, int burst, int maxKeys) {
+        this.emissionIntervalNanos = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean isEnabled() {
+        return emissionIntervalNanos > 0;
+    }
+
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    // 0 when admitted, otherwise the nanoseconds until the key can be admitted again
+    public long tryAcquire(String key, long now) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        while (true) {
+            AtomicLong arrival = arrival(key, now);
+            long wait = acquire(arrival, now);
+            if (wait >= 0) {
+                return wait;
+            }
+            // dropped by a sweep meanwhile; help remove it and start over with a fresh entry
+            arrivals.remove(key, arrival);
+        }
+    }
+
+    // Gives back a token taken by tryAcquire, for a request that was refused further on
+    public void refund(String key) {
+        if (!isEnabled()) {
+            return;
+        }
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            arrival = overflow.get();
+        }
+        if (arrival != null) {
+            arrival.getAndUpdate(current -> current == REMOVED ? current : current - emissionIntervalNanos);
+        }
+    }
+
+    public int getTrackedKeys() {
+        return arrivals.size();
+    }
+
+    private AtomicLong arrival(String key, long now) {
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival != null) {
+            return arrival;
+        }
+        if (arrivals.size() >= maxKeys) {
+            sweepIdle(now);
+            if (arrivals.size() >= maxKeys) {
+                return overflow(now);
+            }
+        }
+        return arrivals.computeIfAbsent(key, id -> new AtomicLong(now));
+    }
+
+    // -1 when the entry was dropped
+    private long acquire(AtomicLong arrival, long now) {
+        while (true) {
+            long current = arrival.get();
+            if (current == REMOVED) {
+                return -1;
+            }
+            long start = current - now > 0 ? current : now;
+            long ahead = start - now;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            if (arrival.compareAndSet(current, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong overflow(long now) {
+        AtomicLong shared = overflow.get();
+        if (shared == null) {
+            overflow.compareAndSet(null, new AtomicLong(now));
+            shared = overflow.get();
+        }
+        return shared;
+    }
+
+    // Drops the idle entries among the next SWEEP_BATCH; skipped while another thread is sweeping
+    private void sweepIdle(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int i = 0; i < SWEEP_BATCH; i++) {
+                if (sweep == null || !sweep.hasNext()) {
+                    sweep = arrivals.entrySet().iterator();
+                    if (!sweep.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<String, AtomicLong> entry = sweep.next();
+                AtomicLong arrival = entry.getValue();
+                long current = arrival.get();
+                if (current != REMOVED && current - now <= 0 && arrival.compareAndSet(current, REMOVED)) {
+                    arrivals.remove(entry.getKey(), arrival);
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
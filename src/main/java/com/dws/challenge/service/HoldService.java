@@ -0,0 +1,328 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.HoldStatus;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.HoldNotFoundException;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Authorization holds: a hold reserves an amount on accountFrom (Account.hold raises its held total,
+// so the available balance drops without a scan of the open holds) until it is captured to accountTo,
+// released, or expires. Every state change of a hold runs under the lock of its accountFrom, so
+// capture, release and expiry cannot both win. Expiry deadlines sit in a TimerWheel of hold.tick-ms
+// ticks: placing and closing a hold is O(1) and a tick only touches the holds that expire on it.
+// Holds are kept in memory on the node holding accountFrom and are not journaled; after a restart
+// the reserved money is simply available again.
+@Slf4j
+@Component
+public class HoldService implements MeterBinder {
+
+    private final AccountsService accountsService;
+    private final Clock clock;
+    private final long tickMillis;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final int retainedClosed;
+
+    private final Map<Long, Entry> open = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> closed;
+    // guards the wheel
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final TimerWheel<Entry> wheel;
+    private final AtomicLong ids = new AtomicLong();
+    private ScheduledExecutorService reaper;
+
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public HoldService(AccountsService accountsService, Clock clock, long tickMillis, long defaultTtlSeconds) {
+        this(accountsService, clock, tickMillis, defaultTtlSeconds, 30L * 24 * 3600, 100_000);
+    }
+
+    @Autowired
+    public HoldService(AccountsService accountsService,
+                       @Value("${hold.tick-ms:1000}") long tickMillis,
+                       @Value("${hold.default-ttl-seconds:604800}") long defaultTtlSeconds,
+                       @Value("${hold.max-ttl-seconds:2592000}") long maxTtlSeconds,
+                       @Value("${hold.retained-closed:100000}") int retainedClosed) {
+        this(accountsService, Clock.systemUTC(), tickMillis, defaultTtlSeconds, maxTtlSeconds, retainedClosed);
+    }
+
+    private HoldService(AccountsService accountsService, Clock clock, long tickMillis, long defaultTtlSeconds,
+                        long maxTtlSeconds, int retainedClosed) {
+        this.accountsService = accountsService;
+        this.clock = clock;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.retainedClosed = retainedClosed;
+        this.closed = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Hold> eldest) {
+                return size() > HoldService.this.retainedClosed;
+            }
+        });
+        this.wheel = new TimerWheel<>(clock.millis() / this.tickMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        reaper = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("hold-expiry-", false));
+        reaper.scheduleWithFixedDelay(() -> {
+            try {
+                expireDue();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.error("Hold expiry failed", ex);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public Hold place(HoldRequest request) throws InterruptedException {
+        if (!accountsService.supportsHolds()) {
+            throw new BadRequestExceptionClass("Holds need transfer.engine=locking and an on-heap account store!");
+        }
+        accountsService.validateTransferRequest(new MoneyTransferRequest(request.getAccountFrom(), request.getAccountTo(),
+                request.getAmount()));
+        long ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new BadRequestExceptionClass("Hold ttl should be between 1 and " + maxTtlSeconds + " seconds!");
+        }
+        Account fromAccount = accountsService.getAccount(request.getAccountFrom());
+        if (fromAccount == null) {
+            throw new AccountIdNotFoundException("Invalid fromAccount :: " + request.getAccountFrom());
+        }
+        if (accountsService.getAccount(request.getAccountTo()) == null) {
+            throw new AccountIdNotFoundException("Invalid toAccount :: " + request.getAccountTo());
+        }
+        if (!accountsService.placeHold(fromAccount, request.getAmount())) {
+            throw new InsufficientAmountInAccountException("Insufficient amount in from account balance");
+        }
+        Instant expiresAt = clock.instant().plusSeconds(ttlSeconds);
+        Entry entry = new Entry(ids.incrementAndGet(), request.getAccountFrom(), request.getAccountTo(),
+                request.getAmount(), expiresAt);
+        open.put(entry.holdId, entry);
+        wheelLock.lock();
+        try {
+            entry.timer = wheel.schedule(Math.floorDiv(expiresAt.toEpochMilli() + tickMillis - 1, tickMillis), entry);
+        } finally {
+            wheelLock.unlock();
+        }
+        placed.increment();
+        return entry.view();
+    }
+
+    // Captures amount (the whole hold when null) to accountTo; the rest of the hold is given back
+    public Hold capture(long holdId, BigDecimal amount) throws InterruptedException {
+        Entry entry = openEntry(holdId);
+        BigDecimal capturedAmount = amount != null ? amount : entry.amount;
+        if (capturedAmount.signum() <= 0 || capturedAmount.compareTo(entry.amount) > 0) {
+            throw new BadRequestExceptionClass("Captured amount should be greater than zero and at most " + entry.amount + "!");
+        }
+        Account fromAccount = account(entry.accountFrom);
+        Account toAccount = account(entry.accountTo);
+        MoneyTransferResponse response = accountsService.captureHold(fromAccount, toAccount, entry.amount, capturedAmount,
+                () -> entry.close(HoldStatus.CAPTURED, capturedAmount));
+        if (response == null) {
+            throw alreadyClosed(entry);
+        }
+        entry.transactionId = response.getTransactionId();
+        captured.increment();
+        return finish(entry);
+    }
+
+    public Hold release(long holdId) throws InterruptedException {
+        Entry entry = openEntry(holdId);
+        if (!accountsService.releaseHold(account(entry.accountFrom), entry.amount, () -> entry.close(HoldStatus.RELEASED, null))) {
+            throw alreadyClosed(entry);
+        }
+        released.increment();
+        return finish(entry);
+    }
+
+    public Hold getHold(long holdId) {
+        Entry entry = open.get(holdId);
+        Hold hold = entry != null ? entry.view() : closed.get(holdId);
+        if (hold == null) {
+            throw new HoldNotFoundException("Hold " + holdId + " not found!");
+        }
+        return hold;
+    }
+
+    // One step of the reaper (tests call it with their own clock); returns the number of holds expired
+    public int expireDue() throws InterruptedException {
+        List<Entry> due = new ArrayList<>();
+        wheelLock.lock();
+        try {
+            wheel.advance(clock.millis() / tickMillis, due::add);
+        } finally {
+            wheelLock.unlock();
+        }
+        int count = 0;
+        for (Entry entry : due) {
+            try {
+                Account fromAccount = accountsService.getAccount(entry.accountFrom);
+                boolean closedNow = fromAccount != null
+                        ? accountsService.releaseHold(fromAccount, entry.amount, () -> entry.close(HoldStatus.EXPIRED, null))
+                        : entry.close(HoldStatus.EXPIRED, null);
+                if (closedNow) {
+                    expired.increment();
+                    finish(entry);
+                    count++;
+                }
+            } catch (RuntimeException ex) {
+                // e.g. the account lock timed out: try again on the next tick
+                log.warn("Could not expire hold {}, retrying", entry.holdId, ex);
+                wheelLock.lock();
+                try {
+                    entry.timer = wheel.schedule(wheel.getCurrentTick() + 1, entry);
+                } finally {
+                    wheelLock.unlock();
+                }
+            }
+        }
+        return count;
+    }
+
+    public int getOpenCount() {
+        return open.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("holds.open", this, HoldService::getOpenCount).register(registry);
+        FunctionCounter.builder("holds.placed", placed, LongAdder::sum).register(registry);
+        FunctionCounter.builder("holds.captured", captured, LongAdder::sum).register(registry);
+        FunctionCounter.builder("holds.released", released, LongAdder::sum).register(registry);
+        FunctionCounter.builder("holds.expired", expired, LongAdder::sum).register(registry);
+    }
+
+    private Entry openEntry(long holdId) {
+        Entry entry = open.get(holdId);
+        if (entry == null) {
+            Hold hold = closed.get(holdId);
+            if (hold == null) {
+                throw new HoldNotFoundException("Hold " + holdId + " not found!");
+            }
+            throw new BadRequestExceptionClass("Hold " + holdId + " is already " + hold.getStatus());
+        }
+        return entry;
+    }
+
+    private Account account(String accountId) {
+        Account account = accountsService.getAccount(accountId);
+        if (account == null) {
+            throw new AccountIdNotFoundException("Invalid account :: " + accountId);
+        }
+        return account;
+    }
+
+    private BadRequestExceptionClass alreadyClosed(Entry entry) {
+        return new BadRequestExceptionClass("Hold " + entry.holdId + " is already " + entry.status);
+    }
+
+    // Moves a hold that was just closed to the closed table and drops its expiry
+    private Hold finish(Entry entry) {
+        Hold hold = entry.view();
+        closed.put(entry.holdId, hold);
+        open.remove(entry.holdId);
+        wheelLock.lock();
+        try {
+            if (entry.timer != null) {
+                wheel.cancel(entry.timer);
+                entry.timer = null;
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+        return hold;
+    }
+
+    private static final class Entry {
+
+        final long holdId;
+        final String accountFrom;
+        final String accountTo;
+        final BigDecimal amount;
+        final Instant expiresAt;
+        // changed only under the lock of accountFrom, read anywhere
+        volatile HoldStatus status = HoldStatus.HELD;
+        volatile BigDecimal capturedAmount;
+        volatile Long transactionId;
+        // guarded by wheelLock
+        TimerWheel.Timer<Entry> timer;
+
+        Entry(long holdId, String accountFrom, String accountTo, BigDecimal amount, Instant expiresAt) {
+            this.holdId = holdId;
+            this.accountFrom = accountFrom;
+            this.accountTo = accountTo;
+            this.amount = amount;
+            this.expiresAt = expiresAt;
+        }
+
+        // Runs under the lock of accountFrom; true for the one caller that closes the hold
+        boolean close(HoldStatus to, BigDecimal captured) {
+            if (status != HoldStatus.HELD) {
+                return false;
+            }
+            capturedAmount = captured;
+            status = to;
+            return true;
+        }
+
+        Hold view() {
+            return Hold.builder()
+                    .holdId(holdId)
+                    .accountFrom(accountFrom)
+                    .accountTo(accountTo)
+                    .amount(amount)
+                    .status(status)
+                    .expiresAt(expiresAt)
+                    .capturedAmount(capturedAmount)
+                    .transactionId(transactionId)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.IdempotencyKeyReuseException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers the outcome of transfers sent with an Idempotency-Key, so a client retry returns the
+// first result instead of moving the money again. Duplicates that arrive while the first request
+// is still running wait on its future. Entries expire ttl after completion and the oldest entries
+// are evicted once maxEntries is exceeded; both happen lazily on insert, there is no sweeper thread.
+// A running entry is never evicted, a retry has to find it: the cache may exceed maxEntries by the
+// number of transfers in flight.
+// Failed executions (exceptions) are not remembered, so a retry after e.g. a lock timeout runs again.
+@Slf4j
+@Component
+public class IdempotencyCache implements MeterBinder {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @FunctionalInterface
+    public interface Transfer {
+        MoneyTransferResponse execute() throws ExecutionException, InterruptedException;
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // insertion order for size based eviction; may hold entries already dropped from the map
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Standalone wiring (tests, benchmarks)
+    public IdempotencyCache() {
+        this(100_000, 3600);
+    }
+
+    @Autowired
+    public IdempotencyCache(@Value("${idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${idempotency.ttl-seconds:3600}") long ttlSeconds) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("idempotency.max-entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public MoneyTransferResponse execute(String key, MoneyTransferRequest request, Transfer transfer) throws ExecutionException, InterruptedException {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestExceptionClass("Idempotency-Key should be 1 to " + MAX_KEY_LENGTH + " characters!");
+        }
+        Entry fresh = new Entry(key, request);
+        for (;;) {
+            long now = System.nanoTime();
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                misses.increment();
+                insertionOrder.add(fresh);
+                running.incrementAndGet();
+                evict(now);
+                return run(fresh, transfer);
+            }
+            if (existing.isExpired(now, ttlNanos)) {
+                if (entries.remove(key, existing)) {
+                    evictions.increment();
+                }
+                continue;
+            }
+            if (!existing.request.equals(request)) {
+                throw new IdempotencyKeyReuseException("Idempotency-Key " + key + " was already used for a different transfer");
+            }
+            hits.increment();
+            log.debug("Replaying result of Idempotency-Key {}", key);
+            return await(existing);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("idempotency.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("idempotency.cache.misses", misses, LongAdder::sum).register(registry);
+        FunctionCounter.builder("idempotency.cache.evictions", evictions, LongAdder::sum).register(registry);
+        Gauge.builder("idempotency.cache.size", entries, Map::size).register(registry);
+    }
+
+    public void clear() {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    private MoneyTransferResponse run(Entry entry, Transfer transfer) throws ExecutionException, InterruptedException {
+        try {
+            MoneyTransferResponse response = transfer.execute();
+            entry.completedAt = System.nanoTime();
+            entry.result.complete(response);
+            return response;
+        } catch (Throwable ex) {
+            entries.remove(entry.key, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    // waiters see the same outcome as the first execution, including its exception
+    private MoneyTransferResponse await(Entry entry) throws ExecutionException, InterruptedException {
+        try {
+            return entry.result.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private void evict(long now) {
+        // each running entry is moved back at most once, so the loop ends even if all of them are running
+        int requeued = 0;
+        Entry head;
+        while ((head = insertionOrder.peek()) != null) {
+            boolean stale = entries.get(head.key) != head;
+            if (!stale && entries.size() <= maxEntries && !head.isExpired(now, ttlNanos)) {
+                return;
+            }
+            if (!stale && !head.result.isDone()) {
+                if (requeued++ >= running.get()) {
+                    return;
+                }
+                if (insertionOrder.remove(head)) {
+                    insertionOrder.add(head);
+                }
+                continue;
+            }
+            // remove(Object) lets exactly one of several racing threads claim the head
+            if (insertionOrder.remove(head) && entries.remove(head.key, head)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final MoneyTransferRequest request;
+        final CompletableFuture<MoneyTransferResponse> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        Entry(String key, MoneyTransferRequest request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        // in-flight entries never expire, the ttl runs from completion
+        boolean isExpired(long now, long ttlNanos) {
+            return result.isDone() && now - completedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.BalanceStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Alternative to the account locks (transfer.engine=sharded): accounts are partitioned by id hash
+// into N shards and each shard's balances are only ever written by that shard's writer thread,
+// which drains a lock-free multi-producer inbox. A transfer is a DEBIT on the source shard followed,
+// once the debit succeeded, by a CREDIT on the destination shard (in place when both are the same
+// shard). Credits cannot fail and inbox messages are never dropped; on shutdown every inbox is
+// drained, so a debited transfer is always credited. Futures are completed on a separate executor,
+// so caller continuations (journal, ledger, notifications) never run on a writer thread.
+@Slf4j
+@Component
+public class ShardedTransferEngine {
+
+    public static final String LOCKING = "locking";
+    public static final String SHARDED = "sharded";
+
+    private final AccountsRepository accountsRepository;
+    // the account store when it keeps the balances itself, null otherwise
+    private final BalanceStore balanceStore;
+    private final AccountSnapshotter accountSnapshotter;
+    private final boolean enabled;
+    private final Shard[] shards;
+    private final ExecutorService completions;
+    private volatile boolean running = true;
+
+    public static ShardedTransferEngine disabled() {
+        return new ShardedTransferEngine(null, LOCKING, 0, false);
+    }
+
+    public ShardedTransferEngine(AccountsRepository accountsRepository, String engine, int shardCount, boolean virtualThreads) {
+        this(accountsRepository, AccountSnapshotter.disabled(), engine, shardCount, virtualThreads);
+    }
+
+    @Autowired
+    public ShardedTransferEngine(AccountsRepository accountsRepository, AccountSnapshotter accountSnapshotter,
+                                 @Value("${transfer.engine:locking}") String engine,
+                                 @Value("${transfer.engine.shards:0}") int shardCount,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (!LOCKING.equalsIgnoreCase(engine) && !SHARDED.equalsIgnoreCase(engine)) {
+            throw new IllegalArgumentException("transfer.engine must be locking or sharded, was " + engine);
+        }
+        this.accountsRepository = accountsRepository;
+        this.balanceStore = accountsRepository instanceof BalanceStore ? (BalanceStore) accountsRepository : null;
+        this.accountSnapshotter = accountSnapshotter;
+        this.enabled = SHARDED.equalsIgnoreCase(engine);
+        if (!enabled) {
+            this.shards = new Shard[0];
+            this.completions = null;
+            return;
+        }
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        // writer loops are long running, so they stay platform threads
+        ThreadFactory writers = ThreadFactories.named("transfer-shard-", false);
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+            shards[i].writer = writers.newThread(shards[i]::run);
+        }
+        for (Shard shard : shards) {
+            shard.writer.start();
+        }
+        this.completions = Executors.newCachedThreadPool(ThreadFactories.named("transfer-completion-", virtualThreads));
+        log.info("Sharded transfer engine started with {} shards", count);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Completes with true once both sides are applied, false when the source balance is insufficient.
+    // Both accounts must exist; amount must be positive.
+    public CompletableFuture<Boolean> submit(String accountFrom, String accountTo, BigDecimal amount) {
+        if (!enabled) {
+            throw new IllegalStateException("Sharded transfer engine is disabled (transfer.engine=" + LOCKING + ")");
+        }
+        Shard source = shardOf(accountFrom);
+        source.inFlight.incrementAndGet();
+        if (!running) {
+            source.inFlight.decrementAndGet();
+            throw new IllegalStateException("Sharded transfer engine is shutting down");
+        }
+        Command command = new Command(source, accountFrom, accountTo, amount);
+        source.offer(command);
+        return command.result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.writer);
+        }
+        // writers keep draining until no transfer is in flight anywhere, so pending credits land
+        for (Shard shard : shards) {
+            shard.writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        completions.shutdown();
+        completions.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private Shard shardOf(String accountId) {
+        int hash = accountId.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    private void complete(Command command, Boolean transferred, Throwable failure) {
+        command.source.inFlight.decrementAndGet();
+        try {
+            completions.execute(() -> finish(command, transferred, failure));
+        } catch (RejectedExecutionException ex) {
+            // shutting down: complete in place rather than leave the caller waiting
+            finish(command, transferred, failure);
+        }
+    }
+
+    private static void finish(Command command, Boolean transferred, Throwable failure) {
+        if (failure != null) {
+            command.result.completeExceptionally(failure);
+        } else {
+            command.result.complete(transferred);
+        }
+    }
+
+    private static final class Command {
+
+        final Shard source;
+        final String accountFrom;
+        final String accountTo;
+        final BigDecimal amount;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // false: debit pending on the source shard, true: credit pending on the destination shard
+        boolean debited;
+
+        Command(Shard source, String accountFrom, String accountTo, BigDecimal amount) {
+            this.source = source;
+            this.accountFrom = accountFrom;
+            this.accountTo = accountTo;
+            this.amount = amount;
+        }
+    }
+
+    private final class Shard {
+
+        final int index;
+        final ConcurrentLinkedQueue<Command> inbox = new ConcurrentLinkedQueue<>();
+        // transfers submitted to this shard and not completed yet, including their pending credit
+        final AtomicLong inFlight = new AtomicLong();
+        Thread writer;
+        volatile boolean parked;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        void offer(Command command) {
+            inbox.offer(command);
+            // Dekker style handshake with run(): either the writer sees the command before parking,
+            // or we see parked == true and wake it up
+            if (parked) {
+                LockSupport.unpark(writer);
+            }
+        }
+
+        void run() {
+            while (true) {
+                Command command = inbox.poll();
+                if (command != null) {
+                    process(command);
+                    continue;
+                }
+                if (!running && quiescent()) {
+                    return;
+                }
+                parked = true;
+                if (inbox.isEmpty()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                parked = false;
+            }
+        }
+
+        void process(Command command) {
+            try {
+                if (command.debited) {
+                    credit(command.accountTo, command.amount);
+                    complete(command, Boolean.TRUE, null);
+                    return;
+                }
+                if (balanceStore != null) {
+                    // the store is already atomic, the shard only serialises the source account
+                    complete(command, balanceStore.transfer(command.accountFrom, command.accountTo, command.amount), null);
+                    return;
+                }
+                Account from = accountsRepository.getAccount(command.accountFrom);
+                if (from.getBalance().compareTo(command.amount) < 0) {
+                    complete(command, Boolean.FALSE, null);
+                    return;
+                }
+                accountSnapshotter.beforeWrite(from);
+                from.setBalance(from.getBalance().subtract(command.amount));
+                accountsRepository.updateAccountDetails(from);
+                command.debited = true;
+                Shard destination = shardOf(command.accountTo);
+                if (destination == this) {
+                    credit(command.accountTo, command.amount);
+                    complete(command, Boolean.TRUE, null);
+                } else {
+                    destination.offer(command);
+                }
+            } catch (RuntimeException ex) {
+                log.error("Shard {} failed to apply transfer {} -> {}", index, command.accountFrom, command.accountTo, ex);
+                complete(command, null, ex);
+            }
+        }
+
+        void credit(String accountId, BigDecimal amount) {
+            Account to = accountsRepository.getAccount(accountId);
+            accountSnapshotter.beforeWrite(to);
+            to.setBalance(to.getBalance().add(amount));
+            accountsRepository.updateAccountDetails(to);
+        }
+
+        // a stopping writer keeps serving credits until no transfer is in flight on any shard
+        boolean quiescent() {
+            for (Shard shard : shards) {
+                if (shard.inFlight.get() != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
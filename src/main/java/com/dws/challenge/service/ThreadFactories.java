@@ -0,0 +1,55 @@
+package com.dws.challenge.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread factories for the internal executors. With spring.threads.virtual.enabled=true and a
+// Java 21 runtime they hand out virtual threads (also what Tomcat then uses for requests);
+// otherwise, or on older runtimes, named daemon platform threads. The project still compiles for
+// Java 17, so the virtual thread builder is looked up reflectively.
+@Slf4j
+public final class ThreadFactories {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    private ThreadFactories() {
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    public static ThreadFactory named(String prefix, boolean virtual) {
+        if (virtual) {
+            ThreadFactory factory = virtualThreads(prefix);
+            if (factory != null) {
+                return factory;
+            }
+            log.warn("Virtual threads need Java 21, {} threads fall back to platform threads", prefix);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Thread.ofVirtual().name(prefix, 1).factory()
+    private static ThreadFactory virtualThreads(String prefix) {
+        if (!virtualThreadsSupported()) {
+            return null;
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            log.warn("Virtual thread builder not available", ex);
+            return null;
+        }
+    }
+}
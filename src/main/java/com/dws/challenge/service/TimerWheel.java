@@ -0,0 +1,160 @@
+package com.dws.challenge.service;
+
+import java.util.function.Consumer;
+
+// Hashed hierarchical timer wheel over tick numbers: 8 levels of 256 slots, enough for any long
+// deadline. An entry is linked into the lowest level whose slot digit is the first one where its
+// deadline differs from the current tick; when the current tick reaches that digit the slot is
+// emptied and its entries drop to a lower level, and a level 0 slot is due when the tick reaches it.
+// Scheduling and cancelling are O(1), an entry moves at most once per level and an empty slot costs
+// nothing, so millions of pending entries only cost their own nodes. Slots are FIFO, so entries due on
+// the same tick fire in the order they were scheduled. Not thread safe: callers lock.
+public final class TimerWheel<T> {
+
+    private static final int LEVELS = 8;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final Timer<T>[] heads;
+    private final Timer<T>[] tails;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long startTick) {
+        this.heads = new Timer[LEVELS * SLOTS];
+        this.tails = new Timer[LEVELS * SLOTS];
+        this.currentTick = startTick;
+    }
+
+    // A deadline that is not after the current tick is moved to the next one, so it fires on the next
+    // advance; the timer keeps the moved deadline, which is what every later re-link goes by
+    public Timer<T> schedule(long deadlineTick, T value) {
+        Timer<T> timer = new Timer<>(Math.max(deadlineTick, currentTick + 1), value);
+        link(timer);
+        size++;
+        return timer;
+    }
+
+    // false when the timer already fired or was cancelled
+    public boolean cancel(Timer<T> timer) {
+        if (timer.slot < 0) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Moves the wheel to tick and hands every entry due by then to expired, tick by tick
+    public int advance(long tick, Consumer<T> expired) {
+        int fired = 0;
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                break;
+            }
+            currentTick++;
+            // highest level first, so an entry can drop through several levels on one tick
+            int top = Math.min(LEVELS - 1, Long.numberOfTrailingZeros(currentTick) / SLOT_BITS);
+            for (int level = top; level > 0; level--) {
+                Timer<T> timer = detach(level * SLOTS + digit(currentTick, level));
+                while (timer != null) {
+                    Timer<T> next = timer.next;
+                    // not before the current tick, which sits on level 0 and is handled below
+                    link(timer);
+                    timer = next;
+                }
+            }
+            Timer<T> timer = detach(digit(currentTick, 0));
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.next = null;
+                size--;
+                fired++;
+                expired.accept(timer.value);
+                timer = next;
+            }
+        }
+        return fired;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void link(Timer<T> timer) {
+        long deadline = timer.deadline;
+        long diff = deadline ^ currentTick;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot = level * SLOTS + digit(deadline, level);
+        timer.slot = slot;
+        timer.prev = tails[slot];
+        timer.next = null;
+        if (timer.prev != null) {
+            timer.prev.next = timer;
+        } else {
+            heads[slot] = timer;
+        }
+        tails[slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            heads[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        } else {
+            tails[timer.slot] = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.slot = -1;
+    }
+
+    // Empties a slot and returns its entries as a chain over next, each marked as no longer linked
+    private Timer<T> detach(int slot) {
+        Timer<T> head = heads[slot];
+        heads[slot] = null;
+        tails[slot] = null;
+        for (Timer<T> timer = head; timer != null; timer = timer.next) {
+            timer.slot = -1;
+            timer.prev = null;
+        }
+        return head;
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+    }
+
+    public static final class Timer<T> {
+
+        private final long deadline;
+        private final T value;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int slot = -1;
+
+        private Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
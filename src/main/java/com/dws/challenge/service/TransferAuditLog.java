@@ -0,0 +1,26 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+
+// Audit channel: one key=value line per executed transfer on the "audit.transfers" logger,
+// which logback-spring.xml routes to its own buffered, asynchronous file appender (not stdout).
+// The level check comes first, so nothing is formatted or boxed when the channel is off.
+public final class TransferAuditLog {
+
+    public static final String LOGGER_NAME = "audit.transfers";
+
+    private static final Logger AUDIT = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private TransferAuditLog() {
+    }
+
+    public static void transfer(long transactionId, String accountFrom, String accountTo, BigDecimal amount, TransactionStatus status) {
+        if (AUDIT.isInfoEnabled()) {
+            AUDIT.info("transfer id={} from={} to={} amount={} status={}", transactionId, accountFrom, accountTo, amount, status);
+        }
+    }
+}
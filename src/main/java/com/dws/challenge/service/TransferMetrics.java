@@ -0,0 +1,123 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.repository.AccountsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Timers for the transfer hot path. Every meter is registered up front, so recording is a
+// System.nanoTime() and a Timer.record(long, TimeUnit): no tag arrays, lambdas or boxing per call.
+// Callers chain phases: long t = start(); ... t = record(Phase.VALIDATE, t); ... record(Phase.LOOKUP, t).
+@Component
+public class TransferMetrics {
+
+    public enum Phase {
+        VALIDATE("transfer.phase", "validate"),
+        LOOKUP("transfer.phase", "lookup"),
+        APPLY("transfer.phase", "apply"),
+        JOURNAL("transfer.phase", "journal"),
+        LEDGER("transfer.phase", "ledger"),
+        NOTIFY("transfer.phase", "notify"),
+        LOCK_WAIT("account.lock.wait", null),
+        LOCK_HOLD("account.lock.hold", null);
+
+        private final String meterName;
+        private final String tag;
+
+        Phase(String meterName, String tag) {
+            this.meterName = meterName;
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_FUNDS, ERROR
+    }
+
+    private final boolean enabled;
+    private final MeterRegistry registry;
+    private final Timer[] phases = new Timer[Phase.values().length];
+    private final Timer[] transfers = new Timer[Outcome.values().length];
+    private final Map<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TransferMetrics(MeterRegistry registry, AccountsRepository accountsRepository) {
+        this(registry, accountsRepository, true);
+    }
+
+    private TransferMetrics(MeterRegistry registry, AccountsRepository accountsRepository, boolean enabled) {
+        this.enabled = enabled;
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            Timer.Builder builder = histogram(Timer.builder(phase.meterName));
+            if (phase.tag != null) {
+                builder.tag("phase", phase.tag);
+            }
+            phases[phase.ordinal()] = builder.register(registry);
+        }
+        for (Outcome outcome : Outcome.values()) {
+            transfers[outcome.ordinal()] = histogram(Timer.builder("transfer.requests"))
+                    .description("fundTransfer latency by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry);
+        }
+        if (accountsRepository != null) {
+            Gauge.builder("accounts.repository.size", accountsRepository, AccountsRepository::getAccountCount)
+                    .description("Accounts held by the account store")
+                    .register(registry);
+        }
+    }
+
+    // Standalone wiring (tests, benchmarks): nothing is timed, start() and record() return 0
+    public static TransferMetrics disabled() {
+        return new TransferMetrics(new CompositeMeterRegistry(), null, false);
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    // Records the time since startNanos and returns now, the start of the next phase
+    public long record(Phase phase, long startNanos) {
+        if (!enabled) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void transferCompleted(Outcome outcome, long startNanos) {
+        if (enabled) {
+            transfers[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // One counter per exception type answered by MoneyTransferGlobalException
+    public void error(Throwable ex) {
+        Counter counter = errors.get(ex.getClass());
+        if (counter == null) {
+            counter = errors.computeIfAbsent(ex.getClass(), type -> Counter.builder("transfer.errors")
+                    .description("Requests rejected by MoneyTransferGlobalException")
+                    .tag("exception", type.getSimpleName())
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    private static Timer.Builder histogram(Timer.Builder builder) {
+        return builder
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofSeconds(5));
+    }
+}
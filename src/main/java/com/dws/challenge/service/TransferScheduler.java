@@ -0,0 +1,335 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.BatchTransferItemResult;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.ScheduleStatus;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.ScheduledTransferNotFoundException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Future dated transfers (payroll, standing orders). A schedule sits in a TimerWheel keyed by
+// schedule.tick-ms ticks; its deadline is executeAt plus a random jitter of up to schedule.jitter-ms, so
+// schedules booked for the same instant do not all become due on one tick. Every tick the due entries
+// move to a ready queue, and at most schedule.rate-per-second of them (spread evenly over the ticks, 0 =
+// no limit) run through AccountsService.fundTransferBatch in BEST_EFFORT batches of schedule.batch-size:
+// one validation pass and one lock acquisition per batch instead of a request per transfer.
+// Schedules are held in memory on the node that took them; finished ones are kept for lookup up to
+// schedule.retained-completed.
+@Slf4j
+@Component
+public class TransferScheduler implements MeterBinder {
+
+    private final AccountsService accountsService;
+    private final Clock clock;
+    private final long tickMillis;
+    private final long jitterMillis;
+    private final double perTick;
+    private final int batchSize;
+    private final int retainedCompleted;
+
+    // guards everything below
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimerWheel<Entry> wheel;
+    private final ArrayDeque<Entry> ready = new ArrayDeque<>();
+    private final Map<Long, Entry> active = new HashMap<>();
+    private final Map<String, Set<Long>> activeByAccount = new HashMap<>();
+    private final Map<Long, ScheduledTransfer> completed;
+    private double credit;
+
+    private final AtomicLong ids = new AtomicLong();
+    private ScheduledExecutorService ticker;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public TransferScheduler(AccountsService accountsService, Clock clock, long tickMillis, long jitterMillis,
+                             double ratePerSecond, int batchSize) {
+        this(accountsService, clock, tickMillis, jitterMillis, ratePerSecond, batchSize, 100_000);
+    }
+
+    @Autowired
+    public TransferScheduler(AccountsService accountsService,
+                             @Value("${schedule.tick-ms:100}") long tickMillis,
+                             @Value("${schedule.jitter-ms:0}") long jitterMillis,
+                             @Value("${schedule.rate-per-second:0}") double ratePerSecond,
+                             @Value("${schedule.batch-size:1000}") int batchSize,
+                             @Value("${schedule.retained-completed:100000}") int retainedCompleted) {
+        this(accountsService, Clock.systemUTC(), tickMillis, jitterMillis, ratePerSecond, batchSize, retainedCompleted);
+    }
+
+    private TransferScheduler(AccountsService accountsService, Clock clock, long tickMillis, long jitterMillis,
+                              double ratePerSecond, int batchSize, int retainedCompleted) {
+        this.accountsService = accountsService;
+        this.clock = clock;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.perTick = Math.max(0, ratePerSecond) * this.tickMillis / 1000.0;
+        this.batchSize = Math.max(1, Math.min(batchSize, accountsService.getMaxBatchItems()));
+        this.retainedCompleted = retainedCompleted;
+        this.completed = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ScheduledTransfer> eldest) {
+                return size() > TransferScheduler.this.retainedCompleted;
+            }
+        };
+        this.wheel = new TimerWheel<>(clock.millis() / this.tickMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("transfer-scheduler-", false));
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.error("Scheduled transfer tick failed", ex);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public ScheduledTransfer schedule(ScheduledTransferRequest request) {
+        accountsService.validateTransferRequest(new MoneyTransferRequest(request.getAccountFrom(), request.getAccountTo(),
+                request.getTransferAmount()));
+        if (request.getExecuteAt() == null) {
+            throw new BadRequestExceptionClass("Execution time should not be null!");
+        }
+        if (accountsService.getAccount(request.getAccountFrom()) == null) {
+            throw new AccountIdNotFoundException("Invalid fromAccount :: " + request.getAccountFrom());
+        }
+        if (accountsService.getAccount(request.getAccountTo()) == null) {
+            throw new AccountIdNotFoundException("Invalid toAccount :: " + request.getAccountTo());
+        }
+        Entry entry = new Entry(ScheduledTransfer.builder()
+                .scheduleId(ids.incrementAndGet())
+                .accountFrom(request.getAccountFrom())
+                .accountTo(request.getAccountTo())
+                .transferAmount(request.getTransferAmount())
+                .executeAt(request.getExecuteAt())
+                .status(ScheduleStatus.PENDING)
+                .build());
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+        // an execution time already passed runs as if booked for now
+        long executeAt = Math.max(request.getExecuteAt().toEpochMilli(), clock.millis());
+        // rounded up: a schedule never runs before its execution time
+        long deadline = Math.floorDiv(executeAt + jitter + tickMillis - 1, tickMillis);
+        lock.lock();
+        try {
+            entry.timer = wheel.schedule(deadline, entry);
+            active.put(entry.schedule.getScheduleId(), entry);
+            activeByAccount.computeIfAbsent(request.getAccountFrom(), id -> new LinkedHashSet<>()).add(entry.schedule.getScheduleId());
+            return entry.schedule.toBuilder().build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ScheduledTransfer cancel(long scheduleId) {
+        lock.lock();
+        try {
+            Entry entry = active.get(scheduleId);
+            if (entry == null) {
+                ScheduledTransfer done = completed.get(scheduleId);
+                if (done == null) {
+                    throw new ScheduledTransferNotFoundException("Scheduled transfer " + scheduleId + " not found!");
+                }
+                throw new BadRequestExceptionClass("Scheduled transfer " + scheduleId + " is already " + done.getStatus());
+            }
+            if (entry.schedule.getStatus() != ScheduleStatus.PENDING) {
+                throw new BadRequestExceptionClass("Scheduled transfer " + scheduleId + " is already " + entry.schedule.getStatus());
+            }
+            // an entry already in the ready queue is skipped there
+            wheel.cancel(entry.timer);
+            entry.schedule.setStatus(ScheduleStatus.CANCELLED);
+            complete(entry);
+            cancelled.increment();
+            return entry.schedule.toBuilder().build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ScheduledTransfer getSchedule(long scheduleId) {
+        lock.lock();
+        try {
+            Entry entry = active.get(scheduleId);
+            ScheduledTransfer schedule = entry != null ? entry.schedule : completed.get(scheduleId);
+            if (schedule == null) {
+                throw new ScheduledTransferNotFoundException("Scheduled transfer " + scheduleId + " not found!");
+            }
+            return schedule.toBuilder().build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Schedules of one sending account that did not run yet, in booking order
+    public List<ScheduledTransfer> getPendingSchedules(String accountId, int limit) {
+        List<ScheduledTransfer> schedules = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Long scheduleId : activeByAccount.getOrDefault(accountId, Set.of())) {
+                if (schedules.size() >= limit) {
+                    break;
+                }
+                schedules.add(active.get(scheduleId).schedule.toBuilder().build());
+            }
+        } finally {
+            lock.unlock();
+        }
+        return schedules;
+    }
+
+    // One step of the ticker (tests call it with their own clock): collects what became due and runs
+    // what the rate allows. Returns the number of transfers handed to the transfer path.
+    public int tick() throws InterruptedException {
+        List<Entry> claimed = new ArrayList<>();
+        lock.lock();
+        try {
+            wheel.advance(clock.millis() / tickMillis, ready::add);
+            int budget = Integer.MAX_VALUE;
+            if (perTick > 0) {
+                // at most one tick's share carried over, so an idle scheduler does not save up a burst
+                credit = Math.min(credit + perTick, perTick + 1);
+                budget = (int) credit;
+            }
+            while (claimed.size() < budget && !ready.isEmpty()) {
+                Entry entry = ready.poll();
+                if (entry.schedule.getStatus() == ScheduleStatus.PENDING) {
+                    entry.schedule.setStatus(ScheduleStatus.EXECUTING);
+                    claimed.add(entry);
+                }
+            }
+            if (perTick > 0) {
+                credit -= claimed.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            execute(claimed.subList(from, Math.min(claimed.size(), from + batchSize)));
+        }
+        return claimed.size();
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getReadyCount() {
+        lock.lock();
+        try {
+            return ready.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("schedule.pending", this, TransferScheduler::getPendingCount).register(registry);
+        Gauge.builder("schedule.ready", this, TransferScheduler::getReadyCount).register(registry);
+        FunctionCounter.builder("schedule.executed", executed, LongAdder::sum).register(registry);
+        FunctionCounter.builder("schedule.failed", failed, LongAdder::sum).register(registry);
+        FunctionCounter.builder("schedule.cancelled", cancelled, LongAdder::sum).register(registry);
+    }
+
+    private void execute(List<Entry> batch) throws InterruptedException {
+        List<MoneyTransferRequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(entry -> requests.add(new MoneyTransferRequest(entry.schedule.getAccountFrom(),
+                entry.schedule.getAccountTo(), entry.schedule.getTransferAmount())));
+        BatchTransferResponse response;
+        try {
+            response = accountsService.fundTransferBatch(requests, BatchTransferMode.BEST_EFFORT);
+        } catch (RuntimeException ex) {
+            log.warn("Batch of {} scheduled transfers failed", batch.size(), ex);
+            response = null;
+        }
+        Instant now = clock.instant();
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                ScheduledTransfer schedule = batch.get(i).schedule;
+                BatchTransferItemResult result = response != null ? response.getResults().get(i) : null;
+                boolean succeeded = result != null && result.getStatus() == TransactionStatus.SUCCESS;
+                schedule.setStatus(succeeded ? ScheduleStatus.EXECUTED : ScheduleStatus.FAILED);
+                schedule.setTransactionId(result != null ? result.getTransactionId() : null);
+                schedule.setMessage(result != null ? result.getMessage() : "Scheduled transfer could not be executed");
+                schedule.setExecutedAt(now);
+                (succeeded ? executed : failed).increment();
+                complete(batch.get(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // under the lock: moves a schedule from the active tables to the completed ones
+    private void complete(Entry entry) {
+        long scheduleId = entry.schedule.getScheduleId();
+        active.remove(scheduleId);
+        Set<Long> ofAccount = activeByAccount.get(entry.schedule.getAccountFrom());
+        if (ofAccount != null && ofAccount.remove(scheduleId) && ofAccount.isEmpty()) {
+            activeByAccount.remove(entry.schedule.getAccountFrom());
+        }
+        completed.put(scheduleId, entry.schedule);
+    }
+
+    private static final class Entry {
+
+        final ScheduledTransfer schedule;
+        TimerWheel.Timer<Entry> timer;
+
+        Entry(ScheduledTransfer schedule) {
+            this.schedule = schedule;
+        }
+    }
+}
@@ -1,23 +1,55 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportResponse;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.HoldRequest;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferResponse;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.domain.TransactionHistoryResponse;
+import com.dws.challenge.exception.BadRequestExceptionClass;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.service.AccountImporter;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.AdmissionControl;
+import com.dws.challenge.service.ClusterClient;
+import com.dws.challenge.service.ClusterRing;
+import com.dws.challenge.service.ClusterTransferCoordinator;
+import com.dws.challenge.service.HoldService;
+import com.dws.challenge.service.TransferScheduler;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 @RestController
@@ -25,15 +57,50 @@ import java.util.concurrent.ExecutionException;
 @Slf4j
 public class AccountsController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
     private final AccountsService accountsService;
 
+    private final ObjectMapper objectMapper;
+
+    private final ClusterRing clusterRing;
+
+    private final ClusterClient clusterClient;
+
+    private final ClusterTransferCoordinator clusterTransferCoordinator;
+
+    private final AdmissionControl admissionControl;
+
+    private final AccountImporter accountImporter;
+
+    private final TransferScheduler transferScheduler;
+
+    private final HoldService holdService;
+
     @Autowired
-    public AccountsController(AccountsService accountsService) {
+    public AccountsController(AccountsService accountsService, ObjectMapper objectMapper, ClusterRing clusterRing,
+                              ClusterClient clusterClient, ClusterTransferCoordinator clusterTransferCoordinator,
+                              AdmissionControl admissionControl, AccountImporter accountImporter,
+                              TransferScheduler transferScheduler, HoldService holdService) {
         this.accountsService = accountsService;
+        this.objectMapper = objectMapper;
+        this.clusterRing = clusterRing;
+        this.clusterClient = clusterClient;
+        this.clusterTransferCoordinator = clusterTransferCoordinator;
+        this.admissionControl = admissionControl;
+        this.accountImporter = accountImporter;
+        this.transferScheduler = transferScheduler;
+        this.holdService = holdService;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> createAccount(@Valid @RequestBody Account account) {
+    public ResponseEntity<Object> createAccount(@Valid @RequestBody Account account,
+                                                @RequestHeader(name = ClusterClient.FORWARDED_HEADER, required = false) String forwarded) {
+        if (routesAway(account.getAccountId(), forwarded)) {
+            return clusterClient.forward(clusterRing.ownerOf(account.getAccountId()), "POST", "/v1/accounts", account, null);
+        }
         log.info("Creating account {}", account);
 
         try {
@@ -46,23 +113,180 @@ public class AccountsController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    // Bulk import streamed as newline delimited JSON, one Account per line; duplicates are reported per line
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public AccountImportResponse importAccountsNdjson(InputStream body) throws IOException, InterruptedException {
+        log.info("Start the NDJSON account import");
+        return accountImporter.importAccounts(body, AccountImporter.Format.NDJSON);
+    }
+
+    // Same import as CSV lines accountId,balance (an accountId,balance header line is skipped)
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public AccountImportResponse importAccountsCsv(InputStream body) throws IOException, InterruptedException {
+        log.info("Start the CSV account import");
+        return accountImporter.importAccounts(body, AccountImporter.Format.CSV);
+    }
+
     @GetMapping(path = "/{accountId}")
-    public Account getAccount(@PathVariable String accountId) {
+    public ResponseEntity<Object> getAccount(@PathVariable String accountId,
+                                             @RequestHeader(name = ClusterClient.FORWARDED_HEADER, required = false) String forwarded) {
+        if (routesAway(accountId, forwarded)) {
+            return clusterClient.forward(clusterRing.ownerOf(accountId), "GET", "/v1/accounts/" + accountId, null, null);
+        }
         log.info("Retrieving account for id {}", accountId);
-        return this.accountsService.getAccount(accountId);
+        return ResponseEntity.ok(this.accountsService.readAccount(accountId));
+    }
+
+
+    @GetMapping(path = "/transactions/{transactionId}")
+    public Transaction getTransaction(@PathVariable long transactionId) {
+        log.info("Retrieving transaction {}", transactionId);
+        return this.accountsService.getTransaction(transactionId);
+    }
+
+    // Transfer history of one account, newest first; follow nextCursor for older pages
+    @GetMapping(path = "/{accountId}/transactions")
+    public TransactionHistoryResponse getTransactionHistory(@PathVariable String accountId,
+                                                            @RequestParam(required = false) Long cursor,
+                                                            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Retrieving transactions of account {} before {}", accountId, cursor);
+        return this.accountsService.getTransactionHistory(accountId, cursor, limit);
     }
 
+    // Books a transfer to run at executeAt; it runs on this node, so both accounts have to be held here
+    @PostMapping(path = "/schedules", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ScheduledTransfer> scheduleTransfer(@Valid @RequestBody ScheduledTransferRequest scheduledTransferRequest) {
+        log.info("Scheduling transfer from {} to {} at {}", scheduledTransferRequest.getAccountFrom(),
+                scheduledTransferRequest.getAccountTo(), scheduledTransferRequest.getExecuteAt());
+        return new ResponseEntity<>(transferScheduler.schedule(scheduledTransferRequest), HttpStatus.CREATED);
+    }
+
+    @GetMapping(path = "/schedules/{scheduleId}")
+    public ScheduledTransfer getSchedule(@PathVariable long scheduleId) {
+        log.info("Retrieving scheduled transfer {}", scheduleId);
+        return transferScheduler.getSchedule(scheduleId);
+    }
+
+    @DeleteMapping(path = "/schedules/{scheduleId}")
+    public ScheduledTransfer cancelSchedule(@PathVariable long scheduleId) {
+        log.info("Cancelling scheduled transfer {}", scheduleId);
+        return transferScheduler.cancel(scheduleId);
+    }
+
+    // Transfers the account has scheduled that did not run yet, in booking order
+    @GetMapping(path = "/{accountId}/schedules")
+    public List<ScheduledTransfer> getPendingSchedules(@PathVariable String accountId,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        log.info("Retrieving pending scheduled transfers of account {}", accountId);
+        return transferScheduler.getPendingSchedules(accountId, limit);
+    }
+
+    // Reserves amount on accountFrom for accountTo until it is captured, released or expires; both
+    // accounts have to be held on this node
+    @PostMapping(path = "/holds", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Hold> placeHold(@Valid @RequestBody HoldRequest holdRequest) throws InterruptedException {
+        log.info("Placing hold of {} on {} for {}", holdRequest.getAmount(), holdRequest.getAccountFrom(),
+                holdRequest.getAccountTo());
+        return new ResponseEntity<>(holdService.place(holdRequest), HttpStatus.CREATED);
+    }
+
+    @GetMapping(path = "/holds/{holdId}")
+    public Hold getHold(@PathVariable long holdId) {
+        log.info("Retrieving hold {}", holdId);
+        return holdService.getHold(holdId);
+    }
+
+    // Transfers amount (the whole hold when missing) to accountTo and gives the rest back
+    @PostMapping(path = "/holds/{holdId}/capture")
+    public Hold captureHold(@PathVariable long holdId,
+                            @RequestParam(required = false) BigDecimal amount) throws InterruptedException {
+        log.info("Capturing {} of hold {}", amount, holdId);
+        return holdService.capture(holdId, amount);
+    }
+
+    @PostMapping(path = "/holds/{holdId}/release")
+    public Hold releaseHold(@PathVariable long holdId) throws InterruptedException {
+        log.info("Releasing hold {}", holdId);
+        return holdService.release(holdId);
+    }
 
     // Money transfer rest endpoint
     // Method Name : amountTransfer
     // Request Param : MoneyTransferRequest
     // Reponse Body : MoneyTransferResponse
     @PostMapping(path = "/amount-transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public MoneyTransferResponse amountTransfer(@Valid @RequestBody MoneyTransferRequest moneyTransferRequest) throws ExecutionException, InterruptedException {
-        log.info("Start the amount transfer from sender account: {} to reciver account {} ::: transfer amount", moneyTransferRequest.getAccountFrom()
-                , moneyTransferRequest.getAccountTo(), moneyTransferRequest.getTransferAmount());
-        return accountsService.fundTransfer(moneyTransferRequest);
+    public ResponseEntity<Object> amountTransfer(@Valid @RequestBody MoneyTransferRequest moneyTransferRequest,
+                                                 @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                 @RequestHeader(name = ClusterClient.FORWARDED_HEADER, required = false) String forwarded,
+                                                 @RequestHeader(name = CLIENT_ID_HEADER, required = false) String clientId,
+                                                 HttpServletRequest request) throws ExecutionException, InterruptedException {
+        if (log.isDebugEnabled()) {
+            log.debug("Start the amount transfer from sender account: {} to reciver account {} ::: transfer amount {}", moneyTransferRequest.getAccountFrom()
+                    , moneyTransferRequest.getAccountTo(), moneyTransferRequest.getTransferAmount());
+        }
+        // a forwarded request was already counted against its client by the node it came through
+        if (forwarded == null) {
+            admissionControl.checkClient(clientId != null ? clientId : request.getRemoteAddr());
+        }
+        // cluster mode: the node holding the sender runs the transfer, as a saga when the receiver is elsewhere
+        if (routesAway(moneyTransferRequest.getAccountFrom(), forwarded)) {
+            return clusterClient.forward(clusterRing.ownerOf(moneyTransferRequest.getAccountFrom()), "POST",
+                    "/v1/accounts/amount-transfer", moneyTransferRequest, idempotencyKey);
+        }
+        try (AdmissionControl.Permit permit = admissionControl.admit(moneyTransferRequest.getAccountFrom())) {
+            if (clusterRing.isEnabled() && !clusterRing.isLocal(moneyTransferRequest.getAccountTo())) {
+                MoneyTransferResponse response = idempotencyKey == null
+                        ? clusterTransferCoordinator.transfer(moneyTransferRequest)
+                        : accountsService.getIdempotencyCache().execute(idempotencyKey, moneyTransferRequest,
+                        () -> clusterTransferCoordinator.transfer(moneyTransferRequest));
+                return ClusterTransferCoordinator.isPending(response)
+                        ? ResponseEntity.status(HttpStatus.ACCEPTED).body(response) : ResponseEntity.ok(response);
+            }
+            return ResponseEntity.ok(accountsService.fundTransfer(moneyTransferRequest, idempotencyKey));
+        }
     }
 
+    // Batch money transfer: a JSON array of MoneyTransferRequest, results are reported per item
+    @PostMapping(path = "/amount-transfer/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchTransferResponse amountTransferBatch(@RequestBody List<MoneyTransferRequest> moneyTransferRequests,
+                                                     @RequestParam(defaultValue = "BEST_EFFORT") BatchTransferMode mode) throws InterruptedException {
+        log.info("Start the batch amount transfer of {} transfers in {} mode", moneyTransferRequests.size(), mode);
+        return accountsService.fundTransferBatch(moneyTransferRequests, mode);
+    }
 
+    // Same batch as newline delimited JSON, one MoneyTransferRequest per line
+    @PostMapping(path = "/amount-transfer/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchTransferResponse amountTransferBatchNdjson(InputStream body,
+                                                           @RequestParam(defaultValue = "BEST_EFFORT") BatchTransferMode mode) throws IOException, InterruptedException {
+        int maxBatchItems = accountsService.getMaxBatchItems();
+        List<MoneyTransferRequest> moneyTransferRequests = new ArrayList<>();
+        try (MappingIterator<MoneyTransferRequest> lines = objectMapper.readerFor(MoneyTransferRequest.class).readValues(body)) {
+            // hasNextValue and nextValue, unlike hasNext and next, throw parse errors as JsonProcessingException
+            while (lines.hasNextValue()) {
+                // stop reading as soon as the batch is too big rather than buffering the rest of the body
+                if (moneyTransferRequests.size() == maxBatchItems) {
+                    throw new BadRequestExceptionClass("Batch should not contain more than " + maxBatchItems + " transfers!");
+                }
+                moneyTransferRequests.add(lines.nextValue());
+            }
+        } catch (JsonProcessingException ex) {
+            JsonLocation location = ex.getLocation();
+            throw new BadRequestExceptionClass(location == null ? "Malformed transfer: " + ex.getOriginalMessage()
+                    : "Malformed transfer on line " + location.getLineNr() + ": " + ex.getOriginalMessage());
+        }
+        log.info("Start the NDJSON batch amount transfer of {} transfers in {} mode", moneyTransferRequests.size(), mode);
+        return accountsService.fundTransferBatch(moneyTransferRequests, mode);
+    }
+
+    // Several debits and credits with the same total, applied atomically; all accounts have to be held on this node
+    @PostMapping(path = "/amount-transfer/multi-leg", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public MultiLegTransferResponse amountTransferMultiLeg(@Valid @RequestBody MultiLegTransferRequest multiLegTransferRequest) throws InterruptedException {
+        log.info("Start the multi-leg amount transfer");
+        return accountsService.fundMultiLegTransfer(multiLegTransferRequest);
+    }
+
+    // true when another node holds the account and the request did not come from a node already
+    private boolean routesAway(String accountId, String forwarded) {
+        return clusterRing.isEnabled() && forwarded == null && accountId != null && !clusterRing.isLocal(accountId);
+    }
 }
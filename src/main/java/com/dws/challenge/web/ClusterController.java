@@ -0,0 +1,41 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.ClusterLeg;
+import com.dws.challenge.service.ClusterClient;
+import com.dws.challenge.service.ClusterTransferCoordinator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+// Node to node endpoints of cluster mode; not meant to be exposed outside the cluster network
+@RestController
+@Slf4j
+public class ClusterController {
+
+    private final ClusterTransferCoordinator clusterTransferCoordinator;
+
+    @Autowired
+    public ClusterController(ClusterTransferCoordinator clusterTransferCoordinator) {
+        this.clusterTransferCoordinator = clusterTransferCoordinator;
+    }
+
+    // Credit leg of a cross-node transfer; 200 also when the leg was already applied
+    @PostMapping(path = ClusterClient.CREDIT_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> credit(@RequestBody ClusterLeg leg) throws InterruptedException {
+        log.debug("Applying credit leg {} to account {}", leg.getLegId(), leg.getAccountTo());
+        clusterTransferCoordinator.credit(leg);
+        return ResponseEntity.ok().build();
+    }
+
+    // The sender is done with a credit leg; 200 also when it was forgotten before
+    @PostMapping(path = ClusterClient.FORGET_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> forget(@RequestBody ClusterLeg leg) {
+        log.debug("Forgetting credit leg {}", leg.getLegId());
+        clusterTransferCoordinator.forget(leg);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferItemResult;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.AdmissionControl;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.util.List;
+
+// Reactive variant of /v1/accounts. Handlers return Mono/Flux, so the request thread is released
+// while a transfer is queued on the shard writers (transfer.engine=sharded); with the lock based
+// engine the transfer still runs when the Mono is subscribed. The streamed batch keeps at most
+// transfer.stream.max-in-flight transfers submitted and only pulls the next result once the
+// previous event was written, so a slow client slows down submission instead of buffering results.
+@RestController
+@RequestMapping("/v2/accounts")
+@Slf4j
+public class ReactiveAccountsController {
+
+    private final AccountsService accountsService;
+
+    private final AdmissionControl admissionControl;
+
+    private final int maxInFlight;
+
+    @Autowired
+    public ReactiveAccountsController(AccountsService accountsService, AdmissionControl admissionControl,
+                                      @Value("${transfer.stream.max-in-flight:256}") int maxInFlight) {
+        this.accountsService = accountsService;
+        this.admissionControl = admissionControl;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> createAccount(@Valid @RequestBody Account account) {
+        log.info("Creating account {}", account);
+        return Mono.fromRunnable(() -> accountsService.createAccount(account))
+                .thenReturn(new ResponseEntity<>(HttpStatus.CREATED));
+    }
+
+    @GetMapping(path = "/{accountId}")
+    public Mono<Account> getAccount(@PathVariable String accountId) {
+        log.info("Retrieving account for id {}", accountId);
+        return Mono.fromSupplier(() -> accountsService.readAccount(accountId));
+    }
+
+    @PostMapping(path = "/amount-transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<MoneyTransferResponse> amountTransfer(@Valid @RequestBody MoneyTransferRequest moneyTransferRequest,
+                                                      @RequestHeader(name = AccountsController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                      @RequestHeader(name = AccountsController.CLIENT_ID_HEADER, required = false) String clientId,
+                                                      HttpServletRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("Start the reactive amount transfer from sender account: {} to reciver account {} ::: transfer amount {}",
+                    moneyTransferRequest.getAccountFrom(), moneyTransferRequest.getAccountTo(), moneyTransferRequest.getTransferAmount());
+        }
+        // refused before anything is queued; the permit is held until the transfer completes
+        admissionControl.checkClient(clientId != null ? clientId : request.getRemoteAddr());
+        AdmissionControl.Permit permit = admissionControl.admit(moneyTransferRequest.getAccountFrom());
+        if (idempotencyKey != null) {
+            // a retry may wait for the first attempt, keep that off the request thread
+            return Mono.fromCallable(() -> accountsService.fundTransfer(moneyTransferRequest, idempotencyKey))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> permit.close());
+        }
+        return Mono.fromFuture(() -> accountsService.fundTransferAsync(moneyTransferRequest))
+                .doFinally(signal -> permit.close());
+    }
+
+    // Batch money transfer streamed back as server-sent events, one per item in request order
+    @PostMapping(path = "/amount-transfer/stream", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BatchTransferItemResult>> amountTransferStream(@RequestBody List<MoneyTransferRequest> moneyTransferRequests) {
+        if (moneyTransferRequests == null || moneyTransferRequests.isEmpty()) {
+            throw new BadRequestExceptionClass("Batch should contain at least one transfer!");
+        }
+        if (moneyTransferRequests.size() > accountsService.getMaxBatchItems()) {
+            throw new BadRequestExceptionClass("Batch should not contain more than " + accountsService.getMaxBatchItems() + " transfers!");
+        }
+        log.info("Start the streamed amount transfer of {} transfers", moneyTransferRequests.size());
+        return Flux.range(0, moneyTransferRequests.size())
+                .flatMapSequential(index -> Mono.fromFuture(() ->
+                        accountsService.fundTransferItemAsync(index, moneyTransferRequests.get(index))), maxInFlight)
+                .map(result -> ServerSentEvent.builder(result)
+                        .id(String.valueOf(result.getIndex()))
+                        .event(result.getStatus().name())
+                        .build());
+    }
+}
@@ -0,0 +1,102 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportError;
+import com.dws.challenge.domain.AccountImportResponse;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountImporter;
+import com.dws.challenge.service.AccountImporter.Format;
+import com.dws.challenge.service.AccountsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AccountImporterTest {
+
+  private final AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+  private final AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+  private final AccountImporter importer = new AccountImporter(accountsService, 4);
+
+  @AfterEach
+  void stopImporter() throws InterruptedException {
+    importer.stop();
+  }
+
+  @Test
+  void ndjsonLinesAreImportedAndFailuresReportedPerLine() throws Exception {
+    accountsService.createAccount(new Account("Id-2", BigDecimal.ONE));
+    String body = "{\"accountId\":\"Id-1\",\"balance\":10.50}\n"
+      + "\n"
+      + "{\"accountId\":\"Id-2\",\"balance\":1}\n"
+      + "{\"accountId\":\"Id-3\",\"balance\":-1}\n"
+      + "{not json\n"
+      + "{\"accountId\":\"Id-4\",\"balance\":\"7\",\"tags\":{\"segment\":[1,2]}}\n"
+      + "{\"accountId\":\"Id-1\",\"balance\":2}\n";
+
+    AccountImportResponse response = importer.importAccounts(stream(body), Format.NDJSON);
+
+    assertThat(response.getImported()).isEqualTo(2);
+    assertThat(response.getDuplicates()).isEqualTo(2);
+    assertThat(response.getInvalid()).isEqualTo(2);
+    assertThat(response.getErrors()).extracting(AccountImportError::getLine).containsExactly(3L, 4L, 5L, 7L);
+    assertThat(response.getErrors().get(1).getAccountId()).isEqualTo("Id-3");
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("10.50");
+    assertThat(repository.getAccount("Id-4").getBalance()).isEqualByComparingTo("7");
+  }
+
+  @Test
+  void csvWithHeader() throws Exception {
+    AccountImportResponse response = importer.importAccounts(
+      stream("accountId,balance\nC-1,5\n\"C-2\", 6.25\nC-3\nC-4,abc\n"), Format.CSV);
+
+    assertThat(response.getImported()).isEqualTo(2);
+    assertThat(response.getInvalid()).isEqualTo(2);
+    assertThat(repository.getAccount("C-2").getBalance()).isEqualByComparingTo("6.25");
+  }
+
+  @Test
+  void largeUploadIsStreamedAndErrorReportIsBounded() throws Exception {
+    int accounts = 200_000;
+    accountsService.createAccount(new Account("Bulk-0", BigDecimal.ZERO));
+
+    // generated while it is read, the upload never exists in memory as a whole
+    AccountImportResponse response = importer.importAccounts(generated(accounts), Format.CSV);
+
+    assertThat(response.getImported()).isEqualTo(accounts - 1);
+    assertThat(response.getDuplicates()).isEqualTo(1);
+    assertThat(repository.getAccountCount()).isEqualTo(accounts);
+
+    AccountImportResponse again = importer.importAccounts(generated(accounts), Format.CSV);
+    assertThat(again.getDuplicates()).isEqualTo(accounts);
+    assertThat(again.getErrors()).hasSize(1000);
+    assertThat(again.isErrorsTruncated()).isTrue();
+  }
+
+  private static InputStream stream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static InputStream generated(int accounts) {
+    return new SequenceInputStream(new Enumeration<>() {
+      private int next;
+
+      @Override
+      public boolean hasMoreElements() {
+        return next < accounts;
+      }
+
+      @Override
+      public InputStream nextElement() {
+        return stream("Bulk-" + next++ + ",100.00\n");
+      }
+    });
+  }
+}
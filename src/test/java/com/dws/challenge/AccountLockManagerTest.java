@@ -0,0 +1,181 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.AccountLockTimeoutException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class AccountLockManagerTest {
+
+  private static final int HOT_ACCOUNTS = 4;
+  private static final int THREADS = 16;
+  private static final int TRANSFERS_PER_THREAD = 1000;
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal(1_000_000);
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @BeforeEach
+  void resetAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+  }
+
+  @Test
+  void crissCrossTransfersOnHotAccountsDoNotDeadlock() throws Exception {
+    for (int i = 0; i < HOT_ACCOUNTS; i++) {
+      accountsService.createAccount(new Account("Hot-" + i, INITIAL_BALANCE));
+    }
+    long acquisitionsBefore = accountsService.getAccountLockManager().getAcquisitions();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      workers.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+          int from = random.nextInt(HOT_ACCOUNTS);
+          int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+          accountsService.fundTransfer(new MoneyTransferRequest("Hot-" + from, "Hot-" + to, BigDecimal.ONE));
+        }
+        return null;
+      }));
+    }
+
+    assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    });
+    executor.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < HOT_ACCOUNTS; i++) {
+      total = total.add(accountsService.getAccount("Hot-" + i).getBalance());
+    }
+    assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS)));
+    assertThat(accountsService.getAccountLockManager().getAcquisitions() - acquisitionsBefore)
+      .isGreaterThanOrEqualTo(2L * THREADS * TRANSFERS_PER_THREAD);
+  }
+
+  @Test
+  void lockTimeoutGivesUpAfterRetries() throws Exception {
+    AccountLockManager lockManager = new AccountLockManager(20, 2, 1);
+    Account first = new Account("Id-1", BigDecimal.TEN);
+    Account second = new Account("Id-2", BigDecimal.TEN);
+
+    CountDownLatch held = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> {
+      second.getLock().lock();
+      try {
+        held.countDown();
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        second.getLock().unlock();
+      }
+    });
+    holder.start();
+    held.await(5, TimeUnit.SECONDS);
+
+    assertThrows(AccountLockTimeoutException.class, () -> lockManager.lockAll(second, first));
+    assertThat(lockManager.getTimeouts()).isEqualTo(1);
+    assertThat(lockManager.getRetries()).isEqualTo(1);
+    assertThat(lockManager.getContentions()).isEqualTo(2);
+    // the lock taken before the busy one must have been released again
+    assertThat(first.getLock().tryLock()).isTrue();
+    first.getLock().unlock();
+
+    release.countDown();
+    holder.join();
+  }
+
+  @Test
+  void accountsOnOneStripeShareOneLock() throws Exception {
+    AccountLockManager lockManager = new AccountLockManager(0, 1, 0, 1);
+    Account first = new Account("Id-1", BigDecimal.TEN);
+    Account second = new Account("Id-2", BigDecimal.TEN);
+
+    // a second acquisition of the same (non reentrant) stripe would block forever
+    List<Lock> locks = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> lockManager.lockAll(first, second));
+    assertThat(locks).hasSize(1);
+    lockManager.unlockAll(locks);
+  }
+
+  @Test
+  void stripedTransfersKeepBalances() throws Exception {
+    AccountLockManager lockManager = new AccountLockManager(0, 1, 0, 4);
+    AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+    AccountsService stripedService = new AccountsService(repository, (account, description) -> { }, lockManager,
+      TransferJournal.disabled(), new TransactionLedger(1024, 16), new IdempotencyCache(), TransferMetrics.disabled(),
+      ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100);
+    for (int i = 0; i < HOT_ACCOUNTS * 4; i++) {
+      stripedService.createAccount(new Account("Striped-" + i, INITIAL_BALANCE));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      workers.add(executor.submit(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+          int from = random.nextInt(HOT_ACCOUNTS * 4);
+          int to = (from + 1 + random.nextInt(HOT_ACCOUNTS * 4 - 1)) % (HOT_ACCOUNTS * 4);
+          stripedService.fundTransfer(new MoneyTransferRequest("Striped-" + from, "Striped-" + to, BigDecimal.ONE));
+          // optimistic read path, racing the transfers above
+          assertThat(stripedService.readAccount("Striped-" + to).getBalance()).isPositive();
+        }
+        return null;
+      }));
+    }
+    assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    });
+    executor.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < HOT_ACCOUNTS * 4; i++) {
+      total = total.add(stripedService.readAccount("Striped-" + i).getBalance());
+    }
+    assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS * 4)));
+    assertThat(lockManager.getStripeCount()).isEqualTo(4);
+  }
+}
@@ -0,0 +1,168 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountSnapshotFile;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.repository.TransferJournal.SyncMode;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AccountSnapshotterTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void restartLoadsSnapshotAndReplaysOnlyTheJournalTail() throws Exception {
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferJournal journal = openJournal(repository, "transfers.journal");
+    AccountSnapshotter snapshotter = snapshotter(repository, journal);
+    AccountsService accountsService = accountsService(repository, journal, snapshotter);
+    for (int i = 0; i < 100; i++) {
+      accountsService.createAccount(new Account("Id-" + i, new BigDecimal("100.00")));
+    }
+    accountsService.fundTransfer(new MoneyTransferRequest("Id-0", "Id-1", new BigDecimal("40.50")));
+
+    assertThat(snapshotter.snapshot()).isEqualTo(100);
+
+    accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Id-2", new BigDecimal("0.50")));
+    accountsService.createAccount(new Account("Id-new", BigDecimal.ONE));
+    journal.close();
+
+    AccountsRepository recovered = new AccountsRepositoryInMemory();
+    TransferJournal reopened = openJournal(recovered, "transfers.journal");
+    assertThat(reopened.getSnapshotAccounts()).isEqualTo(100);
+    assertThat(reopened.getRecovered()).isEqualTo(2);
+    assertThat(recovered.getAccountCount()).isEqualTo(101);
+    assertThat(recovered.getAccount("Id-0").getBalance()).isEqualByComparingTo("59.50");
+    assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("140.00");
+    assertThat(recovered.getAccount("Id-2").getBalance()).isEqualByComparingTo("100.50");
+    assertThat(recovered.getAccount("Id-new").getBalance()).isEqualByComparingTo("1");
+    reopened.close();
+  }
+
+  @Test
+  void snapshotsTakenDuringTransfersAreConsistent() throws Exception {
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferJournal journal = openJournal(repository, "transfers.journal");
+    AccountSnapshotter snapshotter = snapshotter(repository, journal);
+    AccountsService accountsService = accountsService(repository, journal, snapshotter);
+    int accounts = 50;
+    for (int i = 0; i < accounts; i++) {
+      accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000")));
+    }
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      writers.add(executor.submit(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running.get()) {
+          int from = random.nextInt(accounts);
+          int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+          try {
+            accountsService.fundTransfer(new MoneyTransferRequest("Id-" + from, "Id-" + to, BigDecimal.valueOf(random.nextInt(1, 100))));
+          } catch (InsufficientAmountInAccountException ignored) {
+            // drained account, pick another pair
+          }
+        }
+        return null;
+      }));
+    }
+    for (int i = 0; i < 20; i++) {
+      snapshotter.snapshot();
+      // every snapshot is a consistent cut: no transfer is half applied in it
+      AccountsRepository loaded = new AccountsRepositoryInMemory();
+      AccountSnapshotFile.load(snapshotFile(), loaded, 4);
+      assertThat(total(loaded, accounts)).isEqualByComparingTo("50000");
+    }
+    running.set(false);
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+    journal.close();
+
+    AccountsRepository recovered = new AccountsRepositoryInMemory();
+    openJournal(recovered, "transfers.journal").close();
+    for (int i = 0; i < accounts; i++) {
+      assertThat(recovered.getAccount("Id-" + i).getBalance())
+        .isEqualByComparingTo(repository.getAccount("Id-" + i).getBalance());
+    }
+  }
+
+  @Test
+  void snapshotOfAnotherJournalIsIgnored() throws Exception {
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferJournal journal = openJournal(repository, "transfers.journal");
+    AccountsService accountsService = accountsService(repository, journal, snapshotter(repository, journal));
+    accountsService.createAccount(new Account("Id-1", BigDecimal.TEN));
+    accountsService.getAccountSnapshotter().snapshot();
+    journal.close();
+
+    TransferJournal other = openJournal(new AccountsRepositoryInMemory(), "other.journal");
+    other.recordAccountCreated(new Account("Id-2", BigDecimal.ONE), () -> { });
+    other.close();
+
+    AccountsRepository recovered = new AccountsRepositoryInMemory();
+    TransferJournal reopened = openJournal(recovered, "other.journal");
+    assertThat(reopened.getSnapshotAccounts()).isZero();
+    assertThat(recovered.getAccount("Id-1")).isNull();
+    assertThat(recovered.getAccount("Id-2").getBalance()).isEqualByComparingTo("1");
+    reopened.close();
+  }
+
+  private BigDecimal total(AccountsRepository repository, int accounts) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < accounts; i++) {
+      total = total.add(repository.getAccount("Id-" + i).getBalance());
+    }
+    return total;
+  }
+
+  private TransferJournal openJournal(AccountsRepository repository, String name) throws IOException {
+    TransferJournal journal = new TransferJournal(repository, directory.resolve(name).toString(), true, SyncMode.NONE, 1,
+      true, snapshotFile().toString());
+    journal.open();
+    return journal;
+  }
+
+  private AccountSnapshotter snapshotter(AccountsRepository repository, TransferJournal journal) {
+    return new AccountSnapshotter(repository, journal, true, snapshotFile().toString(), 0);
+  }
+
+  private AccountsService accountsService(AccountsRepository repository, TransferJournal journal, AccountSnapshotter snapshotter) {
+    return new AccountsService(repository, (account, description) -> { }, new AccountLockManager(), journal,
+      new TransactionLedger(1024, 16), new IdempotencyCache(), TransferMetrics.disabled(),
+      ShardedTransferEngine.disabled(), snapshotter, 100);
+  }
+
+  private Path snapshotFile() {
+    return directory.resolve("accounts.snapshot");
+  }
+}
@@ -1,9 +1,11 @@
 package com.dws.challenge;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -11,6 +13,7 @@ import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.service.AccountsService;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
@@ -106,6 +109,88 @@ class AccountsControllerTest {
       .andExpect(
         content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
   }
+
+  @Test
+  void scheduleAndCancelTransfer() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    String created = this.mockMvc.perform(post("/v1/accounts/schedules").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"transferAmount\":10,\"executeAt\":\"2100-01-01T00:00:00Z\"}"))
+      .andExpect(status().isCreated())
+      .andExpect(jsonPath("$.status").value("PENDING"))
+      .andReturn().getResponse().getContentAsString();
+    String scheduleId = created.replaceAll(".*\"scheduleId\":(\\d+).*", "$1");
+
+    this.mockMvc.perform(get("/v1/accounts/Id-1/schedules"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].scheduleId").value(Long.parseLong(scheduleId)));
+    this.mockMvc.perform(delete("/v1/accounts/schedules/" + scheduleId))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.status").value("CANCELLED"));
+    this.mockMvc.perform(get("/v1/accounts/schedules/" + scheduleId))
+      .andExpect(jsonPath("$.status").value("CANCELLED"));
+    this.mockMvc.perform(get("/v1/accounts/schedules/0")).andExpect(status().isNotFound());
+    this.mockMvc.perform(post("/v1/accounts/schedules").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Missing\",\"transferAmount\":10,\"executeAt\":\"2100-01-01T00:00:00Z\"}"))
+      .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void placeCaptureAndReleaseHolds() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    String captured = this.mockMvc.perform(post("/v1/accounts/holds").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":60,\"ttlSeconds\":3600}"))
+      .andExpect(status().isCreated())
+      .andExpect(jsonPath("$.status").value("HELD"))
+      .andReturn().getResponse().getContentAsString().replaceAll(".*\"holdId\":(\\d+).*", "$1");
+    // only 40 is available now
+    this.mockMvc.perform(post("/v1/accounts/holds").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":50}"))
+      .andExpect(status().isBadRequest());
+    String released = this.mockMvc.perform(post("/v1/accounts/holds").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":40}"))
+      .andExpect(status().isCreated())
+      .andReturn().getResponse().getContentAsString().replaceAll(".*\"holdId\":(\\d+).*", "$1");
+
+    this.mockMvc.perform(post("/v1/accounts/holds/" + captured + "/capture").param("amount", "45"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.status").value("CAPTURED"))
+      .andExpect(jsonPath("$.transactionId").isNumber());
+    this.mockMvc.perform(post("/v1/accounts/holds/" + released + "/release"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.status").value("RELEASED"));
+    this.mockMvc.perform(post("/v1/accounts/holds/" + released + "/capture")).andExpect(status().isBadRequest());
+    this.mockMvc.perform(get("/v1/accounts/holds/" + captured))
+      .andExpect(jsonPath("$.capturedAmount").value(45));
+    this.mockMvc.perform(get("/v1/accounts/holds/0")).andExpect(status().isNotFound());
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("55");
+    assertThat(accountsService.getAccount("Id-1").getAvailableBalance()).isEqualByComparingTo("55");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("45");
+  }
+
+  @Test
+  void importAccounts() throws Exception {
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ONE));
+
+    this.mockMvc.perform(post("/v1/accounts/import").contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"accountId\":\"Id-1\",\"balance\":100}\n{\"accountId\":\"Id-2\",\"balance\":100}\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.imported").value(1))
+      .andExpect(jsonPath("$.duplicates").value(1))
+      .andExpect(jsonPath("$.errors[0].line").value(2))
+      .andExpect(jsonPath("$.errors[0].accountId").value("Id-2"));
+
+    this.mockMvc.perform(post("/v1/accounts/import").contentType("text/csv")
+        .content("accountId,balance\nId-3,5.50\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.imported").value(1));
+    assertThat(accountsService.getAccount("Id-3").getBalance()).isEqualByComparingTo("5.50");
+  }
+
   // Positive case : Transfer money from account Id-124 to account Id123
   @Test
   void amountTransferPositive() throws Exception {
@@ -115,8 +200,8 @@ class AccountsControllerTest {
             .content("{\"accountId\":\"Id-124\",\"balance\":1000}")).andExpect(status().isCreated());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-123\",\"accountFrom\":\"Id-124\", \"transferAmount\": 1000}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
   }
 
   @Test
@@ -131,29 +216,29 @@ class AccountsControllerTest {
             .content("{\"accountId\":\"Id-126\",\"balance\":1000}")).andExpect(status().isCreated());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-123\",\"accountFrom\":\"Id-124\", \"transferAmount\": 100}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-123\",\"accountFrom\":\"Id-125\", \"transferAmount\": 200}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-123\",\"accountFrom\":\"Id-126\", \"transferAmount\": 200}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-123\",\"accountFrom\":\"Id-126\", \"transferAmount\": 400}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
 
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-125\",\"accountFrom\":\"Id-124\", \"transferAmount\": 20}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
     this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
             .content("{\"accountTo" + "\":\"Id-126\",\"accountFrom\":\"Id-125\", \"transferAmount\": 40}"))
-            .andExpect(content()
-                    .string("{\"message\":\"Money Transfer Successfully!!!\"}"));
+            .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"))
+            .andExpect(jsonPath("$.transactionId").isNumber());
 
 
    Account account = accountsService.getAccount("Id-123");
@@ -238,4 +323,81 @@ class AccountsControllerTest {
             .andExpect(status().isBadRequest());
   }
 
+  @Test
+  void getTransactionById() throws Exception {
+    this.accountsService.createAccount(new Account("Id-123", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account("Id-124", new BigDecimal(1000)));
+    Long transactionId = this.accountsService
+      .fundTransfer(new MoneyTransferRequest("Id-124", "Id-123", new BigDecimal("12.50"))).getTransactionId();
+
+    this.mockMvc.perform(get("/v1/accounts/transactions/" + transactionId))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.transactionId").value(transactionId))
+      .andExpect(jsonPath("$.accountFrom").value("Id-124"))
+      .andExpect(jsonPath("$.accountTo").value("Id-123"))
+      .andExpect(jsonPath("$.amount").value(12.50))
+      .andExpect(jsonPath("$.status").value("SUCCESS"));
+  }
+
+  @Test
+  void getTransactionUnknownId() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/transactions/" + Long.MAX_VALUE))
+      .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getTransactionHistoryPages() throws Exception {
+    // the ledger outlives clearAccounts(), so use ids no other test has transferred on
+    String prefix = "Hist-" + System.nanoTime();
+    this.accountsService.createAccount(new Account(prefix + "-1", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account(prefix + "-2", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account(prefix + "-3", new BigDecimal(1000)));
+    Long first = this.accountsService
+      .fundTransfer(new MoneyTransferRequest(prefix + "-2", prefix + "-1", BigDecimal.ONE)).getTransactionId();
+    this.accountsService.fundTransfer(new MoneyTransferRequest(prefix + "-2", prefix + "-3", BigDecimal.ONE));
+    Long third = this.accountsService
+      .fundTransfer(new MoneyTransferRequest(prefix + "-1", prefix + "-2", BigDecimal.TEN)).getTransactionId();
+
+    this.mockMvc.perform(get("/v1/accounts/" + prefix + "-1/transactions?limit=1"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.transactions.length()").value(1))
+      .andExpect(jsonPath("$.transactions[0].transactionId").value(third))
+      .andExpect(jsonPath("$.nextCursor").value(third));
+
+    this.mockMvc.perform(get("/v1/accounts/" + prefix + "-1/transactions?limit=1&cursor=" + third))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.transactions[0].transactionId").value(first))
+      .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void getTransactionHistoryUnknownAccount() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/Id-999/transactions"))
+      .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void amountTransferRetryWithIdempotencyKey() throws Exception {
+    String key = "retry-" + System.nanoTime();
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-123\",\"balance\":1000}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-124\",\"balance\":1000}")).andExpect(status().isCreated());
+
+    String transfer = "{\"accountTo\":\"Id-123\",\"accountFrom\":\"Id-124\", \"transferAmount\": 100}";
+    String first = this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+        .header("Idempotency-Key", key).content(transfer))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+        .header("Idempotency-Key", key).content(transfer))
+      .andExpect(status().isOk())
+      .andExpect(content().json(first));
+    assertThat(accountsService.getAccount("Id-124").getBalance()).isEqualByComparingTo("900");
+
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+        .header("Idempotency-Key", key)
+        .content("{\"accountTo\":\"Id-123\",\"accountFrom\":\"Id-124\", \"transferAmount\": 200}"))
+      .andExpect(status().isUnprocessableEntity());
+  }
 }
@@ -0,0 +1,113 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountsRepositoryAtomic;
+import com.dws.challenge.service.AccountsService;
+import org.junit.jupiter.api.Test;
+
+class AccountsRepositoryAtomicTest {
+
+  private final AccountsRepositoryAtomic repository = new AccountsRepositoryAtomic();
+
+  @Test
+  void transferMovesMinorUnits() {
+    repository.createAccount(new Account("Id-1", new BigDecimal("100.50")));
+    repository.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    assertThat(repository.transfer("Id-1", "Id-2", new BigDecimal("100.50"))).isTrue();
+    assertThat(repository.transfer("Id-1", "Id-2", new BigDecimal("0.01"))).isFalse();
+
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("0");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("100.50");
+  }
+
+  @Test
+  void serviceChecksAccountsAgainstTheCells() throws Exception {
+    AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+    repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+    repository.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    assertThrows(AccountIdNotFoundException.class,
+      () -> accountsService.fundTransfer(new MoneyTransferRequest("Missing", "Id-2", BigDecimal.ONE)));
+    assertThrows(AccountIdNotFoundException.class,
+      () -> accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Missing", BigDecimal.ONE)));
+    assertThrows(InsufficientAmountInAccountException.class,
+      () -> accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Id-2", new BigDecimal("10.01"))));
+    assertThat(accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Id-2", new BigDecimal("10"))).getTransactionId()).isPositive();
+
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("0");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("10");
+  }
+
+  @Test
+  void creditThatWouldOverflowIsRefused() {
+    BigDecimal largest = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+    repository.createAccount(new Account("Id-1", BigDecimal.ONE));
+    repository.createAccount(new Account("Id-2", largest));
+
+    assertThrows(BadRequestExceptionClass.class, () -> repository.transfer("Id-1", "Id-2", new BigDecimal("0.01")));
+
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("1");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo(largest);
+  }
+
+  @Test
+  void rejectsFractionsOfACent() {
+    assertThrows(BadRequestExceptionClass.class,
+      () -> repository.createAccount(new Account("Id-1", new BigDecimal("1.001"))));
+  }
+
+  @Test
+  void concurrentTransfersNeverOverdraftOrLoseMoney() throws Exception {
+    int accounts = 8;
+    for (int i = 0; i < accounts; i++) {
+      repository.createAccount(new Account("Id-" + i, new BigDecimal(100)));
+    }
+    AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      workers.add(executor.submit(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) {
+          int from = random.nextInt(accounts);
+          int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+          try {
+            accountsService.fundTransfer(new MoneyTransferRequest("Id-" + from, "Id-" + to, new BigDecimal("7.25")));
+          } catch (RuntimeException insufficient) {
+            // validation can reject a drained account, that is expected here
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    executor.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < accounts; i++) {
+      BigDecimal balance = repository.getAccount("Id-" + i).getBalance();
+      assertThat(balance).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+      total = total.add(balance);
+    }
+    assertThat(total).isEqualByComparingTo(new BigDecimal(100 * accounts));
+  }
+}
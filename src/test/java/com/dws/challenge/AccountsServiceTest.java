@@ -4,8 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.service.AccountsService;
 import org.junit.jupiter.api.Test;
@@ -43,4 +48,61 @@ class AccountsServiceTest {
       assertThat(ex.getMessage()).isEqualTo("Account id " + uniqueId + " already exists!");
     }
   }
+
+  @Test
+  void readAccountIsADetachedVersionedCopy() throws Exception {
+    String uniqueId = "Id-" + System.nanoTime();
+    this.accountsService.createAccount(new Account(uniqueId + "-a", new BigDecimal(100)));
+    this.accountsService.createAccount(new Account(uniqueId + "-b", BigDecimal.ZERO));
+
+    Account before = this.accountsService.readAccount(uniqueId + "-a");
+    this.accountsService.fundTransfer(new MoneyTransferRequest(uniqueId + "-a", uniqueId + "-b", BigDecimal.TEN));
+    Account after = this.accountsService.readAccount(uniqueId + "-a");
+
+    assertThat(before).isNotSameAs(this.accountsService.getAccount(uniqueId + "-a"));
+    assertThat(before.getBalance()).isEqualByComparingTo("100");
+    assertThat(after.getBalance()).isEqualByComparingTo("90");
+    assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+  }
+
+  @Test
+  void readsNeverGoBackInTimeWhileTransfersRun() throws Exception {
+    String uniqueId = "Id-" + System.nanoTime();
+    this.accountsService.createAccount(new Account(uniqueId + "-a", new BigDecimal(1_000_000)));
+    this.accountsService.createAccount(new Account(uniqueId + "-b", BigDecimal.ZERO));
+
+    AtomicBoolean writing = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<?> writer = executor.submit(() -> {
+      try {
+        for (int i = 0; i < 20_000; i++) {
+          this.accountsService.fundTransfer(new MoneyTransferRequest(uniqueId + "-a", uniqueId + "-b", BigDecimal.ONE));
+        }
+      } finally {
+        writing.set(false);
+      }
+      return null;
+    });
+    Future<?> reader = executor.submit(() -> {
+      long lastVersion = -1;
+      BigDecimal lastBalance = null;
+      while (writing.get()) {
+        Account account = this.accountsService.readAccount(uniqueId + "-b");
+        // the credited account only grows, one version per credit
+        assertThat(account.getVersion()).isGreaterThanOrEqualTo(lastVersion);
+        if (lastBalance != null) {
+          assertThat(account.getBalance()).isGreaterThanOrEqualTo(lastBalance);
+        }
+        assertThat(account.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(account.getVersion()));
+        lastVersion = account.getVersion();
+        lastBalance = account.getBalance();
+      }
+      return null;
+    });
+    writer.get();
+    reader.get();
+    executor.shutdown();
+
+    assertThat(this.accountsService.readAccount(uniqueId + "-b").getBalance()).isEqualByComparingTo("20000");
+  }
 }
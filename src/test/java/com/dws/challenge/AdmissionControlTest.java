@@ -0,0 +1,121 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.exception.TooManyRequestsException;
+import com.dws.challenge.service.AdaptiveConcurrencyLimiter;
+import com.dws.challenge.service.AdmissionControl;
+import com.dws.challenge.service.GcraRateLimiter;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControlTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  void bucketAdmitsTheBurstThenTheRate() {
+    GcraRateLimiter limiter = new GcraRateLimiter(10, 5, 100);
+    long now = 0;
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(limiter.tryAcquire("client", now)).isZero();
+    }
+    long wait = limiter.tryAcquire("client", now);
+
+    assertThat(wait).isEqualTo(SECOND / 10);
+    // other keys have their own bucket
+    assertThat(limiter.tryAcquire("other", now)).isZero();
+    // one emission interval later exactly one more request fits
+    assertThat(limiter.tryAcquire("client", now + wait)).isZero();
+    assertThat(limiter.tryAcquire("client", now + wait)).isPositive();
+    // after a full refill the burst is available again
+    for (int i = 0; i < 5; i++) {
+      assertThat(limiter.tryAcquire("client", now + 2 * SECOND)).isZero();
+    }
+  }
+
+  @Test
+  void idleKeysAreDroppedWhenTheTableIsFull() {
+    GcraRateLimiter limiter = new GcraRateLimiter(10, 1, 2);
+    limiter.tryAcquire("a", 0);
+    limiter.tryAcquire("b", 0);
+
+    assertThat(limiter.tryAcquire("c", SECOND)).isZero();
+    assertThat(limiter.getTrackedKeys()).isEqualTo(1);
+  }
+
+  @Test
+  void keysThatDoNotFitShareOneOverflowBucket() {
+    GcraRateLimiter limiter = new GcraRateLimiter(10, 1, 2);
+    limiter.tryAcquire("a", 0);
+    limiter.tryAcquire("b", 0);
+
+    // a and b are still active: c and d are not tracked and share a single bucket
+    assertThat(limiter.tryAcquire("c", 0)).isZero();
+    assertThat(limiter.tryAcquire("d", 0)).isEqualTo(SECOND / 10);
+    assertThat(limiter.getTrackedKeys()).isEqualTo(2);
+    // a refund gives the token back to the bucket it came from
+    limiter.refund("c");
+    assertThat(limiter.tryAcquire("d", 0)).isZero();
+  }
+
+  @Test
+  void concurrencyLimitFollowsLatency() {
+    long target = TimeUnit.MILLISECONDS.toNanos(50);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, target);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(limiter.tryAcquire()).isTrue();
+    }
+    assertThat(limiter.tryAcquire()).isFalse();
+    for (int i = 0; i < 10; i++) {
+      limiter.release(target / 2);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(11);
+
+    long now = System.nanoTime();
+    limiter.tryAcquire();
+    limiter.release(target * 4, now + target);
+    assertThat(limiter.getLimit()).isEqualTo(9);
+    // a second slow response from the same moment is not another signal
+    limiter.tryAcquire();
+    limiter.release(target * 4, now + target);
+    assertThat(limiter.getLimit()).isEqualTo(9);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void rejectsWithTooManyRequests() {
+    AdmissionControl admissionControl = new AdmissionControl(true, 0, 1, 1, 1, 1, 1, 1, 1_000, 100);
+
+    try (AdmissionControl.Permit permit = admissionControl.admit("Id-1")) {
+      // the second transfer from the same account in the same second is over its rate
+      assertThatThrownBy(() -> admissionControl.admit("Id-1"))
+        .isInstanceOf(TooManyRequestsException.class)
+        .hasMessageContaining("Id-1");
+      // and the single concurrency slot is taken
+      assertThatThrownBy(() -> admissionControl.admit("Id-2"))
+        .isInstanceOf(TooManyRequestsException.class)
+        .hasMessageContaining("in progress");
+    }
+    // Id-2 was refused before it ran, so its token was given back
+    try (AdmissionControl.Permit permit = admissionControl.admit("Id-2")) {
+      assertThat(permit).isNotNull();
+    }
+    assertThat(admissionControl.admit("Id-3")).isNotNull();
+  }
+
+  @Test
+  void disabledAdmitsEverything() {
+    AdmissionControl admissionControl = AdmissionControl.disabled();
+
+    for (int i = 0; i < 1_000; i++) {
+      admissionControl.checkClient("client");
+      admissionControl.admit("Id-1");
+    }
+    assertThat(admissionControl.isEnabled()).isFalse();
+  }
+}
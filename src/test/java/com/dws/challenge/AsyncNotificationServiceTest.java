@@ -0,0 +1,108 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.AsyncNotificationService;
+import com.dws.challenge.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncNotificationServiceTest {
+
+  private static final long SINK_DELAY_MS = 200;
+
+  private AsyncNotificationService notificationService;
+
+  @AfterEach
+  void stopWorkers() throws InterruptedException {
+    if (notificationService != null) {
+      notificationService.shutdown();
+    }
+  }
+
+  @Test
+  void transferLatencyDoesNotDependOnSlowSink() throws Exception {
+    AtomicInteger sent = new AtomicInteger();
+    NotificationService slowSink = (account, description) -> {
+      sleep(SINK_DELAY_MS);
+      sent.incrementAndGet();
+    };
+    notificationService = new AsyncNotificationService(slowSink, true, 4, 100, 10, 50, 3, 10, 10);
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(), notificationService);
+    accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal(1000)));
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Id-2", BigDecimal.ONE));
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // a synchronous sink would have needed 10 transfers x 2 notifications x 200 ms
+    assertThat(elapsedMs).isLessThan(SINK_DELAY_MS);
+    awaitUntil(notificationService::getDelivered, 20);
+    assertThat(sent.get()).isEqualTo(20);
+  }
+
+  @Test
+  void failingDeliveriesAreRetriedThenDeadLettered() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    NotificationService flakySink = (account, description) -> {
+      if (account.getAccountId().equals("Id-broken") || calls.incrementAndGet() == 1) {
+        throw new IllegalStateException("smtp down");
+      }
+    };
+    notificationService = new AsyncNotificationService(flakySink, true, 1, 100, 10, 50, 3, 10, 10);
+
+    notificationService.notifyAboutTransfer(new Account("Id-ok"), "recovers on retry");
+    notificationService.notifyAboutTransfer(new Account("Id-broken"), "never recovers");
+
+    awaitUntil(notificationService::getDelivered, 1);
+    awaitUntil(notificationService::getDeadLettered, 1);
+    assertThat(notificationService.getDeadLetters()).singleElement().satisfies(event -> {
+      assertThat(event.getAccount().getAccountId()).isEqualTo("Id-broken");
+      assertThat(event.getAttempts()).isEqualTo(3);
+      assertThat(event.getLastError()).isEqualTo("smtp down");
+    });
+  }
+
+  @Test
+  void fullOutboxDeadLettersInsteadOfBlockingTheCaller() throws Exception {
+    NotificationService stuckSink = (account, description) -> sleep(1_000);
+    notificationService = new AsyncNotificationService(stuckSink, true, 1, 1, 1, 10, 1, 10, 10);
+
+    // one event is taken by the worker, one fills the queue, the rest overflow
+    for (int i = 0; i < 5; i++) {
+      notificationService.notifyAboutTransfer(new Account("Id-" + i), "burst");
+    }
+
+    assertThat(notificationService.getDeadLettered()).isGreaterThanOrEqualTo(3);
+    assertThat(notificationService.getDeadLetters()).allSatisfy(event ->
+      assertThat(event.getLastError()).isEqualTo("outbox full"));
+  }
+
+  private static void awaitUntil(LongSupplier counter, long expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (counter.getAsLong() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(counter.getAsLong()).isEqualTo(expected);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.service.AccountsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class BatchTransferTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @BeforeEach
+  void prepareMockMvc() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+
+    accountsService.getAccountsRepository().clearAccounts();
+    accountsService.createAccount(new Account("Batch-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Batch-2", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Batch-3", new BigDecimal("0")));
+  }
+
+  @Test
+  void bestEffortReportsEveryItem() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-3\",\"transferAmount\":60},"
+          + "{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-3\",\"transferAmount\":60},"
+          + "{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Missing\",\"transferAmount\":1},"
+          + "{\"accountFrom\":\"Batch-3\",\"accountTo\":\"Batch-2\",\"transferAmount\":60}]"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.mode").value("BEST_EFFORT"))
+      .andExpect(jsonPath("$.succeeded").value(2))
+      .andExpect(jsonPath("$.failed").value(2))
+      .andExpect(jsonPath("$.results[0].status").value("SUCCESS"))
+      .andExpect(jsonPath("$.results[0].transactionId").isNumber())
+      .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+      .andExpect(jsonPath("$.results[1].transactionId").isNumber())
+      .andExpect(jsonPath("$.results[2].status").value("FAILED"))
+      .andExpect(jsonPath("$.results[3].status").value("SUCCESS"));
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("40");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("160");
+    assertThat(accountsService.getAccount("Batch-3").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void allOrNothingRollsBackOnUnfundedItem() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch?mode=ALL_OR_NOTHING").contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-2\",\"transferAmount\":50},"
+          + "{\"accountFrom\":\"Batch-3\",\"accountTo\":\"Batch-2\",\"transferAmount\":10}]"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.succeeded").value(0))
+      .andExpect(jsonPath("$.failed").value(2))
+      .andExpect(jsonPath("$.results[1].message").value("Insufficient amount in from account balance"));
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void allOrNothingAppliesWhenEveryItemIsFunded() throws Exception {
+    // Batch-3 is only funded by the first item, so the running balance has to carry over
+    List<MoneyTransferRequest> requests = List.of(
+      new MoneyTransferRequest("Batch-1", "Batch-3", new BigDecimal("30")),
+      new MoneyTransferRequest("Batch-3", "Batch-2", new BigDecimal("30")));
+
+    BatchTransferResponse response = accountsService.fundTransferBatch(requests, BatchTransferMode.ALL_OR_NOTHING);
+
+    assertThat(response.getSucceeded()).isEqualTo(2);
+    assertThat(response.getResults()).extracting("status").containsOnly(TransactionStatus.SUCCESS);
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("70");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("130");
+    assertThat(accountsService.getAccount("Batch-3").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void nettedSettlesOffsettingTransfers() throws Exception {
+    // Batch-3 cannot fund the first item on its own, but nets to +10 over the whole batch
+    List<MoneyTransferRequest> requests = List.of(
+      new MoneyTransferRequest("Batch-3", "Batch-1", new BigDecimal("90")),
+      new MoneyTransferRequest("Batch-1", "Batch-3", new BigDecimal("100")),
+      new MoneyTransferRequest("Batch-1", "Batch-2", new BigDecimal("5")),
+      new MoneyTransferRequest("Batch-2", "Batch-1", new BigDecimal("5")));
+
+    assertThat(accountsService.fundTransferBatch(requests, BatchTransferMode.ALL_OR_NOTHING).getSucceeded()).isZero();
+    BatchTransferResponse response = accountsService.fundTransferBatch(requests, BatchTransferMode.NETTED);
+
+    assertThat(response.getMode()).isEqualTo(BatchTransferMode.NETTED);
+    assertThat(response.getSucceeded()).isEqualTo(4);
+    assertThat(response.getResults()).extracting("transactionId").doesNotContainNull();
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("90");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Batch-3").getBalance()).isEqualByComparingTo("10");
+  }
+
+  @Test
+  void nettedRejectsUncoveredNetPosition() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch?mode=NETTED").contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-3\",\"transferAmount\":10},"
+          + "{\"accountFrom\":\"Batch-3\",\"accountTo\":\"Batch-2\",\"transferAmount\":20}]"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.mode").value("NETTED"))
+      .andExpect(jsonPath("$.succeeded").value(0))
+      .andExpect(jsonPath("$.results[1].message").value("Insufficient amount in from account balance"));
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Batch-3").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void multiLegTransferIsAtomic() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/multi-leg").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"debits\":[{\"accountId\":\"Batch-1\",\"amount\":70},{\"accountId\":\"Batch-2\",\"amount\":30}],"
+          + "\"credits\":[{\"accountId\":\"Batch-3\",\"amount\":95},{\"accountId\":\"Batch-2\",\"amount\":5}]}"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.transactionIds.length()").value(2));
+    // Batch-1 has 30 left
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/multi-leg").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"debits\":[{\"accountId\":\"Batch-3\",\"amount\":10},{\"accountId\":\"Batch-1\",\"amount\":31}],"
+          + "\"credits\":[{\"accountId\":\"Batch-2\",\"amount\":41}]}"))
+      .andExpect(status().isBadRequest());
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("30");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("75");
+    assertThat(accountsService.getAccount("Batch-3").getBalance()).isEqualByComparingTo("95");
+  }
+
+  @Test
+  void ndjsonBatch() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-2\",\"transferAmount\":10}\n"
+          + "{\"accountFrom\":\"Batch-2\",\"accountTo\":\"Batch-1\",\"transferAmount\":5}\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.succeeded").value(2));
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("95");
+    assertThat(accountsService.getAccount("Batch-2").getBalance()).isEqualByComparingTo("105");
+  }
+
+  @Test
+  void malformedNdjsonIsBadRequest() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-2\",\"transferAmount\":10}\n{\"accountFrom\":"))
+      .andExpect(status().isBadRequest());
+    // a line that parses but does not map to a transfer
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-2\",\"transferAmount\":\"ten\"}"))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void emptyAndOversizedBatchesAreRejected() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_JSON)
+      .content("[]")).andExpect(status().isBadRequest());
+
+    List<MoneyTransferRequest> requests = new ArrayList<>();
+    for (int i = 0; i <= 100_000; i++) {
+      requests.add(new MoneyTransferRequest("Batch-1", "Batch-2", BigDecimal.ONE));
+    }
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_JSON)
+      .content(toJson(requests))).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void oversizedNdjsonBatchIsRejected() throws Exception {
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i <= accountsService.getMaxBatchItems(); i++) {
+      ndjson.append("{\"accountFrom\":\"Batch-1\",\"accountTo\":\"Batch-2\",\"transferAmount\":1}\n");
+    }
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer/batch").contentType(MediaType.APPLICATION_NDJSON)
+      .content(ndjson.toString())).andExpect(status().isBadRequest());
+
+    assertThat(accountsService.getAccount("Batch-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  private static String toJson(List<MoneyTransferRequest> requests) {
+    StringBuilder json = new StringBuilder("[");
+    for (MoneyTransferRequest request : requests) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append("{\"accountFrom\":\"").append(request.getAccountFrom())
+        .append("\",\"accountTo\":\"").append(request.getAccountTo())
+        .append("\",\"transferAmount\":").append(request.getTransferAmount()).append('}');
+    }
+    return json.append(']').toString();
+  }
+}
@@ -0,0 +1,123 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ClusterLeg;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.ClusterSagaLog;
+import com.dws.challenge.repository.ClusterSagaLog.Saga;
+import com.dws.challenge.repository.ClusterSagaLog.State;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.repository.TransferJournal.SyncMode;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.ClusterRing;
+import com.dws.challenge.service.ClusterTransferCoordinator;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClusterSagaTest {
+
+  private static final String SELF = "http://localhost:1";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void sagaLogIsCompactedToTheOpenSagas() throws Exception {
+    Path file = directory.resolve("saga.log");
+    ClusterSagaLog sagaLog = new ClusterSagaLog(file.toString(), true);
+    sagaLog.open();
+    Saga pending = sagaLog.record(new Saga("pending", "Id-1", "Id-2", BigDecimal.TEN, State.STARTED), State.DEBITED);
+    assertThat(sagaLog.compactIfGrown()).isFalse();
+
+    for (int i = 0; i < 10_000; i++) {
+      Saga saga = sagaLog.record(new Saga("saga-" + i, "Id-1", "Id-2", BigDecimal.ONE, State.STARTED), State.STARTED);
+      sagaLog.record(saga, State.DONE);
+    }
+    long grown = Files.size(file);
+    assertThat(sagaLog.compactIfGrown()).isTrue();
+    assertThat(Files.size(file)).isLessThan(grown / 1000);
+
+    // still appending to the compacted file
+    sagaLog.record(new Saga("later", "Id-1", "Id-3", BigDecimal.ONE, State.STARTED), State.STARTED);
+    sagaLog.close();
+
+    ClusterSagaLog reopened = new ClusterSagaLog(file.toString(), true);
+    reopened.open();
+    assertThat(reopened.getOpenSagas()).extracting("id").containsOnly(pending.getId(), "later");
+    reopened.close();
+  }
+
+  @Test
+  void appliedCreditsAreRememberedUntilTheSenderForgetsThem() throws Exception {
+    AccountsService accountsService = journaledService();
+    accountsService.createAccount(new Account("Id-1", BigDecimal.ZERO));
+    ClusterRing ring = new ClusterRing(new String[] {SELF}, SELF, 1);
+    ClusterLeg leg = ClusterLeg.builder().legId("saga:credit").accountFrom("Id-9").accountTo("Id-1").amount(BigDecimal.TEN).build();
+    Path file = directory.resolve("saga.log");
+    ClusterSagaLog sagaLog = new ClusterSagaLog(file.toString(), true);
+    sagaLog.open();
+    // crashed before applying this one: a resend has to apply it
+    sagaLog.record(new Saga("lost:credit", "Id-9", "Id-1", BigDecimal.ONE, State.RECEIVING), State.RECEIVING);
+
+    ClusterTransferCoordinator receiver = new ClusterTransferCoordinator(accountsService, ring, null, sagaLog, 60_000);
+    receiver.start();
+    receiver.credit(leg);
+    receiver.credit(leg);
+    receiver.stop();
+    sagaLog.close();
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+
+    // however late the resend comes, also after a restart
+    ClusterSagaLog reopened = new ClusterSagaLog(file.toString(), true);
+    reopened.open();
+    ClusterTransferCoordinator restarted = new ClusterTransferCoordinator(accountsService, ring, null, reopened, 60_000);
+    restarted.start();
+    assertThat(restarted.getRememberedCredits()).isEqualTo(1);
+    assertThat(restarted.getOpenSagas()).isZero();
+    restarted.credit(leg);
+    restarted.credit(ClusterLeg.builder().legId("lost:credit").accountFrom("Id-9").accountTo("Id-1").amount(BigDecimal.ONE).build());
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("11");
+
+    restarted.forget(leg);
+    restarted.forget(leg);
+    assertThat(restarted.getRememberedCredits()).isEqualTo(1);
+    assertThat(reopened.getOpenSagas()).extracting("id").containsOnly("lost:credit");
+    restarted.stop();
+    reopened.close();
+  }
+
+  @Test
+  void clusterModeNeedsTheJournal() {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    ClusterRing ring = new ClusterRing(new String[] {SELF}, SELF, 1);
+
+    assertThatThrownBy(() -> new ClusterTransferCoordinator(accountsService, ring, null, ClusterSagaLog.disabled(), 1000))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("journal.enabled");
+  }
+
+  private AccountsService journaledService() throws IOException {
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferJournal journal = new TransferJournal(repository, directory.resolve("transfers.journal").toString(), true,
+      SyncMode.NONE, 1);
+    journal.open();
+    return new AccountsService(repository, (account, description) -> { }, new AccountLockManager(), journal,
+      new TransactionLedger(1024, 16), new IdempotencyCache(), TransferMetrics.disabled(),
+      ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100);
+  }
+}
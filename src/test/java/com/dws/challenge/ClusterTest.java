@@ -0,0 +1,156 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.ClusterRing;
+import com.dws.challenge.service.ClusterTransferCoordinator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+class ClusterTest {
+
+  @TempDir
+  Path directory;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private String nodeA;
+  private String nodeB;
+  private ConfigurableApplicationContext contextA;
+  private ConfigurableApplicationContext contextB;
+  private ClusterRing ring;
+
+  @BeforeEach
+  void startNodes() throws IOException {
+    int portA = freePort();
+    int portB = freePort();
+    nodeA = "http://localhost:" + portA;
+    nodeB = "http://localhost:" + portB;
+    contextA = start(portA, nodeA);
+    contextB = start(portB, nodeB);
+    ring = contextA.getBean(ClusterRing.class);
+  }
+
+  @AfterEach
+  void stopNodes() {
+    contextA.close();
+    contextB.close();
+  }
+
+  @Test
+  void accountsAreSpreadOverTheNodes() {
+    Map<String, Integer> owned = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      owned.merge(ring.ownerOf("Id-" + i), 1, Integer::sum);
+    }
+
+    assertThat(owned).containsOnlyKeys(nodeA, nodeB);
+    assertThat(owned.get(nodeA)).isBetween(3_500, 6_500);
+    // every node computes the same owner
+    assertThat(contextB.getBean(ClusterRing.class).ownerOf("Id-42")).isEqualTo(ring.ownerOf("Id-42"));
+  }
+
+  @Test
+  void requestsAreForwardedToTheOwningNode() throws Exception {
+    String onB = accountOwnedBy(nodeB);
+
+    HttpResponse<String> created = post(nodeA, "/v1/accounts", "{\"accountId\":\"" + onB + "\",\"balance\":1000}");
+    HttpResponse<String> read = get(nodeA, "/v1/accounts/" + onB);
+
+    assertThat(created.statusCode()).isEqualTo(201);
+    assertThat(service(contextA).getAccount(onB)).isNull();
+    assertThat(service(contextB).getAccount(onB).getBalance()).isEqualByComparingTo("1000");
+    assertThat(read.statusCode()).isEqualTo(200);
+    assertThat(read.body()).contains("\"accountId\":\"" + onB + "\"");
+  }
+
+  @Test
+  void crossNodeTransferMovesTheMoney() throws Exception {
+    String onA = accountOwnedBy(nodeA);
+    String onB = accountOwnedBy(nodeB);
+    post(nodeA, "/v1/accounts", "{\"accountId\":\"" + onA + "\",\"balance\":1000}");
+    post(nodeA, "/v1/accounts", "{\"accountId\":\"" + onB + "\",\"balance\":0}");
+
+    // sent to the node that does not hold the sender, so it is forwarded first
+    HttpResponse<String> response = post(nodeB, "/v1/accounts/amount-transfer",
+      "{\"accountFrom\":\"" + onA + "\",\"accountTo\":\"" + onB + "\",\"transferAmount\":250}");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body()).contains("Money Transfer Successfully!!!");
+    assertThat(service(contextA).getAccount(onA).getBalance()).isEqualByComparingTo("750");
+    assertThat(service(contextB).getAccount(onB).getBalance()).isEqualByComparingTo("250");
+    // the sender told the receiver it is done with the credit leg
+    assertThat(contextA.getBean(ClusterTransferCoordinator.class).getOpenSagas()).isZero();
+    assertThat(contextB.getBean(ClusterTransferCoordinator.class).getRememberedCredits()).isZero();
+  }
+
+  @Test
+  void unknownRemoteAccountIsRefunded() throws Exception {
+    String onA = accountOwnedBy(nodeA);
+    String missingOnB = accountOwnedBy(nodeB);
+    post(nodeA, "/v1/accounts", "{\"accountId\":\"" + onA + "\",\"balance\":1000}");
+
+    HttpResponse<String> response = post(nodeA, "/v1/accounts/amount-transfer",
+      "{\"accountFrom\":\"" + onA + "\",\"accountTo\":\"" + missingOnB + "\",\"transferAmount\":250}");
+
+    assertThat(response.statusCode()).isEqualTo(404);
+    assertThat(service(contextA).getAccount(onA).getBalance()).isEqualByComparingTo("1000");
+  }
+
+  private ConfigurableApplicationContext start(int port, String self) {
+    return new SpringApplicationBuilder(ChallengeApplication.class)
+      .properties(
+        "server.port=" + port,
+        "cluster.nodes=" + nodeA + "," + nodeB,
+        "cluster.self=" + self,
+        "cluster.saga-log.path=" + directory.resolve(port + ".saga"),
+        "journal.enabled=true",
+        "journal.path=" + directory.resolve(port + ".journal"),
+        "logging.level.audit.transfers=OFF")
+      .run();
+  }
+
+  private String accountOwnedBy(String node) {
+    for (int i = 0; ; i++) {
+      if (ring.ownerOf("Id-" + i).equals(node)) {
+        return "Id-" + i;
+      }
+    }
+  }
+
+  private static AccountsService service(ConfigurableApplicationContext context) {
+    return context.getBean(AccountsService.class);
+  }
+
+  private HttpResponse<String> post(String node, String path, String json) throws Exception {
+    return client.send(HttpRequest.newBuilder(URI.create(node + path))
+      .header("Content-Type", "application/json")
+      .POST(HttpRequest.BodyPublishers.ofString(json))
+      .build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpResponse<String> get(String node, String path) throws Exception {
+    return client.send(HttpRequest.newBuilder(URI.create(node + path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Hold;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.HoldStatus;
+import com.dws.challenge.domain.HotAccount;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.HoldNotFoundException;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.HoldService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HoldTest {
+
+  private static final Instant START = Instant.parse("2024-01-31T08:00:00Z");
+  private static final int PAYERS = 4;
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal("10000");
+
+  private VirtualClock clock;
+  private AccountsService accountsService;
+  private HoldService holdService;
+
+  @BeforeEach
+  void setUp() {
+    clock = new VirtualClock(START);
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    for (int i = 0; i < PAYERS; i++) {
+      accountsService.createAccount(new Account("Payer-" + i, INITIAL_BALANCE));
+    }
+    accountsService.createAccount(new Account("Payee", BigDecimal.ZERO));
+    holdService = new HoldService(accountsService, clock, 100, 3600);
+  }
+
+  @Test
+  void holdReservesWithoutMovingMoney() throws Exception {
+    Hold hold = holdService.place(new HoldRequest("Payer-0", "Payee", new BigDecimal("9000"), null));
+    Account payer = accountsService.getAccount("Payer-0");
+
+    assertThat(hold.getStatus()).isEqualTo(HoldStatus.HELD);
+    assertThat(hold.getExpiresAt()).isEqualTo(START.plusSeconds(3600));
+    assertThat(payer.getBalance()).isEqualByComparingTo("10000");
+    assertThat(payer.getAvailableBalance()).isEqualByComparingTo("1000");
+    assertThatThrownBy(() -> accountsService.fundTransfer(new MoneyTransferRequest("Payer-0", "Payee", new BigDecimal("1001"))))
+      .isInstanceOf(InsufficientAmountInAccountException.class);
+    assertThatThrownBy(() -> holdService.place(new HoldRequest("Payer-0", "Payee", new BigDecimal("1001"), null)))
+      .isInstanceOf(InsufficientAmountInAccountException.class);
+    accountsService.fundTransfer(new MoneyTransferRequest("Payer-0", "Payee", new BigDecimal("1000")));
+
+    // capturing less than the hold gives the rest back
+    Hold captured = holdService.capture(hold.getHoldId(), new BigDecimal("6000"));
+    assertThat(captured.getStatus()).isEqualTo(HoldStatus.CAPTURED);
+    assertThat(accountsService.getTransaction(captured.getTransactionId()).getAmount()).isEqualByComparingTo("6000");
+    assertThat(payer.getBalance()).isEqualByComparingTo("3000");
+    assertThat(payer.getHeld()).isEqualByComparingTo("0");
+    assertThat(accountsService.getAccount("Payee").getBalance()).isEqualByComparingTo("7000");
+
+    assertThatThrownBy(() -> holdService.release(hold.getHoldId())).isInstanceOf(BadRequestExceptionClass.class);
+    assertThatThrownBy(() -> holdService.capture(12345, null)).isInstanceOf(HoldNotFoundException.class);
+  }
+
+  @Test
+  void holdExpiresOnItsOwn() throws Exception {
+    Hold hold = holdService.place(new HoldRequest("Payer-0", "Payee", new BigDecimal("400"), 60L));
+    Hold longer = holdService.place(new HoldRequest("Payer-0", "Payee", new BigDecimal("100"), 86_400L));
+    assertThatThrownBy(() -> holdService.place(new HoldRequest("Payer-0", "Payee", BigDecimal.ONE, 0L)))
+      .isInstanceOf(BadRequestExceptionClass.class);
+
+    clock.advance(Duration.ofSeconds(60).minusMillis(1));
+    assertThat(holdService.expireDue()).isZero();
+    clock.advance(Duration.ofMillis(1));
+    assertThat(holdService.expireDue()).isEqualTo(1);
+
+    assertThat(holdService.getHold(hold.getHoldId()).getStatus()).isEqualTo(HoldStatus.EXPIRED);
+    assertThat(holdService.getHold(longer.getHoldId()).getStatus()).isEqualTo(HoldStatus.HELD);
+    assertThat(accountsService.getAccount("Payer-0").getAvailableBalance()).isEqualByComparingTo("9900");
+    assertThatThrownBy(() -> holdService.capture(hold.getHoldId(), null)).isInstanceOf(BadRequestExceptionClass.class);
+
+    clock.advance(Duration.ofDays(1));
+    assertThat(holdService.expireDue()).isEqualTo(1);
+    assertThat(accountsService.getAccount("Payer-0").getHeld()).isEqualByComparingTo("0");
+    assertThat(holdService.getOpenCount()).isZero();
+  }
+
+  @Test
+  void holdOnHotAccountShowsInItsSnapshot() throws Exception {
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(new String[] {"Merchant"}, 4), (account, description) -> { });
+    accountsService.createAccount(new Account("Merchant", new BigDecimal("500")));
+    accountsService.createAccount(new Account("Payee", new BigDecimal("100")));
+    holdService = new HoldService(accountsService, clock, 100, 3600);
+    assertThat(accountsService.getAccount("Merchant")).isInstanceOf(HotAccount.class);
+
+    // lands in a credit slot, outside the base balance
+    accountsService.fundTransfer(new MoneyTransferRequest("Payee", "Merchant", new BigDecimal("100")));
+    holdService.place(new HoldRequest("Merchant", "Payee", new BigDecimal("200"), null));
+    Account merchant = accountsService.getAccount("Merchant");
+    Account read = accountsService.readAccount("Merchant");
+
+    assertThat(read).isNotInstanceOf(HotAccount.class);
+    assertThat(read.getBalance()).isEqualByComparingTo("600");
+    assertThat(read.getHeld()).isEqualByComparingTo("200");
+    assertThat(read.getAvailableBalance()).isEqualByComparingTo("400");
+    assertThat(merchant.getAvailableBalance()).isEqualByComparingTo("400");
+    assertThat(read.getVersion()).isEqualTo(merchant.getVersion());
+    assertThat(read.getVersion()).isPositive();
+  }
+
+  @Test
+  void captureReleaseAndExpiryRaceClosesEachHoldOnce() throws Exception {
+    List<Hold> holds = new ArrayList<>();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < 4000; i++) {
+      holds.add(holdService.place(new HoldRequest("Payer-" + i % PAYERS, "Payee",
+        BigDecimal.valueOf(1 + random.nextInt(5)), 1L + random.nextInt(10))));
+    }
+    Map<Long, AtomicInteger> closings = new ConcurrentHashMap<>();
+    AtomicBoolean overdrawn = new AtomicBoolean();
+    AtomicBoolean running = new AtomicBoolean(true);
+
+    ExecutorService executor = Executors.newFixedThreadPool(6);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      boolean capture = t % 2 == 0;
+      workers.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+        for (int i = 0; i < holds.size(); i++) {
+          Hold hold = holds.get(threadRandom.nextInt(holds.size()));
+          try {
+            if (capture) {
+              holdService.capture(hold.getHoldId(), BigDecimal.valueOf(1 + threadRandom.nextInt(hold.getAmount().intValue())));
+            } else {
+              holdService.release(hold.getHoldId());
+            }
+            closings.computeIfAbsent(hold.getHoldId(), id -> new AtomicInteger()).incrementAndGet();
+          } catch (BadRequestExceptionClass alreadyClosed) {
+            // another thread got there first
+          }
+        }
+        return null;
+      }));
+    }
+    // expiry, with the clock stepping through the ttls
+    workers.add(executor.submit(() -> {
+      start.await();
+      for (int i = 0; i < 120; i++) {
+        clock.advance(Duration.ofMillis(100));
+        holdService.expireDue();
+      }
+      return null;
+    }));
+    // plain transfers on the same accounts, which must never dig into held money
+    workers.add(executor.submit(() -> {
+      start.await();
+      ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+      while (running.get()) {
+        String payer = "Payer-" + threadRandom.nextInt(PAYERS);
+        try {
+          accountsService.fundTransfer(new MoneyTransferRequest(payer, "Payee", BigDecimal.valueOf(1 + threadRandom.nextInt(100))));
+        } catch (InsufficientAmountInAccountException ex) {
+          // fine, the rest is held
+        }
+        Account account = accountsService.getAccount(payer);
+        if (account.getBalance().signum() < 0 || account.getAvailableBalance().signum() < 0) {
+          overdrawn.set(true);
+        }
+      }
+      return null;
+    }));
+
+    assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+      start.countDown();
+      for (Future<?> worker : workers.subList(0, 5)) {
+        worker.get();
+      }
+      running.set(false);
+      workers.get(5).get();
+    });
+    executor.shutdown();
+    // whatever is left expires
+    clock.advance(Duration.ofSeconds(11));
+    holdService.expireDue();
+
+    int expired = 0;
+    for (Hold hold : holds) {
+      Hold closed = holdService.getHold(hold.getHoldId());
+      assertThat(closed.getStatus()).isNotEqualTo(HoldStatus.HELD);
+      if (closed.getStatus() == HoldStatus.EXPIRED) {
+        expired++;
+        assertThat(closings).doesNotContainKey(hold.getHoldId());
+      } else {
+        assertThat(closings.get(hold.getHoldId())).hasValue(1);
+      }
+    }
+    assertThat(closings.size() + expired).isEqualTo(holds.size());
+    assertThat(overdrawn).isFalse();
+
+    BigDecimal total = accountsService.getAccount("Payee").getBalance();
+    for (int i = 0; i < PAYERS; i++) {
+      Account payer = accountsService.getAccount("Payer-" + i);
+      assertThat(payer.getHeld()).isEqualByComparingTo("0");
+      assertThat(payer.getBalance().signum()).isNotNegative();
+      total = total.add(payer.getBalance());
+    }
+    assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(PAYERS)));
+  }
+}
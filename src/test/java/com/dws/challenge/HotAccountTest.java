@@ -0,0 +1,95 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.HotAccount;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.junit.jupiter.api.Test;
+
+class HotAccountTest {
+
+  private static final int SENDERS = 16;
+
+  private final AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(new String[] {"Merchant"}, 4);
+  private final AccountsService accountsService = new AccountsService(repository, (account, description) -> { });
+
+  @Test
+  void designatedAccountsAreSplit() {
+    accountsService.createAccount(new Account("Merchant", new BigDecimal("10.00")));
+    accountsService.createAccount(new Account("Customer", new BigDecimal("10.00")));
+
+    assertThat(repository.getAccount("Merchant")).isInstanceOf(HotAccount.class);
+    assertThat(((HotAccount) repository.getAccount("Merchant")).getSlotCount()).isEqualTo(4);
+    assertThat(repository.getAccount("Customer")).isNotInstanceOf(HotAccount.class);
+  }
+
+  @Test
+  void concurrentCreditsAndDebitsKeepTheSummedBalance() throws Exception {
+    accountsService.createAccount(new Account("Merchant", BigDecimal.ZERO));
+    accountsService.createAccount(new Account("Treasury", BigDecimal.ZERO));
+    for (int i = 0; i < SENDERS; i++) {
+      accountsService.createAccount(new Account("Sender-" + i, new BigDecimal(1000)));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(SENDERS + 1);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < SENDERS; t++) {
+      String sender = "Sender-" + t;
+      workers.add(executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          accountsService.fundTransfer(new MoneyTransferRequest(sender, "Merchant", BigDecimal.ONE));
+        }
+        return null;
+      }));
+    }
+    // drains the merchant while it is being credited; every debit must be covered
+    Future<Integer> drainer = executor.submit(() -> {
+      int drained = 0;
+      for (int i = 0; i < 5000; i++) {
+        try {
+          accountsService.fundTransfer(new MoneyTransferRequest("Merchant", "Treasury", new BigDecimal(2)));
+          drained += 2;
+        } catch (InsufficientAmountInAccountException ex) {
+          Thread.onSpinWait();
+        }
+        assertThat(accountsService.getAccount("Merchant").getBalance()).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+      }
+      return drained;
+    });
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    int drained = drainer.get();
+    executor.shutdown();
+
+    assertThat(accountsService.readAccount("Merchant").getBalance())
+      .isEqualByComparingTo(BigDecimal.valueOf(SENDERS * 1000L - drained));
+    assertThat(accountsService.readAccount("Treasury").getBalance()).isEqualByComparingTo(BigDecimal.valueOf(drained));
+  }
+
+  @Test
+  void batchesOnlyApplyTheirOwnChanges() throws Exception {
+    accountsService.createAccount(new Account("Merchant", new BigDecimal(100)));
+    accountsService.createAccount(new Account("Customer", new BigDecimal(100)));
+
+    accountsService.fundTransfer(new MoneyTransferRequest("Customer", "Merchant", new BigDecimal(30)));
+    accountsService.fundTransferBatch(List.of(
+      new MoneyTransferRequest("Merchant", "Customer", new BigDecimal(120)),
+      new MoneyTransferRequest("Customer", "Merchant", new BigDecimal(10))), BatchTransferMode.ALL_OR_NOTHING);
+
+    assertThat(accountsService.readAccount("Merchant").getBalance()).isEqualByComparingTo("20");
+    assertThat(accountsService.readAccount("Customer").getBalance()).isEqualByComparingTo("180");
+  }
+}
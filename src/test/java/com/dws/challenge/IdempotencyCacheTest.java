@@ -0,0 +1,190 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.exception.AccountLockTimeoutException;
+import com.dws.challenge.exception.IdempotencyKeyReuseException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+  private static final int THREADS = 32;
+
+  @Test
+  void concurrentDuplicatesTransferOnce() throws Exception {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    accountsService.createAccount(new Account("Idem-1", new BigDecimal("1000")));
+    accountsService.createAccount(new Account("Idem-2", new BigDecimal("0")));
+    MoneyTransferRequest request = new MoneyTransferRequest("Idem-1", "Idem-2", new BigDecimal("100"));
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<MoneyTransferResponse>> responses = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        responses.add(executor.submit(() -> {
+          start.await();
+          return accountsService.fundTransfer(request, "retry-key");
+        }));
+      }
+      start.countDown();
+      Set<Long> transactionIds = new HashSet<>();
+      for (Future<MoneyTransferResponse> response : responses) {
+        transactionIds.add(response.get().getTransactionId());
+      }
+      assertThat(transactionIds).hasSize(1);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(accountsService.getAccount("Idem-1").getBalance()).isEqualByComparingTo("900");
+    assertThat(accountsService.getAccount("Idem-2").getBalance()).isEqualByComparingTo("100");
+    IdempotencyCache cache = accountsService.getIdempotencyCache();
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(THREADS - 1);
+  }
+
+  @Test
+  void inFlightDuplicateWaitsForFirstExecution() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache();
+    MoneyTransferRequest request = new MoneyTransferRequest("A", "B", BigDecimal.ONE);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger executions = new AtomicInteger();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<MoneyTransferResponse> first = executor.submit(() -> cache.execute("slow", request, () -> {
+        executions.incrementAndGet();
+        running.countDown();
+        release.await();
+        return new MoneyTransferResponse("done", 7L);
+      }));
+      running.await();
+
+      Thread duplicate = new Thread(() -> {
+        try {
+          assertThat(cache.execute("slow", request, () -> new MoneyTransferResponse("again", 8L)).getTransactionId()).isEqualTo(7L);
+        } catch (Exception ex) {
+          throw new IllegalStateException(ex);
+        }
+      });
+      duplicate.start();
+      duplicate.join(200);
+      // still parked on the first execution
+      assertThat(duplicate.isAlive()).isTrue();
+
+      release.countDown();
+      duplicate.join();
+      assertThat(first.get().getTransactionId()).isEqualTo(7L);
+      assertThat(executions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void sameKeyWithDifferentTransferIsRejected() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache();
+    cache.execute("key", new MoneyTransferRequest("A", "B", BigDecimal.ONE), () -> new MoneyTransferResponse("done", 1L));
+
+    assertThatThrownBy(() -> cache.execute("key", new MoneyTransferRequest("A", "B", BigDecimal.TEN),
+      () -> new MoneyTransferResponse("done", 2L))).isInstanceOf(IdempotencyKeyReuseException.class);
+  }
+
+  @Test
+  void failedExecutionIsNotRemembered() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache();
+    MoneyTransferRequest request = new MoneyTransferRequest("A", "B", BigDecimal.ONE);
+
+    assertThatThrownBy(() -> cache.execute("key", request, () -> {
+      throw new AccountLockTimeoutException("busy");
+    })).isInstanceOf(AccountLockTimeoutException.class);
+
+    assertThat(cache.execute("key", request, () -> new MoneyTransferResponse("done", 3L)).getTransactionId()).isEqualTo(3L);
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  void oldestEntriesAreEvictedBeyondCapacity() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(100, 3600);
+    for (int i = 0; i < 150; i++) {
+      long id = i;
+      cache.execute("key-" + i, new MoneyTransferRequest("A", "B", BigDecimal.ONE), () -> new MoneyTransferResponse("done", id));
+    }
+
+    assertThat(cache.getSize()).isEqualTo(100);
+    assertThat(cache.getEvictions()).isEqualTo(50);
+    // key-0 was evicted, so it runs again
+    assertThat(cache.execute("key-0", new MoneyTransferRequest("A", "B", BigDecimal.ONE),
+      () -> new MoneyTransferResponse("done", 999L)).getTransactionId()).isEqualTo(999L);
+  }
+
+  @Test
+  void runningEntryIsNotEvictedBeyondCapacity() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(10, 3600);
+    MoneyTransferRequest request = new MoneyTransferRequest("A", "B", BigDecimal.ONE);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger executions = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<MoneyTransferResponse> first = executor.submit(() -> cache.execute("blocked", request, () -> {
+        executions.incrementAndGet();
+        running.countDown();
+        release.await();
+        return new MoneyTransferResponse("done", 7L);
+      }));
+      running.await();
+      for (int i = 0; i < 50; i++) {
+        long id = i;
+        cache.execute("key-" + i, request, () -> new MoneyTransferResponse("done", id));
+      }
+      // the running entry went to the back of the queue and completed ones were evicted instead
+      assertThat(cache.getSize()).isEqualTo(10);
+      assertThat(cache.getEvictions()).isEqualTo(41);
+
+      // the retry joins the running transfer instead of moving the money a second time
+      Future<MoneyTransferResponse> retry = executor.submit(() -> cache.execute("blocked", request, () -> {
+        executions.incrementAndGet();
+        return new MoneyTransferResponse("again", 8L);
+      }));
+      release.countDown();
+      assertThat(retry.get().getTransactionId()).isEqualTo(7L);
+      assertThat(first.get().getTransactionId()).isEqualTo(7L);
+      assertThat(executions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void expiredEntriesRunAgain() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(100, 0);
+    MoneyTransferRequest request = new MoneyTransferRequest("A", "B", BigDecimal.ONE);
+    cache.execute("key", request, () -> new MoneyTransferResponse("done", 1L));
+    Thread.sleep(5);
+
+    assertThat(cache.execute("key", request, () -> new MoneyTransferResponse("done", 2L)).getTransactionId()).isEqualTo(2L);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+  }
+}
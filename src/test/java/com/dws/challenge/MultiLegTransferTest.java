@@ -0,0 +1,150 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferResponse;
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.exception.AccountIdNotFoundException;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiLegTransferTest {
+
+  private static final int ACCOUNTS = 6;
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000");
+
+  private AccountsService accountsService;
+
+  @BeforeEach
+  void setUp() {
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accountsService.createAccount(new Account("Id-" + i, INITIAL_BALANCE));
+    }
+  }
+
+  @Test
+  void splitPaymentAppliesEveryLeg() throws Exception {
+    // Id-0 and Id-1 pay 700 to a merchant, a fee account and a tax account
+    MultiLegTransferResponse response = accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "500"), leg("Id-1", "200")),
+      List.of(leg("Id-2", "650"), leg("Id-3", "30"), leg("Id-4", "20"))));
+
+    assertThat(accountsService.getAccount("Id-0").getBalance()).isEqualByComparingTo("500");
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("800");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("1650");
+    assertThat(accountsService.getAccount("Id-3").getBalance()).isEqualByComparingTo("1030");
+    assertThat(accountsService.getAccount("Id-4").getBalance()).isEqualByComparingTo("1020");
+
+    // 500 -> Id-2, then Id-1's 200 covers the rest of Id-2 and both fees
+    List<String> pairs = new ArrayList<>();
+    for (long transactionId : response.getTransactionIds()) {
+      Transaction transaction = accountsService.getTransaction(transactionId);
+      pairs.add(transaction.getAccountFrom() + ">" + transaction.getAccountTo() + ":" + transaction.getAmount().toPlainString());
+    }
+    assertThat(pairs).containsExactly("Id-0>Id-2:500", "Id-1>Id-2:150", "Id-1>Id-3:30", "Id-1>Id-4:20");
+  }
+
+  @Test
+  void unfundedLegLeavesEveryAccountAsItWas() {
+    assertThatThrownBy(() -> accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "600"), leg("Id-1", "1001")),
+      List.of(leg("Id-2", "1601")))))
+      .isInstanceOf(InsufficientAmountInAccountException.class);
+
+    for (int i = 0; i < ACCOUNTS; i++) {
+      assertThat(accountsService.getAccount("Id-" + i).getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+    }
+  }
+
+  @Test
+  void accountOnBothSidesOnlyNeedsToCoverItsNetDebit() throws Exception {
+    accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "1500"), leg("Id-1", "100")),
+      List.of(leg("Id-0", "900"), leg("Id-2", "700"))));
+
+    assertThat(accountsService.getAccount("Id-0").getBalance()).isEqualByComparingTo("400");
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("900");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("1700");
+  }
+
+  @Test
+  void invalidRequestsAreRejected() {
+    assertThatThrownBy(() -> accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "100")), List.of(leg("Id-1", "99")))))
+      .isInstanceOf(BadRequestExceptionClass.class);
+    assertThatThrownBy(() -> accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "100")), List.of())))
+      .isInstanceOf(BadRequestExceptionClass.class);
+    assertThatThrownBy(() -> accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "-1")), List.of(leg("Id-1", "-1")))))
+      .isInstanceOf(BadRequestExceptionClass.class);
+    assertThatThrownBy(() -> accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(
+      List.of(leg("Id-0", "100")), List.of(leg("Missing", "100")))))
+      .isInstanceOf(AccountIdNotFoundException.class);
+  }
+
+  @Test
+  void concurrentOverlappingTransfersDoNotDeadlock() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      workers.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2000; i++) {
+          // two debits and three credits over random, overlapping accounts
+          List<TransferLeg> debits = List.of(leg("Id-" + random.nextInt(ACCOUNTS), "3"), leg("Id-" + random.nextInt(ACCOUNTS), "2"));
+          List<TransferLeg> credits = List.of(leg("Id-" + random.nextInt(ACCOUNTS), "1"), leg("Id-" + random.nextInt(ACCOUNTS), "1"),
+            leg("Id-" + random.nextInt(ACCOUNTS), "3"));
+          try {
+            accountsService.fundMultiLegTransfer(new MultiLegTransferRequest(debits, credits));
+          } catch (InsufficientAmountInAccountException ex) {
+            // fine, nothing was applied
+          }
+        }
+        return null;
+      }));
+    }
+
+    assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    });
+    executor.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < ACCOUNTS; i++) {
+      BigDecimal balance = accountsService.getAccount("Id-" + i).getBalance();
+      assertThat(balance.signum()).isNotNegative();
+      total = total.add(balance);
+    }
+    assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)));
+  }
+
+  private static TransferLeg leg(String accountId, String amount) {
+    return new TransferLeg(accountId, new BigDecimal(amount));
+  }
+}
@@ -0,0 +1,136 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.web.ReactiveAccountsController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.WebApplicationContext;
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class ReactiveAccountsControllerTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private ReactiveAccountsController reactiveAccountsController;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @BeforeEach
+  void prepareMockMvc() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+
+    // Reset the existing accounts before each test.
+    accountsService.getAccountsRepository().clearAccounts();
+  }
+
+  @Test
+  void createAndGetAccount() throws Exception {
+    MvcResult created = this.mockMvc.perform(post("/v2/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-v2\",\"balance\":1000}")).andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(created)).andExpect(status().isCreated());
+
+    MvcResult fetched = this.mockMvc.perform(get("/v2/accounts/Id-v2")).andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(fetched))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.accountId").value("Id-v2"));
+  }
+
+  @Test
+  void createDuplicateAccount() throws Exception {
+    accountsService.createAccount(new Account("Id-v2", new BigDecimal("1000")));
+
+    MvcResult created = this.mockMvc.perform(post("/v2/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-v2\",\"balance\":1000}")).andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(created)).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void amountTransfer() throws Exception {
+    accountsService.createAccount(new Account("Id-v2-a", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-v2-b", new BigDecimal("0")));
+
+    MvcResult transfer = this.mockMvc.perform(post("/v2/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountFrom\":\"Id-v2-a\",\"accountTo\":\"Id-v2-b\",\"transferAmount\":40}"))
+      .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(transfer))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.message").value("Money Transfer Successfully!!!"));
+
+    assertThat(accountsService.getAccount("Id-v2-b").getBalance()).isEqualByComparingTo("40");
+  }
+
+  @Test
+  void amountTransferInsufficientBalance() throws Exception {
+    accountsService.createAccount(new Account("Id-v2-a", new BigDecimal("10")));
+    accountsService.createAccount(new Account("Id-v2-b", new BigDecimal("0")));
+
+    MvcResult transfer = this.mockMvc.perform(post("/v2/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountFrom\":\"Id-v2-a\",\"accountTo\":\"Id-v2-b\",\"transferAmount\":40}"))
+      .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(transfer)).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void streamedBatchSendsOneEventPerTransfer() throws Exception {
+    accountsService.createAccount(new Account("Id-v2-a", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-v2-b", new BigDecimal("0")));
+
+    MvcResult stream = this.mockMvc.perform(post("/v2/accounts/amount-transfer/stream").contentType(MediaType.APPLICATION_JSON)
+      .accept(MediaType.TEXT_EVENT_STREAM)
+      .content("[{\"accountFrom\":\"Id-v2-a\",\"accountTo\":\"Id-v2-b\",\"transferAmount\":60},"
+        + "{\"accountFrom\":\"Id-v2-a\",\"accountTo\":\"Id-v2-b\",\"transferAmount\":60},"
+        + "{\"accountFrom\":\"Id-v2-a\",\"accountTo\":\"Id-missing\",\"transferAmount\":1}]"))
+      .andExpect(request().asyncStarted()).andReturn();
+    stream.getAsyncResult(5_000);
+
+    String events = stream.getResponse().getContentAsString();
+    assertThat(events).contains("id:0", "id:1", "id:2", "event:SUCCESS", "event:FAILED", "Invalid toAccount :: Id-missing");
+    assertThat(accountsService.getAccount("Id-v2-b").getBalance()).isEqualByComparingTo("60");
+  }
+
+  @Test
+  void streamedBatchFollowsSubscriberDemand() {
+    accountsService.createAccount(new Account("Id-v2-a", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-v2-b", new BigDecimal("0")));
+    MoneyTransferRequest request = new MoneyTransferRequest("Id-v2-a", "Id-v2-b", BigDecimal.ONE);
+
+    StepVerifier.create(reactiveAccountsController.amountTransferStream(List.of(request, request, request)), 1)
+      .assertNext(event -> assertThat(event.data().getStatus()).isEqualTo(TransactionStatus.SUCCESS))
+      .expectNoEvent(Duration.ofMillis(50))
+      .thenRequest(2)
+      .expectNextCount(2)
+      .verifyComplete();
+  }
+}
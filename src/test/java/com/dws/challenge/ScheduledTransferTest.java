@@ -0,0 +1,213 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ScheduleStatus;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.exception.BadRequestExceptionClass;
+import com.dws.challenge.exception.ScheduledTransferNotFoundException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TimerWheel;
+import com.dws.challenge.service.TransferScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ScheduledTransferTest {
+
+  private static final Instant START = Instant.parse("2024-01-31T08:00:00Z");
+
+  private VirtualClock clock;
+  private AccountsService accountsService;
+
+  @BeforeEach
+  void setUp() {
+    clock = new VirtualClock(START);
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    accountsService.createAccount(new Account("Payer", new BigDecimal("1000")));
+    accountsService.createAccount(new Account("Payee-1", BigDecimal.ZERO));
+    accountsService.createAccount(new Account("Payee-2", BigDecimal.ZERO));
+  }
+
+  @Test
+  void runsAtItsExecutionTimeAndNotBefore() throws Exception {
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 0, 0, 1000);
+    ScheduledTransfer payroll = scheduler.schedule(request("Payee-1", "100", START.plus(Duration.ofHours(1))));
+    ScheduledTransfer standingOrder = scheduler.schedule(request("Payee-2", "50", START.plus(Duration.ofDays(30))));
+
+    assertThat(payroll.getStatus()).isEqualTo(ScheduleStatus.PENDING);
+    assertThat(scheduler.getPendingSchedules("Payer", 10)).extracting("scheduleId")
+      .containsExactly(payroll.getScheduleId(), standingOrder.getScheduleId());
+
+    clock.advance(Duration.ofHours(1).minusMillis(1));
+    assertThat(scheduler.tick()).isZero();
+    clock.advance(Duration.ofMillis(1));
+    assertThat(scheduler.tick()).isEqualTo(1);
+
+    ScheduledTransfer executed = scheduler.getSchedule(payroll.getScheduleId());
+    assertThat(executed.getStatus()).isEqualTo(ScheduleStatus.EXECUTED);
+    assertThat(executed.getTransactionId()).isNotNull();
+    assertThat(executed.getExecutedAt()).isEqualTo(START.plus(Duration.ofHours(1)));
+    assertThat(accountsService.getTransaction(executed.getTransactionId()).getAccountTo()).isEqualTo("Payee-1");
+    assertThat(accountsService.getAccount("Payee-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(scheduler.getPendingSchedules("Payer", 10)).extracting("scheduleId")
+      .containsExactly(standingOrder.getScheduleId());
+
+    // a month later, the wheel has to carry the entry down through its levels
+    clock.advance(Duration.ofDays(30));
+    assertThat(scheduler.tick()).isEqualTo(1);
+    assertThat(accountsService.getAccount("Payee-2").getBalance()).isEqualByComparingTo("50");
+    assertThat(scheduler.getPendingCount()).isZero();
+  }
+
+  @Test
+  void cancelledScheduleDoesNotRun() throws Exception {
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 0, 0, 1000);
+    ScheduledTransfer schedule = scheduler.schedule(request("Payee-1", "100", START.plusSeconds(60)));
+
+    assertThat(scheduler.cancel(schedule.getScheduleId()).getStatus()).isEqualTo(ScheduleStatus.CANCELLED);
+    clock.advance(Duration.ofMinutes(2));
+
+    assertThat(scheduler.tick()).isZero();
+    assertThat(scheduler.getSchedule(schedule.getScheduleId()).getStatus()).isEqualTo(ScheduleStatus.CANCELLED);
+    assertThat(accountsService.getAccount("Payee-1").getBalance()).isEqualByComparingTo("0");
+    assertThatThrownBy(() -> scheduler.cancel(schedule.getScheduleId())).isInstanceOf(BadRequestExceptionClass.class);
+    assertThatThrownBy(() -> scheduler.cancel(12345)).isInstanceOf(ScheduledTransferNotFoundException.class);
+  }
+
+  @Test
+  void unfundedScheduleFailsAndOthersStillRun() throws Exception {
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 0, 0, 1000);
+    ScheduledTransfer large = scheduler.schedule(request("Payee-1", "900", START.plusSeconds(1)));
+    ScheduledTransfer tooLarge = scheduler.schedule(request("Payee-2", "200", START.plusSeconds(1)));
+    ScheduledTransfer small = scheduler.schedule(request("Payee-2", "100", START.plusSeconds(1)));
+    clock.advance(Duration.ofSeconds(1));
+
+    assertThat(scheduler.tick()).isEqualTo(3);
+    assertThat(scheduler.getSchedule(large.getScheduleId()).getStatus()).isEqualTo(ScheduleStatus.EXECUTED);
+    assertThat(scheduler.getSchedule(small.getScheduleId()).getStatus()).isEqualTo(ScheduleStatus.EXECUTED);
+    ScheduledTransfer failed = scheduler.getSchedule(tooLarge.getScheduleId());
+    assertThat(failed.getStatus()).isEqualTo(ScheduleStatus.FAILED);
+    assertThat(failed.getTransactionId()).isNotNull();
+    assertThat(accountsService.getAccount("Payer").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void rateSpreadsDueSchedulesOverTicks() throws Exception {
+    // 10 per second with 100 ms ticks: one transfer per tick
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 0, 10, 1000);
+    for (int i = 0; i < 5; i++) {
+      scheduler.schedule(request("Payee-1", "1", START.plusSeconds(10)));
+    }
+    clock.advance(Duration.ofSeconds(10));
+
+    List<Integer> perTick = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      perTick.add(scheduler.tick());
+      clock.advance(Duration.ofMillis(100));
+    }
+
+    assertThat(perTick).containsExactly(1, 1, 1, 1, 1, 0);
+    assertThat(accountsService.getAccount("Payee-1").getBalance()).isEqualByComparingTo("5");
+  }
+
+  @Test
+  void jitterSpreadsSchedulesWithoutRunningEarly() throws Exception {
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 1000, 0, 1000);
+    Instant topOfTheHour = START.plus(Duration.ofHours(1));
+    for (int i = 0; i < 100; i++) {
+      scheduler.schedule(request("Payee-1", "1", topOfTheHour));
+    }
+
+    clock.set(topOfTheHour.minusMillis(1));
+    assertThat(scheduler.tick()).isZero();
+    int ticksWithWork = 0;
+    int total = 0;
+    for (int i = 0; i <= 10; i++) {
+      clock.set(topOfTheHour.plusMillis(i * 100L));
+      int ran = scheduler.tick();
+      ticksWithWork += ran > 0 ? 1 : 0;
+      total += ran;
+    }
+
+    assertThat(total).isEqualTo(100);
+    assertThat(ticksWithWork).isGreaterThan(5);
+  }
+
+  @Test
+  void wheelFiresEveryEntryOnItsTick() {
+    Random random = new Random(7);
+    TimerWheel<Long> wheel = new TimerWheel<>(1_000);
+    List<TimerWheel.Timer<Long>> timers = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      long deadline = 1_001 + random.nextInt(i % 2 == 0 ? 500 : 5_000_000);
+      timers.add(wheel.schedule(deadline, deadline));
+    }
+    for (int i = 0; i < timers.size(); i += 10) {
+      assertThat(wheel.cancel(timers.get(i))).isTrue();
+    }
+    assertThat(wheel.size()).isEqualTo(18_000);
+
+    List<Long> late = new ArrayList<>();
+    int fired = 0;
+    for (long tick = 1_001; tick <= 5_001_000; tick++) {
+      long now = tick;
+      fired += wheel.advance(tick, deadline -> {
+        if (deadline != now) {
+          late.add(deadline);
+        }
+      });
+    }
+
+    assertThat(late).isEmpty();
+    assertThat(fired).isEqualTo(18_000);
+    assertThat(wheel.size()).isZero();
+    assertThat(wheel.cancel(timers.get(1))).isFalse();
+  }
+
+  @Test
+  void pastDeadlineFiresOnTheNextTickAcrossALevelBoundary() {
+    // the next tick is 256, so the moved deadline lands on level 1 and has to drop back to level 0
+    TimerWheel<Long> wheel = new TimerWheel<>(255);
+    TimerWheel.Timer<Long> timer = wheel.schedule(10, 10L);
+    assertThat(timer.getDeadline()).isEqualTo(256);
+
+    List<Long> fired = new ArrayList<>();
+    assertThat(wheel.advance(256, fired::add)).isEqualTo(1);
+    assertThat(fired).containsExactly(10L);
+    assertThat(wheel.size()).isZero();
+
+    TimerWheel<Long> later = new TimerWheel<>(255);
+    later.schedule(10, 10L);
+    assertThat(later.advance(100_256, fired::add)).isEqualTo(1);
+    assertThat(later.size()).isZero();
+  }
+
+  @Test
+  void scheduleInThePastRunsOnTheNextTick() throws Exception {
+    // on the last tick before a 256 tick boundary, so the overdue schedule goes through level 1
+    clock.set(Instant.ofEpochMilli((START.toEpochMilli() / 100 | 255) * 100));
+    TransferScheduler scheduler = new TransferScheduler(accountsService, clock, 100, 0, 0, 1000);
+    ScheduledTransfer overdue = scheduler.schedule(request("Payee-1", "100", START));
+
+    assertThat(scheduler.tick()).isZero();
+    clock.advance(Duration.ofMillis(100));
+    assertThat(scheduler.tick()).isEqualTo(1);
+    assertThat(scheduler.getSchedule(overdue.getScheduleId()).getStatus()).isEqualTo(ScheduleStatus.EXECUTED);
+    assertThat(accountsService.getAccount("Payee-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  private static ScheduledTransferRequest request(String accountTo, String amount, Instant executeAt) {
+    return new ScheduledTransferRequest("Payer", accountTo, new BigDecimal(amount), executeAt);
+  }
+}
@@ -0,0 +1,114 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.domain.MoneyTransferResponse;
+import com.dws.challenge.exception.InsufficientAmountInAccountException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedTransferEngineTest {
+
+  private final AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+
+  private final ShardedTransferEngine engine = new ShardedTransferEngine(repository, "sharded", 4, false);
+
+  @AfterEach
+  void stopEngine() throws InterruptedException {
+    engine.shutdown();
+  }
+
+  @Test
+  void transfersAcrossShardsConserveTheTotalBalance() throws Exception {
+    int accounts = 16;
+    for (int i = 0; i < accounts; i++) {
+      repository.createAccount(new Account("Shard-" + i, new BigDecimal("1000")));
+    }
+
+    ExecutorService callers = Executors.newFixedThreadPool(16);
+    List<Future<List<CompletableFuture<Boolean>>>> submitted = new ArrayList<>();
+    for (int t = 0; t < 16; t++) {
+      submitted.add(callers.submit(() -> {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2_000; i++) {
+          int from = random.nextInt(accounts);
+          int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+          results.add(engine.submit("Shard-" + from, "Shard-" + to, BigDecimal.valueOf(random.nextInt(1, 50))));
+        }
+        return results;
+      }));
+    }
+    for (Future<List<CompletableFuture<Boolean>>> future : submitted) {
+      CompletableFuture.allOf(future.get().toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+    }
+    callers.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < accounts; i++) {
+      BigDecimal balance = repository.getAccount("Shard-" + i).getBalance();
+      assertThat(balance).isNotNegative();
+      total = total.add(balance);
+    }
+    assertThat(total).isEqualByComparingTo("16000");
+  }
+
+  @Test
+  void insufficientBalanceCompletesWithFalse() throws Exception {
+    repository.createAccount(new Account("Shard-a", new BigDecimal("5")));
+    repository.createAccount(new Account("Shard-b", BigDecimal.ZERO));
+
+    assertThat(engine.submit("Shard-a", "Shard-b", BigDecimal.TEN).get(5, TimeUnit.SECONDS)).isFalse();
+    assertThat(engine.submit("Shard-a", "Shard-b", new BigDecimal("5")).get(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(repository.getAccount("Shard-a").getBalance()).isEqualByComparingTo("0");
+    assertThat(repository.getAccount("Shard-b").getBalance()).isEqualByComparingTo("5");
+  }
+
+  @Test
+  void accountsServiceRoutesTransfersThroughTheEngine() throws Exception {
+    AccountsService accountsService = new AccountsService(repository, (account, description) -> { },
+      new AccountLockManager(), TransferJournal.disabled(), new TransactionLedger(1024, 16), new IdempotencyCache(),
+      TransferMetrics.disabled(), engine, AccountSnapshotter.disabled(), 100);
+    accountsService.createAccount(new Account("Shard-x", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Shard-y", new BigDecimal("0")));
+
+    MoneyTransferResponse sync = accountsService.fundTransfer(new MoneyTransferRequest("Shard-x", "Shard-y", BigDecimal.TEN));
+    MoneyTransferResponse async = accountsService.fundTransferAsync(new MoneyTransferRequest("Shard-y", "Shard-x", BigDecimal.ONE))
+      .get(5, TimeUnit.SECONDS);
+
+    assertThat(sync.getTransactionId()).isNotEqualTo(async.getTransactionId());
+    assertThat(repository.getAccount("Shard-x").getBalance()).isEqualByComparingTo("91");
+    assertThat(repository.getAccount("Shard-y").getBalance()).isEqualByComparingTo("9");
+    assertThatThrownBy(() -> accountsService.fundTransfer(new MoneyTransferRequest("Shard-y", "Shard-x", new BigDecimal("50"))))
+      .isInstanceOf(InsufficientAmountInAccountException.class);
+  }
+
+  @Test
+  void rejectsUnknownEngine() {
+    assertThatThrownBy(() -> new ShardedTransferEngine(repository, "actors", 1, false))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
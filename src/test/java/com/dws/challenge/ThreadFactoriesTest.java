@@ -0,0 +1,38 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.dws.challenge.service.ThreadFactories;
+import org.junit.jupiter.api.Test;
+
+class ThreadFactoriesTest {
+
+  @Test
+  void platformThreadsAreNamedDaemons() {
+    Thread thread = ThreadFactories.named("worker-", false).newThread(() -> { });
+
+    assertThat(thread.getName()).isEqualTo("worker-1");
+    assertThat(thread.isDaemon()).isTrue();
+  }
+
+  @Test
+  void virtualThreadsWhenTheRuntimeSupportsThem() throws Exception {
+    AtomicReference<String> name = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    Thread thread = ThreadFactories.named("worker-", true).newThread(() -> {
+      name.set(Thread.currentThread().getName());
+      done.countDown();
+    });
+    thread.start();
+    done.await();
+
+    assertThat(name.get()).isEqualTo("worker-1");
+    // Thread.isVirtual() only exists on Java 21, on older runtimes the factory falls back to platform threads
+    boolean virtual = ThreadFactories.virtualThreadsSupported()
+      && (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    assertThat(virtual).isEqualTo(ThreadFactories.virtualThreadsSupported());
+  }
+}
@@ -0,0 +1,72 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.Transaction;
+import com.dws.challenge.domain.TransactionHistoryResponse;
+import com.dws.challenge.domain.TransactionStatus;
+import com.dws.challenge.repository.TransactionLedger;
+import org.junit.jupiter.api.Test;
+
+class TransactionLedgerTest {
+
+  @Test
+  void oldestTransactionsAreEvictedBeyondRetention() {
+    TransactionLedger ledger = new TransactionLedger(8, 4);
+    for (int i = 1; i <= 10; i++) {
+      ledger.record("Id-1", "Id-2", BigDecimal.valueOf(i), TransactionStatus.SUCCESS);
+    }
+
+    assertThat(ledger.find(1)).isNull();
+    assertThat(ledger.find(2)).isNull();
+    assertThat(ledger.find(11)).isNull();
+    Transaction latest = ledger.find(10);
+    assertThat(latest.getAccountFrom()).isEqualTo("Id-1");
+    assertThat(latest.getAmount()).isEqualByComparingTo("10");
+    assertThat(latest.getStatus()).isEqualTo(TransactionStatus.SUCCESS);
+  }
+
+  @Test
+  void historyIsPagedNewestFirstWithinThePerAccountWindow() {
+    TransactionLedger ledger = new TransactionLedger(64, 4);
+    for (int i = 1; i <= 10; i++) {
+      ledger.record(i % 2 == 0 ? "Id-1" : "Id-2", "Id-3", BigDecimal.ONE, TransactionStatus.SUCCESS);
+    }
+
+    TransactionHistoryResponse firstPage = ledger.history("Id-3", null, 3);
+    assertThat(firstPage.getTransactions()).extracting(Transaction::getTransactionId).containsExactly(10L, 9L, 8L);
+    assertThat(firstPage.getNextCursor()).isEqualTo(8L);
+
+    // only the latest 4 ids are indexed per account
+    TransactionHistoryResponse lastPage = ledger.history("Id-3", firstPage.getNextCursor(), 3);
+    assertThat(lastPage.getTransactions()).extracting(Transaction::getTransactionId).containsExactly(7L);
+    assertThat(lastPage.getNextCursor()).isNull();
+
+    assertThat(ledger.history("Id-1", null, 10).getTransactions())
+      .extracting(Transaction::getTransactionId).containsExactly(10L, 8L, 6L, 4L);
+  }
+
+  @Test
+  void accountHistoriesAreDroppedOnceTheirTransactionsAreEvicted() {
+    TransactionLedger ledger = new TransactionLedger(64, 256);
+    for (int i = 1; i <= 32; i++) {
+      ledger.record("Old-" + i, "Busy", BigDecimal.ONE, TransactionStatus.SUCCESS);
+    }
+    assertThat(ledger.getIndexedAccounts()).isEqualTo(33);
+
+    // two more laps of the ring push every Old-* transaction out
+    for (int i = 1; i <= 128; i++) {
+      ledger.record("Busy", "Other", BigDecimal.ONE, TransactionStatus.SUCCESS);
+    }
+    assertThat(ledger.getIndexedAccounts()).isEqualTo(2);
+    assertThat(ledger.history("Old-1", null, 10).getTransactions()).isEmpty();
+
+    // Busy's history grew past its initial size and still pages across the whole retained window
+    assertThat(ledger.history("Busy", null, 100).getTransactions()).hasSize(64);
+    ledger.record("Old-1", "Other", BigDecimal.ONE, TransactionStatus.SUCCESS);
+    assertThat(ledger.history("Old-1", null, 10).getTransactions())
+      .extracting(Transaction::getTransactionId).containsExactly(161L);
+  }
+}
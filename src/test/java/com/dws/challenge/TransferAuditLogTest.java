@@ -0,0 +1,49 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferAuditLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class TransferAuditLogTest {
+
+  private final Logger auditLogger = (Logger) LoggerFactory.getLogger(TransferAuditLog.LOGGER_NAME);
+
+  private final ListAppender<ILoggingEvent> audit = new ListAppender<>();
+
+  @BeforeEach
+  void attachAppender() {
+    audit.start();
+    auditLogger.addAppender(audit);
+  }
+
+  @AfterEach
+  void detachAppender() {
+    auditLogger.detachAppender(audit);
+  }
+
+  @Test
+  void everyTransferWritesOneAuditLine() throws Exception {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(), (account, description) -> { });
+    accountsService.createAccount(new Account("Audit-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Audit-2", new BigDecimal("0")));
+
+    Long transactionId = accountsService.fundTransfer(new MoneyTransferRequest("Audit-1", "Audit-2", BigDecimal.TEN)).getTransactionId();
+
+    assertThat(audit.list).hasSize(1);
+    assertThat(audit.list.get(0).getFormattedMessage())
+      .isEqualTo("transfer id=" + transactionId + " from=Audit-1 to=Audit-2 amount=10 status=SUCCESS");
+  }
+}
@@ -0,0 +1,122 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TransactionLedger;
+import com.dws.challenge.repository.TransferJournal;
+import com.dws.challenge.repository.TransferJournal.SyncMode;
+import com.dws.challenge.service.AccountLockManager;
+import com.dws.challenge.service.AccountSnapshotter;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransferJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replayRebuildsBalancesAcrossSegments() throws Exception {
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferJournal journal = openJournal(repository, SyncMode.GROUP);
+    AccountsService accountsService = new AccountsService(repository, (account, description) -> { },
+      new AccountLockManager(), journal, new TransactionLedger(1024, 16), new IdempotencyCache(), TransferMetrics.disabled(),
+      ShardedTransferEngine.disabled(), AccountSnapshotter.disabled(), 100);
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("1000.50")));
+    accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+    accountsService.fundTransfer(new MoneyTransferRequest("Id-1", "Id-2", new BigDecimal("0.50")));
+    // ~38 bytes per record, enough to roll over the 1 MB segment
+    for (int i = 0; i < 30_000; i++) {
+      journal.recordTransfer("Id-1", "Id-2", new BigDecimal("0.01"));
+    }
+    journal.close();
+
+    AccountsRepository recovered = new AccountsRepositoryInMemory();
+    TransferJournal reopened = openJournal(recovered, SyncMode.GROUP);
+
+    assertThat(reopened.getRecovered()).isEqualTo(30_003);
+    assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("700.00");
+    assertThat(recovered.getAccount("Id-2").getBalance()).isEqualByComparingTo("300.50");
+    reopened.close();
+  }
+
+  @Test
+  void tornRecordAndEverythingAfterItIsDiscarded() throws Exception {
+    TransferJournal journal = openJournal(new AccountsRepositoryInMemory(), SyncMode.PER_TRANSFER);
+    journal.recordAccountCreated(new Account("Id-1", BigDecimal.TEN), () -> { });
+    journal.recordAccountCreated(new Account("Id-2", BigDecimal.TEN), () -> { });
+    journal.recordTransfer("Id-1", "Id-2", BigDecimal.ONE);
+    journal.close();
+
+    // header (16) + two creations (34 bytes each): flip a byte inside the transfer record
+    try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0x7f}), 16 + 34 + 34 + 20);
+    }
+
+    AccountsRepository recovered = new AccountsRepositoryInMemory();
+    TransferJournal reopened = openJournal(recovered, SyncMode.PER_TRANSFER);
+    assertThat(reopened.getRecovered()).isEqualTo(2);
+    assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+
+    // the journal keeps appending where the valid records ended
+    reopened.recordTransfer("Id-2", "Id-1", BigDecimal.ONE);
+    reopened.close();
+    AccountsRepository again = new AccountsRepositoryInMemory();
+    TransferJournal third = openJournal(again, SyncMode.PER_TRANSFER);
+    assertThat(third.getRecovered()).isEqualTo(3);
+    assertThat(again.getAccount("Id-1").getBalance()).isEqualByComparingTo("11");
+    third.close();
+  }
+
+  @Test
+  void groupCommitSharesForcesBetweenConcurrentTransfers() throws Exception {
+    TransferJournal journal = openJournal(new AccountsRepositoryInMemory(), SyncMode.GROUP);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      writers.add(executor.submit(() -> {
+        for (int i = 0; i < 500; i++) {
+          journal.recordTransfer("Id-1", "Id-2", BigDecimal.ONE);
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+
+    assertThat(journal.getAppended()).isEqualTo(4000);
+    assertThat(journal.getForces()).isLessThan(4000);
+    journal.close();
+  }
+
+  private TransferJournal openJournal(AccountsRepository repository, SyncMode syncMode) throws IOException {
+    TransferJournal journal = new TransferJournal(repository, journalFile().toString(), true, syncMode, 1);
+    journal.open();
+    return journal;
+  }
+
+  private Path journalFile() {
+    return directory.resolve("transfers.journal");
+  }
+}
@@ -0,0 +1,103 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.service.AccountsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@WebAppConfiguration
+class TransferMetricsTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @BeforeEach
+  void prepareAccounts() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+    accountsService.getAccountsRepository().clearAccounts();
+    accountsService.createAccount(new Account("Metrics-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Metrics-2", new BigDecimal("0")));
+  }
+
+  @Test
+  void transfersAreTimedByOutcomeAndPhase() throws Exception {
+    long success = transfers("success");
+    long insufficient = transfers("insufficient_funds");
+    long lockWaits = meterRegistry.get("account.lock.wait").timer().count();
+    long lockHolds = meterRegistry.get("account.lock.hold").timer().count();
+    long validations = meterRegistry.get("transfer.phase").tag("phase", "validate").timer().count();
+
+    accountsService.fundTransfer(new MoneyTransferRequest("Metrics-1", "Metrics-2", BigDecimal.TEN));
+    try {
+      accountsService.fundTransfer(new MoneyTransferRequest("Metrics-2", "Metrics-1", new BigDecimal("1000")));
+    } catch (RuntimeException expected) {
+      // insufficient balance
+    }
+
+    assertThat(transfers("success")).isEqualTo(success + 1);
+    assertThat(transfers("insufficient_funds")).isEqualTo(insufficient + 1);
+    assertThat(meterRegistry.get("account.lock.wait").timer().count()).isEqualTo(lockWaits + 1);
+    assertThat(meterRegistry.get("account.lock.hold").timer().count()).isEqualTo(lockHolds + 1);
+    assertThat(meterRegistry.get("transfer.phase").tag("phase", "validate").timer().count()).isEqualTo(validations + 2);
+    assertThat(meterRegistry.get("accounts.repository.size").gauge().value()).isEqualTo(2.0);
+    assertThat(meterRegistry.get("account.lock.acquisitions").functionCounter().count()).isPositive();
+  }
+
+  @Test
+  void errorsAreCountedPerExceptionType() throws Exception {
+    double before = errors("AccountIdNotFoundException");
+
+    this.mockMvc.perform(post("/v1/accounts/amount-transfer").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountTo\":\"Metrics-1\",\"accountFrom\":\"Missing\", \"transferAmount\": 1}"))
+      .andExpect(status().isNotFound());
+
+    assertThat(errors("AccountIdNotFoundException")).isEqualTo(before + 1);
+  }
+
+  @Test
+  void metricsAreExposedThroughActuator() throws Exception {
+    accountsService.fundTransfer(new MoneyTransferRequest("Metrics-1", "Metrics-2", BigDecimal.ONE));
+
+    this.mockMvc.perform(get("/actuator/metrics/transfer.requests")).andExpect(status().isOk());
+  }
+
+  private long transfers(String outcome) {
+    Timer timer = meterRegistry.find("transfer.requests").tag("outcome", outcome).timer();
+    return timer == null ? 0 : timer.count();
+  }
+
+  private double errors(String exception) {
+    Counter counter = meterRegistry.find("transfer.errors").tag("exception", exception).counter();
+    return counter == null ? 0 : counter.count();
+  }
+}